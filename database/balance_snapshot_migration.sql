@@ -0,0 +1,28 @@
+-- Adds event-sourced balances to an existing tenmo database.
+-- Approvals made before this runs are already part of account.balance, so that becomes every account's opening balance.
+BEGIN TRANSACTION;
+
+CREATE SEQUENCE seq_approval
+  INCREMENT BY 1
+  START WITH 1
+  NO MAXVALUE;
+
+ALTER TABLE transfer ADD COLUMN approval_seq bigint;
+
+CREATE INDEX IX_transfer_from_approval ON transfer (account_from, approval_seq) WHERE approval_seq IS NOT NULL;
+CREATE INDEX IX_transfer_to_approval ON transfer (account_to, approval_seq) WHERE approval_seq IS NOT NULL;
+
+CREATE TABLE balance_snapshot (
+	account_id int NOT NULL,
+	opening_balance decimal(13, 2) NOT NULL,
+	balance decimal(13, 2) NOT NULL,
+	last_approval_seq bigint NOT NULL DEFAULT 0,
+	taken_at timestamp NOT NULL DEFAULT now(),
+	CONSTRAINT PK_balance_snapshot PRIMARY KEY (account_id),
+	CONSTRAINT FK_balance_snapshot_account FOREIGN KEY (account_id) REFERENCES account (account_id)
+);
+
+INSERT INTO balance_snapshot (account_id, opening_balance, balance)
+SELECT account_id, balance, balance FROM account;
+
+COMMIT;
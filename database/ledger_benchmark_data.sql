@@ -0,0 +1,87 @@
+-- Fills a tenmo database with approved transfers and their ledger entries for benchmarking history reads.
+-- Every transfer posts two ledger rows, so the defaults below produce 100M ledger_entry rows.
+--
+--   psql -d tenmo -f database/ledger_benchmark_data.sql
+--   psql -d tenmo -v transfers=1000000 -v accounts=10000 -v months=12 -f database/ledger_benchmark_data.sql
+--
+-- Transfers are spread uniformly over the last :months months, with one partition per month. Users are named
+-- bench<n>. Each chunk commits on its own, so an interrupted run keeps what it finished.
+\set ON_ERROR_STOP on
+\if :{?transfers}
+\else
+\set transfers 50000000
+\endif
+\if :{?accounts}
+\else
+\set accounts 100000
+\endif
+\if :{?months}
+\else
+\set months 24
+\endif
+
+SELECT set_config('bench.transfers', :'transfers', false),
+       set_config('bench.accounts', :'accounts', false),
+       set_config('bench.months', :'months', false);
+
+DO $$
+DECLARE
+	m date;
+BEGIN
+	FOR i IN -current_setting('bench.months')::int .. 3 LOOP
+		m := (date_trunc('month', now()) + make_interval(months => i))::date;
+		EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF ledger_entry FOR VALUES FROM (%L) TO (%L)',
+			'ledger_entry_' || to_char(m, 'YYYY_MM'), m, (m + interval '1 month')::date);
+	END LOOP;
+END $$;
+
+INSERT INTO tenmo_user (username, password_hash, role)
+SELECT 'bench' || g, 'bench', 'ROLE_USER' FROM generate_series(1, :accounts) g;
+
+INSERT INTO account (user_id, balance)
+SELECT user_id, 1000000 FROM tenmo_user WHERE username LIKE 'bench%' ORDER BY user_id;
+
+INSERT INTO balance_snapshot (account_id, opening_balance, balance)
+SELECT a.account_id, a.balance, a.balance FROM account a JOIN tenmo_user u ON u.user_id = a.user_id
+WHERE u.username LIKE 'bench%';
+
+DO $$
+DECLARE
+	total bigint := current_setting('bench.transfers')::bigint;
+	months int := current_setting('bench.months')::int;
+	chunk bigint := 1000000;
+	done bigint := 0;
+	batch bigint;
+	lo int;
+	n int;
+BEGIN
+	SELECT min(a.account_id), count(*) INTO lo, n FROM account a JOIN tenmo_user u ON u.user_id = a.user_id
+	WHERE u.username LIKE 'bench%';
+	WHILE done < total LOOP
+		batch := least(chunk, total - done);
+		-- account_to is account_from shifted by 1..n-1 places, so the two never match
+		WITH t AS (
+			INSERT INTO transfer (transfer_type_id, transfer_status_id, account_from, account_to, amount, approval_seq, created_at)
+			SELECT 2, 2, lo + f, lo + (f + 1 + (random() * (n - 2))::int) % n, (1 + random() * 100)::numeric(13, 2),
+				nextval('seq_approval'), c
+			FROM (SELECT (random() * (n - 1))::int AS f, now() - random() * months * interval '30 days' AS c
+				FROM generate_series(1, batch)) g
+			RETURNING transfer_id, account_from, account_to, amount, created_at)
+		INSERT INTO ledger_entry (transfer_id, account_id, amount, created_at)
+		SELECT transfer_id, account_from, amount, created_at FROM t
+		UNION ALL
+		SELECT transfer_id, account_to, -amount, created_at FROM t;
+		done := done + batch;
+		COMMIT;
+		RAISE NOTICE '% of % transfers', done, total;
+	END LOOP;
+END $$;
+
+-- Bring account.balance in line with the generated postings; balances may go negative, which is fine for reads
+UPDATE account a SET balance = a.balance + p.total
+FROM (SELECT account_id, sum(amount) AS total FROM ledger_entry GROUP BY account_id) p
+WHERE a.account_id = p.account_id
+  AND a.user_id IN (SELECT user_id FROM tenmo_user WHERE username LIKE 'bench%');
+
+ANALYZE transfer;
+ANALYZE ledger_entry;
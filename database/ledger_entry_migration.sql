@@ -0,0 +1,41 @@
+-- Adds transfer.created_at and the partitioned double-entry ledger_entry table to an existing tenmo database.
+-- Approved transfers are posted to the ledger stamped with the migration time, since their real times were never kept.
+-- Run balance_snapshot_migration.sql first if it has not been applied.
+BEGIN TRANSACTION;
+
+ALTER TABLE transfer ADD COLUMN created_at timestamp NOT NULL DEFAULT now();
+
+CREATE INDEX IX_transfer_from_unposted ON transfer (account_from) WHERE transfer_status_id <> 2;
+CREATE INDEX IX_transfer_to_unposted ON transfer (account_to) WHERE transfer_status_id <> 2;
+
+CREATE TABLE ledger_entry (
+	transfer_id int NOT NULL,
+	account_id int NOT NULL,
+	amount decimal(13, 2) NOT NULL,
+	created_at timestamp NOT NULL DEFAULT now(),
+	CONSTRAINT PK_ledger_entry PRIMARY KEY (transfer_id, account_id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE TABLE ledger_entry_default PARTITION OF ledger_entry DEFAULT;
+
+CREATE INDEX IX_ledger_entry_account_created ON ledger_entry (account_id, created_at);
+
+-- This month and the next three, the same ones the server would create, so the backfill does not land in the
+-- default partition
+DO $$
+DECLARE
+	m date;
+BEGIN
+	FOR i IN 0 .. 3 LOOP
+		m := (date_trunc('month', now()) + make_interval(months => i))::date;
+		EXECUTE format('CREATE TABLE %I PARTITION OF ledger_entry FOR VALUES FROM (%L) TO (%L)',
+			'ledger_entry_' || to_char(m, 'YYYY_MM'), m, (m + interval '1 month')::date);
+	END LOOP;
+END $$;
+
+INSERT INTO ledger_entry (transfer_id, account_id, amount, created_at)
+SELECT transfer_id, account_from, amount, created_at FROM transfer WHERE transfer_status_id = 2
+UNION ALL
+SELECT transfer_id, account_to, -amount, created_at FROM transfer WHERE transfer_status_id = 2;
+
+COMMIT;
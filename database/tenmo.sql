@@ -1,7 +1,7 @@
 BEGIN TRANSACTION;
 
-DROP TABLE IF EXISTS transfer, account, tenmo_user, transfer_type, transfer_status;
-DROP SEQUENCE IF EXISTS seq_user_id, seq_account_id, seq_transfer_id;
+DROP TABLE IF EXISTS ledger_entry, balance_snapshot, idempotency_key, transfer, account, tenmo_user, transfer_type, transfer_status;
+DROP SEQUENCE IF EXISTS seq_user_id, seq_account_id, seq_transfer_id, seq_approval;
 
 
 CREATE TABLE transfer_type (
@@ -55,6 +55,8 @@ CREATE TABLE transfer (
 	account_from int NOT NULL,
 	account_to int NOT NULL,
 	amount decimal(13, 2) NOT NULL,
+	approval_seq bigint,
+	created_at timestamp NOT NULL DEFAULT now(),
 	CONSTRAINT PK_transfer PRIMARY KEY (transfer_id),
 	CONSTRAINT FK_transfer_account_from FOREIGN KEY (account_from) REFERENCES account (account_id),
 	CONSTRAINT FK_transfer_account_to FOREIGN KEY (account_to) REFERENCES account (account_id),
@@ -64,6 +66,55 @@ CREATE TABLE transfer (
 	CONSTRAINT CK_transfer_amount_gt_0 CHECK (amount > 0)
 );
 
+-- Order in which transfers were approved; balance snapshots record how far into it they have summed
+CREATE SEQUENCE seq_approval
+  INCREMENT BY 1
+  START WITH 1
+  NO MAXVALUE;
+
+CREATE INDEX IX_transfer_from_approval ON transfer (account_from, approval_seq) WHERE approval_seq IS NOT NULL;
+CREATE INDEX IX_transfer_to_approval ON transfer (account_to, approval_seq) WHERE approval_seq IS NOT NULL;
+
+-- Pending and rejected transfers per account; approved ones are read from ledger_entry
+CREATE INDEX IX_transfer_from_unposted ON transfer (account_from, transfer_id) WHERE transfer_status_id <> 2;
+CREATE INDEX IX_transfer_to_unposted ON transfer (account_to, transfer_id) WHERE transfer_status_id <> 2;
+
+-- Double-entry postings: approving a transfer debits account_to and credits account_from, so each approved
+-- transfer has one negative and one positive row. Monthly partitions are created ahead by the server; rows
+-- outside them land in the default partition.
+CREATE TABLE ledger_entry (
+	transfer_id int NOT NULL,
+	account_id int NOT NULL,
+	amount decimal(13, 2) NOT NULL,
+	created_at timestamp NOT NULL DEFAULT now(),
+	CONSTRAINT PK_ledger_entry PRIMARY KEY (transfer_id, account_id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE TABLE ledger_entry_default PARTITION OF ledger_entry DEFAULT;
+
+CREATE INDEX IX_ledger_entry_account_created ON ledger_entry (account_id, created_at);
+CREATE INDEX IX_ledger_entry_account_transfer ON ledger_entry (account_id, transfer_id);
+
+-- Event-sourced balances (tenmo.balance.mode=event-sourced): balance is opening_balance plus every approval
+-- up to last_approval_seq, and reads add the approvals after it
+CREATE TABLE balance_snapshot (
+	account_id int NOT NULL,
+	opening_balance decimal(13, 2) NOT NULL,
+	balance decimal(13, 2) NOT NULL,
+	last_approval_seq bigint NOT NULL DEFAULT 0,
+	taken_at timestamp NOT NULL DEFAULT now(),
+	CONSTRAINT PK_balance_snapshot PRIMARY KEY (account_id),
+	CONSTRAINT FK_balance_snapshot_account FOREIGN KEY (account_id) REFERENCES account (account_id)
+);
+
+-- Only used when tenmo.idempotency.jdbc.enabled=true, so several server nodes share Idempotency-Key replays
+CREATE TABLE idempotency_key (
+	idempotency_key varchar(200) NOT NULL,
+	transfer_id int,
+	created_at timestamp NOT NULL DEFAULT now(),
+	CONSTRAINT PK_idempotency_key PRIMARY KEY (idempotency_key)
+);
+
 INSERT INTO transfer_status (transfer_status_desc) VALUES ('Pending');
 INSERT INTO transfer_status (transfer_status_desc) VALUES ('Approved');
 INSERT INTO transfer_status (transfer_status_desc) VALUES ('Rejected');
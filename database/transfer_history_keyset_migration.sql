@@ -0,0 +1,12 @@
+-- Indexes for the keyset-paginated /transfer/history endpoint, for databases migrated with ledger_entry_migration.sql.
+-- Every branch of a history page walks one account's rows in transfer_id order.
+BEGIN TRANSACTION;
+
+DROP INDEX IX_transfer_from_unposted;
+DROP INDEX IX_transfer_to_unposted;
+CREATE INDEX IX_transfer_from_unposted ON transfer (account_from, transfer_id) WHERE transfer_status_id <> 2;
+CREATE INDEX IX_transfer_to_unposted ON transfer (account_to, transfer_id) WHERE transfer_status_id <> 2;
+
+CREATE INDEX IX_ledger_entry_account_transfer ON ledger_entry (account_id, transfer_id);
+
+COMMIT;
@@ -0,0 +1,82 @@
+package com.techelevator.tenmo.benchmarks;
+
+import com.techelevator.tenmo.enums.TransferTypeEnum;
+import com.techelevator.tenmo.model.BatchTransferDto;
+import com.techelevator.tenmo.model.Money;
+import com.techelevator.tenmo.service.TransferServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TransferServiceImpl's approve paths over in-memory DAOs, scored per transfer. Transfers come in opposite pairs,
+ * so approving both leaves the balances unchanged and they can be approved again.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ApproveTransferBenchmark {
+
+    private static final int BATCH = 100;
+    private static final int ACCOUNTS = 20;
+
+    private InMemoryTransferDao transferDao;
+    private TransferServiceImpl transferService;
+    private List<Integer> batch;
+
+    @Setup
+    public void setup() {
+        InMemoryAccountDao accountDao = new InMemoryAccountDao();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountDao.addAccount(2001 + i, 1001 + i, Money.ofCents(1_000_000));
+        }
+        transferDao = new InMemoryTransferDao(accountDao);
+        transferService = new TransferServiceImpl(transferDao, accountDao);
+
+        Integer request = TransferTypeEnum.REQUEST.getTypeId();
+        batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i += 2) {
+            int accountA = 2001 + i % ACCOUNTS;
+            int accountB = 2001 + (i + 1 + i / ACCOUNTS) % ACCOUNTS;
+            Money amount = Money.ofCents(100 + i * 37L);
+            transferDao.addPendingTransfer(3001 + i, request, accountA, accountB, amount);
+            transferDao.addPendingTransfer(3002 + i, request, accountB, accountA, amount);
+            batch.add(3001 + i);
+            batch.add(3002 + i);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public void approveTransfer() {
+        transferService.approveTransfer(3001);
+        transferService.approveTransfer(3002);
+        transferDao.resetToPending(3001);
+        transferDao.resetToPending(3002);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<BatchTransferDto> approveTransfers() {
+        List<BatchTransferDto> results = transferService.approveTransfers(batch);
+        for (Integer transferId : batch) {
+            transferDao.resetToPending(transferId);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,69 @@
+package com.techelevator.tenmo.benchmarks;
+
+import com.techelevator.tenmo.security.jwt.TokenProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Properties;
+
+/**
+ * Reads the server's application.properties from its jar, so the benchmarks use the same JWT key and token
+ * lifetimes as the server.
+ */
+final class BenchmarkSettings {
+
+    private static final Properties SERVER_PROPERTIES = load();
+
+    private BenchmarkSettings() {
+    }
+
+    static TokenProvider tokenProvider() {
+        return tokenProvider(Integer.parseInt(serverProperty("jwt.cache.max-entries")));
+    }
+
+    /**
+     * With a cacheMaxEntries of 0 every token is parsed and verified.
+     */
+    static TokenProvider tokenProvider(int cacheMaxEntries) {
+        TokenProvider tokenProvider = new TokenProvider(serverProperty("jwt.base64-secret"),
+                Long.parseLong(serverProperty("jwt.token-validity-in-seconds")),
+                Long.parseLong(serverProperty("jwt.token-validity-in-seconds-for-remember-me")),
+                cacheMaxEntries);
+        tokenProvider.afterPropertiesSet();
+        return tokenProvider;
+    }
+
+    /**
+     * What AuthenticationController hands to createToken after a successful login.
+     */
+    static Authentication loggedInUser() {
+        return new UsernamePasswordAuthenticationToken("user", null,
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")));
+    }
+
+    static String serverProperty(String name) {
+        String value = SERVER_PROPERTIES.getProperty(name);
+        if (value == null) {
+            throw new IllegalStateException(name + " is not set in the server's application.properties");
+        }
+        return value;
+    }
+
+    private static Properties load() {
+        Properties properties = new Properties();
+        try (InputStream in = BenchmarkSettings.class.getResourceAsStream("/application.properties")) {
+            if (in == null) {
+                throw new IllegalStateException("application.properties is not on the classpath");
+            }
+            properties.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,65 @@
+package com.techelevator.tenmo.benchmarks;
+
+import com.techelevator.tenmo.dao.AccountDao;
+import com.techelevator.tenmo.model.Account;
+import com.techelevator.tenmo.model.Money;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Accounts in a HashMap, so ApproveTransferBenchmark measures TransferServiceImpl rather than the database.
+ * Nothing is actually locked; the benchmarks are single-threaded.
+ */
+class InMemoryAccountDao implements AccountDao {
+
+    private final Map<Integer, Account> accounts = new HashMap<>();
+
+    void addAccount(Integer accountId, Integer userId, Money balance) {
+        accounts.put(accountId, new Account(accountId, userId, balance));
+    }
+
+    @Override
+    public Account findByUserId(Integer userId) {
+        for (Account account : accounts.values()) {
+            if (account.getUserId().equals(userId)) {
+                return account;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Account findByAccountId(Integer accountId) {
+        return accounts.get(accountId);
+    }
+
+    @Override
+    public void updateBalanceByAccountId(Integer accountId, Money amount) {
+        accounts.get(accountId).setBalance(amount);
+    }
+
+    @Override
+    public List<Account> lockAccounts(Collection<Integer> accountIds) {
+        List<Account> locked = new ArrayList<>(accountIds.size());
+        for (Integer accountId : new TreeSet<>(accountIds)) {
+            Account account = accounts.get(accountId);
+            if (account != null) {
+                locked.add(account);
+            }
+        }
+        return locked;
+    }
+
+    @Override
+    public void addToBalances(Map<Integer, Money> deltasByAccountId) {
+        for (Map.Entry<Integer, Money> delta : deltasByAccountId.entrySet()) {
+            Account account = accounts.get(delta.getKey());
+            account.setBalance(account.getBalance().plus(delta.getValue()));
+        }
+    }
+}
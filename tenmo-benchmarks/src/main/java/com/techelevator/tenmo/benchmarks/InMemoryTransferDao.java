@@ -0,0 +1,151 @@
+package com.techelevator.tenmo.benchmarks;
+
+import com.techelevator.tenmo.dao.TransferDao;
+import com.techelevator.tenmo.enums.TransferDirectionEnum;
+import com.techelevator.tenmo.enums.TransferResultEnum;
+import com.techelevator.tenmo.enums.TransferStatusEnum;
+import com.techelevator.tenmo.model.Account;
+import com.techelevator.tenmo.model.BatchTransferDto;
+import com.techelevator.tenmo.model.BucksDto;
+import com.techelevator.tenmo.model.Money;
+import com.techelevator.tenmo.model.TransferDto;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+/**
+ * Transfers in a HashMap, with just the methods TransferServiceImpl's approve paths call.
+ */
+class InMemoryTransferDao implements TransferDao {
+
+    private static final Integer PENDING = TransferStatusEnum.PENDING.getStatusId();
+    private static final Integer APPROVED = TransferStatusEnum.APPROVED.getStatusId();
+
+    private final Map<Integer, TransferDto> transfers = new HashMap<>();
+    private final InMemoryAccountDao accountDao;
+
+    InMemoryTransferDao(InMemoryAccountDao accountDao) {
+        this.accountDao = accountDao;
+    }
+
+    void addPendingTransfer(Integer transferId, Integer typeId, Integer accountFrom, Integer accountTo, Money amount) {
+        transfers.put(transferId, new TransferDto(transferId, typeId, PENDING, accountFrom, null, accountTo, null, amount));
+    }
+
+    void resetToPending(Integer transferId) {
+        transfers.get(transferId).setTransferStatusId(PENDING);
+    }
+
+    @Override
+    public TransferDto getTransferById(Integer transferId) {
+        return transfers.get(transferId);
+    }
+
+    @Override
+    public void updateTransferStatus(Integer transferId, Integer newStatusId) {
+        transfers.get(transferId).setTransferStatusId(newStatusId);
+    }
+
+    @Override
+    public TransferResultEnum approvePendingTransfer(Integer transferId) {
+        TransferDto transfer = transfers.get(transferId);
+        if (transfer == null) {
+            return TransferResultEnum.NOT_FOUND;
+        }
+        if (!PENDING.equals(transfer.getTransferStatusId())) {
+            return TransferResultEnum.NOT_PENDING;
+        }
+        Account to = accountDao.findByAccountId(transfer.getAccountTo());
+        Account from = accountDao.findByAccountId(transfer.getAccountFrom());
+        if (to.getBalance().isLessThan(transfer.getAmount())) {
+            return TransferResultEnum.INSUFFICIENT_BALANCE;
+        }
+        to.setBalance(to.getBalance().minus(transfer.getAmount()));
+        from.setBalance(from.getBalance().plus(transfer.getAmount()));
+        transfer.setTransferStatusId(APPROVED);
+        return TransferResultEnum.SUCCESS;
+    }
+
+    @Override
+    public TransferResultEnum rejectPendingTransfer(Integer transferId) {
+        TransferDto transfer = transfers.get(transferId);
+        if (transfer == null) {
+            return TransferResultEnum.NOT_FOUND;
+        }
+        if (!PENDING.equals(transfer.getTransferStatusId())) {
+            return TransferResultEnum.NOT_PENDING;
+        }
+        transfer.setTransferStatusId(TransferStatusEnum.REJECTED.getStatusId());
+        return TransferResultEnum.SUCCESS;
+    }
+
+    @Override
+    public List<TransferDto> lockPendingTransfers(List<Integer> transferIds) {
+        List<TransferDto> pending = new ArrayList<>(transferIds.size());
+        for (Integer transferId : new TreeSet<>(transferIds)) {
+            TransferDto transfer = transfers.get(transferId);
+            if (transfer != null && PENDING.equals(transfer.getTransferStatusId())) {
+                pending.add(transfer);
+            }
+        }
+        return pending;
+    }
+
+    @Override
+    public List<Integer> updatePendingTransferStatuses(List<Integer> transferIds, Integer newStatusId) {
+        List<Integer> changed = new ArrayList<>(transferIds.size());
+        for (Integer transferId : transferIds) {
+            TransferDto transfer = transfers.get(transferId);
+            if (transfer != null && PENDING.equals(transfer.getTransferStatusId())) {
+                transfer.setTransferStatusId(newStatusId);
+                changed.add(transferId);
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public Integer addTransfer(Integer transferTypeId, Integer transferStatusId, Integer accountFrom, Integer accountTo, Money amount) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<BatchTransferDto> addTransfers(Integer transferTypeId, Integer transferStatusId, List<BucksDto> bucksDtos) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<Integer> reserveTransferIds(int count) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void addTransfersWithIds(List<TransferDto> transfers) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<TransferDto> listByAccountId(Integer accountId) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void streamByAccountId(Integer accountId, Consumer<TransferDto> consumer) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<TransferDto> listPageByAccountId(Integer accountId, TransferDirectionEnum direction, Integer statusId,
+                                                 Integer beforeTransferId, int limit) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<TransferDto> listByAccountIdAndStatus(Integer accountId, Integer transferStatusId) {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,82 @@
+package com.techelevator.tenmo.benchmarks;
+
+import com.techelevator.tenmo.security.jwt.JWTFilter;
+import com.techelevator.tenmo.security.jwt.TokenProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWTFilter.doFilter as it runs in front of every request: with a bearer token seen before (the server's verified
+ * token cache applies), with one the filter has to verify, and without one. The rest of the chain does nothing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JwtFilterBenchmark {
+
+    private static final FilterChain END_OF_CHAIN = (request, response) -> { };
+
+    private JWTFilter filter;
+    private JWTFilter uncachedFilter;
+    private MockHttpServletRequest authenticated;
+    private MockHttpServletRequest anonymous;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setup() {
+        TokenProvider tokenProvider = BenchmarkSettings.tokenProvider();
+        filter = new JWTFilter(tokenProvider);
+        uncachedFilter = new JWTFilter(BenchmarkSettings.tokenProvider(0));
+
+        authenticated = new MockHttpServletRequest("GET", "/account/balance");
+        authenticated.addHeader(JWTFilter.AUTHORIZATION_HEADER,
+                "Bearer " + tokenProvider.createToken(BenchmarkSettings.loggedInUser(), false));
+        anonymous = new MockHttpServletRequest("GET", "/account/balance");
+        response = new MockHttpServletResponse();
+    }
+
+    @TearDown
+    public void signOut() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public Authentication withToken() throws IOException, ServletException {
+        filter.doFilter(authenticated, response, END_OF_CHAIN);
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    @Benchmark
+    public Authentication withTokenUncached() throws IOException, ServletException {
+        uncachedFilter.doFilter(authenticated, response, END_OF_CHAIN);
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    @Benchmark
+    public Authentication withoutToken() throws IOException, ServletException {
+        SecurityContextHolder.clearContext();
+        filter.doFilter(anonymous, response, END_OF_CHAIN);
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
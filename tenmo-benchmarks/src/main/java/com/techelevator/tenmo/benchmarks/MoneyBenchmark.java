@@ -0,0 +1,131 @@
+package com.techelevator.tenmo.benchmarks;
+
+import com.techelevator.tenmo.model.Money;
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Money against the double amounts it replaced: reading an amount column, summing amounts and the debit/credit
+ * approveTransfer applies. Each score is per amount.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoneyBenchmark {
+
+    private static final int AMOUNTS = 1000;
+
+    private SimpleResultSet rows;
+    private double[] dollars;
+    private Money[] money;
+
+    @Setup
+    public void setup() {
+        rows = new SimpleResultSet();
+        rows.setAutoClose(false);
+        rows.addColumn("amount_cents", Types.BIGINT, 19, 0);
+        dollars = new double[AMOUNTS];
+        money = new Money[AMOUNTS];
+        for (int i = 0; i < AMOUNTS; i++) {
+            long cents = 100 + i * 37L;
+            dollars[i] = cents / 100.0;
+            money[i] = Money.ofCents(cents);
+            rows.addRow(cents);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(AMOUNTS)
+    public Money readMoney() throws SQLException {
+        ResultSet result = rewind();
+        Money last = null;
+        while (result.next()) {
+            last = Money.ofCents(result.getLong(1));
+        }
+        return last;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(AMOUNTS)
+    public double readDouble() throws SQLException {
+        ResultSet result = rewind();
+        double last = 0;
+        while (result.next()) {
+            last = result.getDouble(1);
+        }
+        return last;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(AMOUNTS)
+    public Money sumMoney() {
+        Money total = Money.ZERO;
+        for (Money amount : money) {
+            total = total.plus(amount);
+        }
+        return total;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(AMOUNTS)
+    public double sumDouble() {
+        double total = 0;
+        for (double amount : dollars) {
+            total += amount;
+        }
+        return total;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(AMOUNTS)
+    public Money approveMoney() {
+        Money from = Money.ZERO;
+        Money to = Money.ofCents(100_000_000_000L);
+        for (Money amount : money) {
+            if (to.isLessThan(amount)) {
+                continue;
+            }
+            to = to.minus(amount);
+            from = from.plus(amount);
+        }
+        return from.plus(to);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(AMOUNTS)
+    public double approveDouble() {
+        double from = 0;
+        double to = 1_000_000_000.0;
+        for (double amount : dollars) {
+            if (to < amount) {
+                continue;
+            }
+            to -= amount;
+            from += amount;
+        }
+        return from + to;
+    }
+
+    private ResultSet rewind() throws SQLException {
+        rows.beforeFirst();
+        return rows;
+    }
+}
@@ -0,0 +1,67 @@
+package com.techelevator.tenmo.benchmarks;
+
+import com.techelevator.tenmo.security.jwt.TokenProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.Authentication;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The TokenProvider calls made per login and per authenticated request. authenticate is what JWTFilter calls;
+ * authenticateCached repeats one token, as a client does between logins.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenProviderBenchmark {
+
+    private TokenProvider tokenProvider;
+    private TokenProvider cachingTokenProvider;
+    private Authentication authentication;
+    private String token;
+
+    @Setup
+    public void setup() {
+        tokenProvider = BenchmarkSettings.tokenProvider(0);
+        cachingTokenProvider = BenchmarkSettings.tokenProvider();
+        authentication = BenchmarkSettings.loggedInUser();
+        token = tokenProvider.createToken(authentication, false);
+    }
+
+    @Benchmark
+    public String createToken() {
+        return tokenProvider.createToken(authentication, false);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return tokenProvider.validateToken(token);
+    }
+
+    @Benchmark
+    public Authentication getAuthentication() {
+        return tokenProvider.getAuthentication(token);
+    }
+
+    @Benchmark
+    public Authentication authenticate() {
+        return tokenProvider.authenticate(token);
+    }
+
+    @Benchmark
+    public Authentication authenticateCached() {
+        return cachingTokenProvider.authenticate(token);
+    }
+}
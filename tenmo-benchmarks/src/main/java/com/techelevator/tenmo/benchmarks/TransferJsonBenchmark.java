@@ -0,0 +1,58 @@
+package com.techelevator.tenmo.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.techelevator.tenmo.model.Money;
+import com.techelevator.tenmo.model.TransferDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes a transfer history the way the /transfer endpoints do, with an ObjectMapper configured like Spring MVC's.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransferJsonBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    private int transfers;
+
+    private ObjectWriter writer;
+    private List<TransferDto> history;
+
+    @Setup
+    public void setup() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        writer = objectMapper.writerFor(new TypeReference<List<TransferDto>>() { });
+        history = new ArrayList<>(transfers);
+        for (int i = 0; i < transfers; i++) {
+            history.add(new TransferDto(3001 + i, 1 + i % 2, 1 + i % 3, 2001 + i % 50, "user" + i % 50,
+                    2051 + i % 50, "user" + (50 + i % 50), Money.ofCents(100 + i * 37L)));
+        }
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return writer.writeValueAsBytes(history);
+    }
+}
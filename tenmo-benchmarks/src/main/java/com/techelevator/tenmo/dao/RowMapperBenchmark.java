@@ -0,0 +1,82 @@
+package com.techelevator.tenmo.dao;
+
+import com.techelevator.tenmo.model.Account;
+import com.techelevator.tenmo.model.TransferDto;
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The row mappers of JdbcTransferDao and JdbcAccountDao over an in-memory ResultSet, so only mapping is measured.
+ * Lives in the dao package because the mappers are package-private. Scores are per row.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RowMapperBenchmark {
+
+    private static final int ROWS = 1000;
+
+    private SimpleResultSet transferRows;
+    private SimpleResultSet accountRows;
+
+    @Setup
+    public void setup() {
+        transferRows = new SimpleResultSet();
+        transferRows.setAutoClose(false);
+        transferRows.addColumn("transfer_id", Types.INTEGER, 10, 0);
+        transferRows.addColumn("transfer_type_id", Types.INTEGER, 10, 0);
+        transferRows.addColumn("transfer_status_id", Types.INTEGER, 10, 0);
+        transferRows.addColumn("account_from", Types.INTEGER, 10, 0);
+        transferRows.addColumn("account_to", Types.INTEGER, 10, 0);
+        transferRows.addColumn("amount_cents", Types.BIGINT, 19, 0);
+
+        accountRows = new SimpleResultSet();
+        accountRows.setAutoClose(false);
+        accountRows.addColumn("account_id", Types.INTEGER, 10, 0);
+        accountRows.addColumn("user_id", Types.INTEGER, 10, 0);
+        accountRows.addColumn("balance_cents", Types.BIGINT, 19, 0);
+
+        for (int i = 0; i < ROWS; i++) {
+            transferRows.addRow(3001 + i, 1 + i % 2, 1 + i % 3, 2001 + i % 50, 2051 + i % 50, 100 + i * 37L);
+            accountRows.addRow(2001 + i, 1001 + i, 100_000 + i * 37L);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void mapRowToTransfer(Blackhole blackhole) throws SQLException {
+        transferRows.beforeFirst();
+        for (int row = 0; transferRows.next(); row++) {
+            TransferDto transfer = JdbcTransferDao.mapRowToTransfer(transferRows, row);
+            blackhole.consume(transfer);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void mapRowToAccount(Blackhole blackhole) throws SQLException {
+        accountRows.beforeFirst();
+        for (int row = 0; accountRows.next(); row++) {
+            Account account = JdbcAccountDao.mapRowToAccount(accountRows, row);
+            blackhole.consume(account);
+        }
+    }
+}
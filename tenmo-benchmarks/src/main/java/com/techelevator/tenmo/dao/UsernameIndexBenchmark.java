@@ -0,0 +1,88 @@
+package com.techelevator.tenmo.dao;
+
+import com.techelevator.tenmo.model.UserDirectoryEntryDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prefix lookups and registrations in a UsernameIndex of ten million users (-p users= to change). In the dao
+ * package because UsernameIndex.Builder is package-private.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class UsernameIndexBenchmark {
+
+    private static final int RESULTS = 10;
+    private static final int PREFIXES = 4096;
+    // Every username gets the same number of digits, so generating them in order also sorts them
+    private static final int FIRST_NUMBER = 100_000_000;
+
+    @Param("10000000")
+    private int users;
+
+    private UsernameIndex index;
+    private String[] hits;
+    private String[] misses;
+    private int next;
+    private int registered;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        index = new UsernameIndex(null);
+        UsernameIndex.Builder builder = new UsernameIndex.Builder();
+        for (int i = 0; i < users; i++) {
+            builder.add(i + 1, "user" + (FIRST_NUMBER + i));
+        }
+        index.putAll(builder);
+        System.out.printf("%nUsernameIndex over %d users: %.1f MB, %.1f bytes per user%n", index.size(),
+                index.memoryBytes() / 1048576.0, index.memoryBytes() / (double) index.size());
+
+        Random random = new Random(42);
+        hits = new String[PREFIXES];
+        misses = new String[PREFIXES];
+        for (int i = 0; i < PREFIXES; i++) {
+            String number = Integer.toString(FIRST_NUMBER + random.nextInt(users));
+            hits[i] = "user" + number.substring(0, number.length() - 3);
+            misses[i] = "usex" + number.substring(0, number.length() - 3);
+        }
+    }
+
+    @Benchmark
+    public List<UserDirectoryEntryDto> searchHit() {
+        return index.search(hits[next++ & (PREFIXES - 1)], RESULTS);
+    }
+
+    @Benchmark
+    public List<UserDirectoryEntryDto> searchMiss() {
+        return index.search(misses[next++ & (PREFIXES - 1)], RESULTS);
+    }
+
+    /**
+     * Sampled rather than averaged, so the registrations that merge into the main block show in the top
+     * percentiles instead of disappearing into the mean.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    public void put() {
+        registered++;
+        index.put(users + registered, "new" + (FIRST_NUMBER + registered));
+    }
+}
@@ -287,13 +287,28 @@ public class App {
 
     }
 
+    /**
+     * Shows the users whose name starts with what the user types, or, if they type nothing, the user directory a page
+     * at a time for as long as they ask for more. Returns the users shown.
+     */
     private List<User> listUserList() {
         List<User> userList = new ArrayList<>();
         try {
-            String url = API_BASE_URL + "/user/listAll/";
-            User[] users = restTemplate.getForObject(url, User[].class);
-            userList = Arrays.asList(users);
-            consoleService.printUserList(userList);
+            String prefix = consoleService.promptForString("Username starts with (blank to browse all users): ").trim();
+            if (!prefix.isEmpty()) {
+                User[] users = restTemplate.getForObject(API_BASE_URL + "user/search?prefix={prefix}", User[].class, prefix);
+                userList = Arrays.asList(users);
+                consoleService.printUserList(userList);
+                return userList;
+            }
+            String cursor = null;
+            do {
+                String url = API_BASE_URL + "user/directory" + (cursor == null ? "" : "?cursor=" + cursor);
+                UserPage page = restTemplate.getForObject(url, UserPage.class);
+                userList.addAll(page.getUsers());
+                consoleService.printUserList(page.getUsers());
+                cursor = page.getNextCursor();
+            } while (cursor != null && consoleService.promptForString("Show more users? (y/n): ").trim().equalsIgnoreCase("y"));
         } catch (ResourceAccessException e) {
             System.out.println(e.getMessage());
         } catch (RestClientResponseException e) {
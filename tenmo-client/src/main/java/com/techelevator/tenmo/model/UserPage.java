@@ -0,0 +1,20 @@
+package com.techelevator.tenmo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * One page of the server's user directory. nextCursor is null on the last page.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserPage {
+    private List<User> users;
+    private String nextCursor;
+}
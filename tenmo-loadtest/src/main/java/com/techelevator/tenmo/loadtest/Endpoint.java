@@ -0,0 +1,25 @@
+package com.techelevator.tenmo.loadtest;
+
+/**
+ * The server endpoints the load test calls, each reported separately.
+ */
+enum Endpoint {
+    REGISTER("POST /register"),
+    LOGIN("POST /login"),
+    SEND("POST /transfer/send"),
+    REQUEST("POST /transfer/request"),
+    PENDING("GET /transfer/Pending Transfers/{id}"),
+    APPROVE("PUT /transfer/approve/{id}"),
+    BALANCE("GET /account/balance/{id}"),
+    ;
+
+    private final String label;
+
+    Endpoint(String label) {
+        this.label = label;
+    }
+
+    String getLabel() {
+        return label;
+    }
+}
@@ -0,0 +1,94 @@
+package com.techelevator.tenmo.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies of one endpoint in microseconds, plus a count per HTTP status.
+ * Any thread may record; a single reporter thread drains the recorder with takeInterval.
+ */
+final class EndpointStats {
+
+    /** Status recorded when no response came back at all. */
+    static final int NO_RESPONSE = 0;
+
+    private final Endpoint endpoint;
+    private final Recorder recorder = new Recorder(3);
+    private final Histogram total = new Histogram(3);
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final LongAdder calls = new LongAdder();
+    private Histogram interval;
+    private long callsBeforeInterval;
+    private long intervalCalls;
+
+    EndpointStats(Endpoint endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * expectedIntervalMicros is how often the caller meant to start a call. A call that runs longer than that has
+     * delayed the ones after it, and HdrHistogram fills in the latencies those would have seen, so a stalled server
+     * is not hidden by the users waiting on it. 0 records the latency alone.
+     */
+    void record(long latencyMicros, long expectedIntervalMicros, int status) {
+        recorder.recordValueWithExpectedInterval(latencyMicros, expectedIntervalMicros);
+        statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+        calls.increment();
+    }
+
+    /**
+     * Latencies recorded since the last call, which are also added to the running total.
+     * The histogram may hold more values than there were calls, see record.
+     */
+    Histogram takeInterval() {
+        interval = recorder.getIntervalHistogram(interval);
+        total.add(interval);
+        long callsNow = calls.sum();
+        intervalCalls = callsNow - callsBeforeInterval;
+        callsBeforeInterval = callsNow;
+        return interval;
+    }
+
+    /**
+     * Calls made in the interval last returned by takeInterval.
+     */
+    long getIntervalCalls() {
+        return intervalCalls;
+    }
+
+    long getCalls() {
+        return calls.sum();
+    }
+
+    Endpoint getEndpoint() {
+        return endpoint;
+    }
+
+    Histogram getTotal() {
+        return total;
+    }
+
+    /**
+     * Calls that did not get a 2xx answer.
+     */
+    long getErrors() {
+        long errors = 0;
+        for (Map.Entry<Integer, LongAdder> status : statuses.entrySet()) {
+            if (status.getKey() < 200 || status.getKey() > 299) {
+                errors += status.getValue().sum();
+            }
+        }
+        return errors;
+    }
+
+    Map<Integer, Long> getStatuses() {
+        Map<Integer, Long> counts = new TreeMap<>();
+        statuses.forEach((status, count) -> counts.put(status, count.sum()));
+        return counts;
+    }
+}
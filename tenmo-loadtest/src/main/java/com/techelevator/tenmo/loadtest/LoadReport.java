@@ -0,0 +1,121 @@
+package com.techelevator.tenmo.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prints per-endpoint throughput and latency percentiles, for each reporting interval and for the whole run, and
+ * writes the run's totals as JSON. Latencies are in milliseconds.
+ */
+final class LoadReport {
+
+    private static final String HEADER = String.format("%-38s %9s %9s %7s %9s %9s %9s %9s %9s",
+            "endpoint", "calls", "calls/s", "errors", "p50", "p90", "p99", "p99.9", "max");
+
+    private final Collection<EndpointStats> stats;
+    private final PrintStream out;
+    private final long startNanos;
+    private long lastIntervalNanos;
+
+    LoadReport(Collection<EndpointStats> stats, PrintStream out, long startNanos) {
+        this.stats = stats;
+        this.out = out;
+        this.startNanos = startNanos;
+        this.lastIntervalNanos = startNanos;
+    }
+
+    /**
+     * Drains every endpoint's latest interval and prints the endpoints that were called in it.
+     * Only one thread at a time may call this.
+     */
+    void printInterval() {
+        long now = System.nanoTime();
+        double elapsedSeconds = (now - startNanos) / 1e9;
+        double intervalSeconds = Math.max(now - lastIntervalNanos, 1) / 1e9;
+        lastIntervalNanos = now;
+        out.printf("%n--- %.0f s ---%n%s%n", elapsedSeconds, HEADER);
+        for (EndpointStats endpoint : stats) {
+            Histogram interval = endpoint.takeInterval();
+            if (endpoint.getIntervalCalls() > 0) {
+                printRow(endpoint.getEndpoint(), endpoint.getIntervalCalls(), intervalSeconds, -1, interval);
+            }
+        }
+    }
+
+    void printSummary(double elapsedSeconds) {
+        out.printf("%n=== whole run, %.0f s ===%n%s%n", elapsedSeconds, HEADER);
+        for (EndpointStats endpoint : stats) {
+            if (endpoint.getCalls() > 0) {
+                printRow(endpoint.getEndpoint(), endpoint.getCalls(), elapsedSeconds, endpoint.getErrors(),
+                        endpoint.getTotal());
+                if (endpoint.getErrors() > 0) {
+                    out.printf("%-38s statuses %s (0 = no response)%n", "", endpoint.getStatuses());
+                }
+            }
+        }
+    }
+
+    void writeJson(File file, LoadSettings settings, double elapsedSeconds) throws IOException {
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("baseUrl", settings.baseUrl);
+        run.put("users", settings.users);
+        run.put("paceMillis", settings.pace.toMillis());
+        run.put("rampUpSeconds", settings.rampUp.getSeconds());
+        run.put("mix", settings.mix.toString());
+        run.put("skew", settings.skew);
+        run.put("elapsedSeconds", elapsedSeconds);
+
+        List<Map<String, Object>> endpoints = new ArrayList<>();
+        for (EndpointStats endpoint : stats) {
+            if (endpoint.getCalls() == 0) {
+                continue;
+            }
+            Histogram total = endpoint.getTotal();
+            Map<String, Object> latency = new LinkedHashMap<>();
+            latency.put("p50", millis(total.getValueAtPercentile(50)));
+            latency.put("p90", millis(total.getValueAtPercentile(90)));
+            latency.put("p99", millis(total.getValueAtPercentile(99)));
+            latency.put("p99.9", millis(total.getValueAtPercentile(99.9)));
+            latency.put("max", millis(total.getMaxValue()));
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("endpoint", endpoint.getEndpoint().getLabel());
+            result.put("calls", endpoint.getCalls());
+            result.put("callsPerSecond", endpoint.getCalls() / elapsedSeconds);
+            result.put("errors", endpoint.getErrors());
+            result.put("statuses", endpoint.getStatuses());
+            result.put("latencyMillis", latency);
+            endpoints.add(result);
+        }
+        run.put("endpoints", endpoints);
+
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(file, run);
+    }
+
+    private void printRow(Endpoint endpoint, long calls, double seconds, long errors, Histogram latencies) {
+        out.printf("%-38s %9d %9.1f %7s %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                endpoint.getLabel(), calls, calls / seconds, errors < 0 ? "" : Long.toString(errors),
+                millis(latencies.getValueAtPercentile(50)),
+                millis(latencies.getValueAtPercentile(90)),
+                millis(latencies.getValueAtPercentile(99)),
+                millis(latencies.getValueAtPercentile(99.9)),
+                millis(latencies.getMaxValue()));
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
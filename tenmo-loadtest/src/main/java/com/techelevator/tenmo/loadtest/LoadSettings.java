@@ -0,0 +1,88 @@
+package com.techelevator.tenmo.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Properties;
+
+/**
+ * The tenmo.load.* settings: defaults from loadtest.properties, overridden by system properties.
+ */
+final class LoadSettings {
+
+    private static final String PREFIX = "tenmo.load.";
+
+    final String baseUrl;
+    final int users;
+    final Duration pace;
+    final Duration rampUp;
+    final Duration duration;
+    final WorkloadMix mix;
+    final double skew;
+    final long maxAmountCents;
+    final String usernamePrefix;
+    final String password;
+    final Duration reportInterval;
+    final String resultFile;
+
+    private LoadSettings(Properties properties) {
+        baseUrl = get(properties, "base-url").replaceAll("/+$", "");
+        users = Integer.parseInt(get(properties, "users"));
+        pace = Duration.ofMillis(Long.parseLong(get(properties, "pace-millis")));
+        rampUp = Duration.ofSeconds(Long.parseLong(get(properties, "ramp-up-seconds")));
+        duration = Duration.ofSeconds(Long.parseLong(get(properties, "duration-seconds")));
+        mix = WorkloadMix.parse(get(properties, "mix"));
+        skew = Double.parseDouble(get(properties, "skew"));
+        maxAmountCents = Long.parseLong(get(properties, "max-amount-cents"));
+        String prefix = get(properties, "username-prefix");
+        usernamePrefix = prefix.isEmpty() ? "load" + Long.toString(System.currentTimeMillis(), 36) + "-" : prefix;
+        password = get(properties, "password");
+        reportInterval = Duration.ofSeconds(Long.parseLong(get(properties, "report-interval-seconds")));
+        resultFile = get(properties, "result-file");
+
+        if (users < 2) {
+            throw new IllegalArgumentException(PREFIX + "users must be at least 2, so transfers have another side");
+        }
+        if (pace.isZero() || pace.isNegative() || maxAmountCents < 1) {
+            throw new IllegalArgumentException(PREFIX + "pace-millis and " + PREFIX + "max-amount-cents must be positive");
+        }
+    }
+
+    static LoadSettings load() {
+        Properties properties = new Properties();
+        try (InputStream in = LoadSettings.class.getResourceAsStream("/loadtest.properties")) {
+            properties.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith(PREFIX)) {
+                properties.setProperty(name, System.getProperty(name));
+            }
+        }
+        return new LoadSettings(properties);
+    }
+
+    /**
+     * Operations per second the users try to sustain once all of them are running.
+     */
+    double offeredRate() {
+        return users * 1000.0 / pace.toMillis();
+    }
+
+    private static String get(Properties properties, String name) {
+        String value = properties.getProperty(PREFIX + name);
+        if (value == null) {
+            throw new IllegalArgumentException(PREFIX + name + " is not set");
+        }
+        return value.trim();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d users against %s, one operation every %d ms each (%.0f/s offered), "
+                        + "%d s ramp-up, %d s total, mix %s, skew %.2f",
+                users, baseUrl, pace.toMillis(), offeredRate(), rampUp.getSeconds(), duration.getSeconds(), mix, skew);
+    }
+}
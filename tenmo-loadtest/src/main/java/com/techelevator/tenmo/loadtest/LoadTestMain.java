@@ -0,0 +1,76 @@
+package com.techelevator.tenmo.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Runs LoadSettings.users simulated users, one thread each, against a running tenmo-server and reports what each
+ * endpoint did. See loadtest.properties for the settings.
+ */
+public class LoadTestMain {
+
+    /** The users mostly sleep between calls, so their threads need little stack. */
+    private static final long USER_STACK_BYTES = 256 * 1024;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        LoadSettings settings = LoadSettings.load();
+        System.out.println(settings);
+        if (!isReachable(settings.baseUrl)) {
+            System.err.println("Nothing is answering at " + settings.baseUrl + "; start tenmo-server first.");
+            System.exit(1);
+        }
+
+        TenmoClient client = new TenmoClient(settings);
+        PopularitySkew popularity = new PopularitySkew(settings.users, settings.skew);
+        AtomicIntegerArray userIds = new AtomicIntegerArray(settings.users);
+        long startNanos = System.nanoTime();
+        long endNanos = startNanos + settings.duration.toNanos();
+
+        List<Thread> users = new ArrayList<>(settings.users);
+        for (int i = 0; i < settings.users; i++) {
+            VirtualUser user = new VirtualUser(i, settings, client, popularity, userIds, startNanos, endNanos);
+            Thread thread = new Thread(null, user, "user-" + i, USER_STACK_BYTES);
+            thread.start();
+            users.add(thread);
+        }
+
+        LoadReport report = new LoadReport(client.getStats(), System.out, startNanos);
+        long intervalMillis = settings.reportInterval.toMillis();
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        reporter.scheduleAtFixedRate(report::printInterval, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+
+        for (Thread user : users) {
+            user.join();
+        }
+        reporter.shutdown();
+        reporter.awaitTermination(1, TimeUnit.MINUTES);
+
+        // Whatever was recorded after the last interval report
+        report.printInterval();
+        double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+        report.printSummary(elapsedSeconds);
+        File resultFile = new File(settings.resultFile);
+        report.writeJson(resultFile, settings, elapsedSeconds);
+        System.out.println("\nResults written to " + resultFile.getPath());
+    }
+
+    private static boolean isReachable(String baseUrl) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + "/").openConnection();
+            connection.setConnectTimeout(5000);
+            connection.getResponseCode();
+            connection.disconnect();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.techelevator.tenmo.loadtest;
+
+/**
+ * What a logged-in user does on each turn. Each name is how it is spelled in tenmo.load.mix.
+ */
+enum Operation {
+    SEND,
+    REQUEST,
+    PENDING,
+    APPROVE,
+    BALANCE,
+    LOGIN,
+}
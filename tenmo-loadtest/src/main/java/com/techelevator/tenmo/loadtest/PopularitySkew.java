@@ -0,0 +1,32 @@
+package com.techelevator.tenmo.loadtest;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Picks a user index with Zipf-distributed popularity: index k is chosen with weight 1 / (k + 1)^exponent.
+ * An exponent of 0 picks uniformly.
+ */
+final class PopularitySkew {
+
+    private final double[] cumulativeWeights;
+
+    PopularitySkew(int users, double exponent) {
+        if (exponent < 0) {
+            throw new IllegalArgumentException("The skew exponent cannot be negative");
+        }
+        cumulativeWeights = new double[users];
+        double total = 0;
+        for (int k = 0; k < users; k++) {
+            total += 1 / Math.pow(k + 1, exponent);
+            cumulativeWeights[k] = total;
+        }
+    }
+
+    int pick(Random random) {
+        double ticket = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+        int index = Arrays.binarySearch(cumulativeWeights, ticket);
+        // Each index owns the tickets from the previous cumulative weight up to, but not including, its own
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+}
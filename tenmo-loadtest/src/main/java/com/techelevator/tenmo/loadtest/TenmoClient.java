@@ -0,0 +1,184 @@
+package com.techelevator.tenmo.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The tenmo-server endpoints as plain HTTP calls. Every call is timed into the EndpointStats of its endpoint,
+ * including calls that fail; the methods then return null (or an empty list) instead of throwing.
+ */
+final class TenmoClient {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient http;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String baseUrl;
+    private final long expectedIntervalMicros;
+    private final Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+
+    TenmoClient(LoadSettings settings) {
+        this.baseUrl = settings.baseUrl;
+        this.expectedIntervalMicros = TimeUnit.NANOSECONDS.toMicros(settings.pace.toNanos());
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint, new EndpointStats(endpoint));
+        }
+    }
+
+    static final class Session {
+        final String token;
+        final int userId;
+
+        Session(String token, int userId) {
+            this.token = token;
+            this.userId = userId;
+        }
+    }
+
+    Collection<EndpointStats> getStats() {
+        return stats.values();
+    }
+
+    boolean register(String username, String password) {
+        ObjectNode body = objectMapper.createObjectNode().put("username", username).put("password", password);
+        return call(Endpoint.REGISTER, post("/register", null, body), 0) != null;
+    }
+
+    /**
+     * paced is true for logins made as one of the user's regular turns rather than once at the start.
+     */
+    Session login(String username, String password, boolean paced) {
+        ObjectNode body = objectMapper.createObjectNode().put("username", username).put("password", password);
+        JsonNode response = call(Endpoint.LOGIN, post("/login", null, body), paced ? expectedIntervalMicros : 0);
+        if (response == null) {
+            return null;
+        }
+        return new Session(response.path("token").asText(), response.path("user").path("id").asInt());
+    }
+
+    Integer send(Session session, int toUserId, long amountCents) {
+        return transfer(Endpoint.SEND, "/transfer/send", session, session.userId, toUserId, amountCents);
+    }
+
+    /**
+     * Asks toUserId for money; the transfer shows up in their pending list.
+     */
+    Integer request(Session session, int toUserId, long amountCents) {
+        return transfer(Endpoint.REQUEST, "/transfer/request", session, session.userId, toUserId, amountCents);
+    }
+
+    /**
+     * Ids of the transfers waiting on the session's user, in the order the server lists them.
+     */
+    List<Integer> pendingTransfers(Session session) {
+        JsonNode response = call(Endpoint.PENDING, get("/transfer/Pending%20Transfers/" + session.userId, session));
+        if (response == null) {
+            return Collections.emptyList();
+        }
+        List<Integer> transferIds = new ArrayList<>(response.size());
+        for (JsonNode transfer : response) {
+            transferIds.add(transfer.path("transferId").asInt());
+        }
+        return transferIds;
+    }
+
+    boolean approve(Session session, int transferId) {
+        HttpRequest request = authorized(baseRequest("/transfer/approve/" + transferId), session)
+                .PUT(HttpRequest.BodyPublishers.noBody())
+                .build();
+        return call(Endpoint.APPROVE, request) != null;
+    }
+
+    BigDecimal balance(Session session) {
+        JsonNode response = call(Endpoint.BALANCE, get("/account/balance/" + session.userId, session));
+        return response == null ? null : response.decimalValue();
+    }
+
+    private Integer transfer(Endpoint endpoint, String path, Session session, int fromUserId, int toUserId,
+                             long amountCents) {
+        ObjectNode body = objectMapper.createObjectNode()
+                .put("fromUserId", fromUserId)
+                .put("toUserId", toUserId)
+                .put("amount", BigDecimal.valueOf(amountCents, 2));
+        JsonNode response = call(endpoint, post(path, session, body));
+        return response == null ? null : response.asInt();
+    }
+
+    private JsonNode call(Endpoint endpoint, HttpRequest request) {
+        return call(endpoint, request, expectedIntervalMicros);
+    }
+
+    /**
+     * Sends the request and records its latency and status. Returns the parsed body of a 2xx response (a
+     * MissingNode if it was empty), otherwise null. Calls made once per user rather than every pace pass an
+     * expected interval of 0, which records them as they are.
+     */
+    private JsonNode call(Endpoint endpoint, HttpRequest request, long expectedIntervalMicros) {
+        long start = System.nanoTime();
+        int status = EndpointStats.NO_RESPONSE;
+        String body = null;
+        try {
+            HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+            status = response.statusCode();
+            body = response.body();
+        } catch (IOException e) {
+            // Counted under NO_RESPONSE
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+        stats.get(endpoint).record(latencyMicros, expectedIntervalMicros, status);
+
+        if (status < 200 || status > 299) {
+            return null;
+        }
+        try {
+            return body == null || body.isEmpty() ? objectMapper.missingNode() : objectMapper.readTree(body);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private HttpRequest get(String path, Session session) {
+        return authorized(baseRequest(path), session).GET().build();
+    }
+
+    private HttpRequest post(String path, Session session, JsonNode body) {
+        try {
+            return authorized(baseRequest(path), session)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private HttpRequest.Builder baseRequest(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(TIMEOUT);
+    }
+
+    private static HttpRequest.Builder authorized(HttpRequest.Builder request, Session session) {
+        return session == null ? request : request.header("Authorization", "Bearer " + session.token);
+    }
+}
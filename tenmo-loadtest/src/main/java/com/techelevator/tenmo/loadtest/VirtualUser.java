@@ -0,0 +1,132 @@
+package com.techelevator.tenmo.loadtest;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * One simulated user: waits for its turn in the ramp-up, registers, logs in, then starts one operation every pace
+ * until the run ends. Transfers go to other users picked by PopularitySkew among those already logged in.
+ */
+final class VirtualUser implements Runnable {
+
+    private static final int COUNTERPARTY_ATTEMPTS = 10;
+
+    private final int index;
+    private final LoadSettings settings;
+    private final TenmoClient client;
+    private final PopularitySkew popularity;
+    /** Server user id of each simulated user, 0 until it has logged in. */
+    private final AtomicIntegerArray userIds;
+    private final long startNanos;
+    private final long endNanos;
+
+    VirtualUser(int index, LoadSettings settings, TenmoClient client, PopularitySkew popularity,
+                AtomicIntegerArray userIds, long startNanos, long endNanos) {
+        this.index = index;
+        this.settings = settings;
+        this.client = client;
+        this.popularity = popularity;
+        this.userIds = userIds;
+        this.startNanos = startNanos;
+        this.endNanos = endNanos;
+    }
+
+    @Override
+    public void run() {
+        long rampUpNanos = settings.rampUp.toNanos();
+        if (!sleepUntil(startNanos + rampUpNanos / settings.users * index)) {
+            return;
+        }
+        String username = settings.usernamePrefix + index;
+        // A failed registration is already counted; the user may exist from an earlier run with the same prefix
+        client.register(username, settings.password);
+        Random random = ThreadLocalRandom.current();
+        long paceNanos = settings.pace.toNanos();
+        // A server shedding logins answers 503; try again a pace later, as a client would
+        TenmoClient.Session session = client.login(username, settings.password, false);
+        while (session == null) {
+            if (System.nanoTime() + paceNanos >= endNanos || !sleepUntil(System.nanoTime() + paceNanos)) {
+                return;
+            }
+            session = client.login(username, settings.password, false);
+        }
+        userIds.set(index, session.userId);
+
+        // Spread the users' turns over the pace instead of starting them in step
+        long next = System.nanoTime() + (long) (random.nextDouble() * paceNanos);
+        while (sleepUntil(next) && next < endNanos) {
+            session = perform(settings.mix.pick(random), session, username, random);
+            next += paceNanos;
+        }
+    }
+
+    /**
+     * Returns the session to use from now on, which only a successful LOGIN changes.
+     */
+    private TenmoClient.Session perform(Operation operation, TenmoClient.Session session, String username,
+                                        Random random) {
+        switch (operation) {
+            case SEND:
+            case REQUEST:
+                int otherUserId = counterparty(random);
+                if (otherUserId == 0) {
+                    // Nobody else has logged in yet
+                    client.balance(session);
+                } else if (operation == Operation.SEND) {
+                    client.send(session, otherUserId, amountCents(random));
+                } else {
+                    client.request(session, otherUserId, amountCents(random));
+                }
+                break;
+            case PENDING:
+                client.pendingTransfers(session);
+                break;
+            case APPROVE:
+                List<Integer> pending = client.pendingTransfers(session);
+                if (!pending.isEmpty()) {
+                    client.approve(session, pending.get(0));
+                }
+                break;
+            case BALANCE:
+                client.balance(session);
+                break;
+            case LOGIN:
+                TenmoClient.Session newSession = client.login(username, settings.password, true);
+                return newSession == null ? session : newSession;
+        }
+        return session;
+    }
+
+    private int counterparty(Random random) {
+        for (int attempt = 0; attempt < COUNTERPARTY_ATTEMPTS; attempt++) {
+            int other = popularity.pick(random);
+            if (other != index && userIds.get(other) != 0) {
+                return userIds.get(other);
+            }
+        }
+        return 0;
+    }
+
+    private long amountCents(Random random) {
+        return 1 + (long) (random.nextDouble() * settings.maxAmountCents);
+    }
+
+    /**
+     * False if the thread was interrupted while waiting.
+     */
+    private static boolean sleepUntil(long deadlineNanos) {
+        long remaining = deadlineNanos - System.nanoTime();
+        try {
+            if (remaining > 0) {
+                TimeUnit.NANOSECONDS.sleep(remaining);
+            }
+            return !Thread.currentThread().isInterrupted();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
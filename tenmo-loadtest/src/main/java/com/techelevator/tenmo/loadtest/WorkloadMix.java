@@ -0,0 +1,72 @@
+package com.techelevator.tenmo.loadtest;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Weighted choice of the next Operation, parsed from a list like "send:25,request:25,balance:50".
+ * Operations that are not listed are never picked.
+ */
+final class WorkloadMix {
+
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+    private final Map<Operation, Integer> weights;
+
+    private WorkloadMix(Map<Operation, Integer> weights) {
+        this.weights = weights;
+        this.operations = weights.keySet().toArray(new Operation[0]);
+        this.cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += weights.get(operations[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    static WorkloadMix parse(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected operation:weight but got '" + entry.trim() + "'");
+            }
+            Operation operation = Operation.valueOf(parts[0].trim().toUpperCase(Locale.ROOT));
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Weight of " + operation + " is negative");
+            }
+            if (weight > 0) {
+                weights.merge(operation, weight, Integer::sum);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("The mix has no operation with a positive weight");
+        }
+        return new WorkloadMix(weights);
+    }
+
+    Operation pick(Random random) {
+        int ticket = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (ticket < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<Operation, Integer> weight : weights.entrySet()) {
+            if (text.length() > 0) {
+                text.append(',');
+            }
+            text.append(weight.getKey().name().toLowerCase(Locale.ROOT)).append(':').append(weight.getValue());
+        }
+        return text.toString();
+    }
+}
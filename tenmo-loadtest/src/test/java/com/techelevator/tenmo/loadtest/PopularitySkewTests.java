@@ -0,0 +1,36 @@
+package com.techelevator.tenmo.loadtest;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class PopularitySkewTests {
+
+    @Test
+    public void zero_skew_picks_every_user_equally() {
+        int[] picks = pick(new PopularitySkew(4, 0), 40_000);
+        for (int count : picks) {
+            Assert.assertEquals(10_000, count, 500);
+        }
+    }
+
+    @Test
+    public void with_skew_the_first_users_are_the_popular_ones() {
+        // Weights 1, 1/2, 1/3, 1/4 out of 25/12
+        int[] picks = pick(new PopularitySkew(4, 1), 25_000);
+        Assert.assertEquals(12_000, picks[0], 500);
+        Assert.assertEquals(6_000, picks[1], 500);
+        Assert.assertEquals(4_000, picks[2], 500);
+        Assert.assertEquals(3_000, picks[3], 500);
+    }
+
+    private static int[] pick(PopularitySkew sut, int times) {
+        int[] picks = new int[4];
+        Random random = new Random(42);
+        for (int i = 0; i < times; i++) {
+            picks[sut.pick(random)]++;
+        }
+        return picks;
+    }
+}
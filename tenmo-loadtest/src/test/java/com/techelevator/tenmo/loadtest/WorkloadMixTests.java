@@ -0,0 +1,36 @@
+package com.techelevator.tenmo.loadtest;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+public class WorkloadMixTests {
+
+    @Test
+    public void operations_are_picked_in_proportion_to_their_weight() {
+        WorkloadMix sut = WorkloadMix.parse(" send:30, balance:10 ,approve:0");
+        Map<Operation, Integer> picks = new EnumMap<>(Operation.class);
+        Random random = new Random(42);
+        for (int i = 0; i < 40_000; i++) {
+            picks.merge(sut.pick(random), 1, Integer::sum);
+        }
+
+        Assert.assertEquals(2, picks.size());
+        Assert.assertEquals(30_000, picks.get(Operation.SEND), 500);
+        Assert.assertEquals(10_000, picks.get(Operation.BALANCE), 500);
+        Assert.assertEquals("send:30,balance:10", sut.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknown_operations_are_rejected() {
+        WorkloadMix.parse("send:30,withdraw:10");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void a_mix_without_weight_is_rejected() {
+        WorkloadMix.parse("send:0");
+    }
+}
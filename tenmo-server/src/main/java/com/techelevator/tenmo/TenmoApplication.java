@@ -2,12 +2,17 @@ package com.techelevator.tenmo;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
 
 @SpringBootApplication
 public class TenmoApplication {
 
     public static void main(String[] args) {
-        SpringApplication.run(TenmoApplication.class, args);
+        ConfigurableApplicationContext context = SpringApplication.run(TenmoApplication.class, args);
+        // The balance rebuild tool runs once at startup and reports drift through the exit code
+        if (context.getEnvironment().getProperty("tenmo.balance.rebuild", Boolean.class, false)) {
+            System.exit(SpringApplication.exit(context));
+        }
     }
 
 }
@@ -1,6 +1,9 @@
 package com.techelevator.tenmo.controller;
 
-import com.techelevator.tenmo.dao.AccountDao;
+import com.techelevator.tenmo.dao.AccountCache;
+import com.techelevator.tenmo.model.AccountCacheStatsDto;
+import com.techelevator.tenmo.model.Money;
+import com.techelevator.tenmo.service.BalanceService;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -10,17 +13,27 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/account")
 public class AccountController {
 
-    private final AccountDao accountDao;
+    private final BalanceService balanceService;
+    private final AccountCache accountCache;
 
-    public AccountController(AccountDao accountDao) {
-        this.accountDao = accountDao;
+    public AccountController(BalanceService balanceService, AccountCache accountCache) {
+        this.balanceService = balanceService;
+        this.accountCache = accountCache;
     }
 
     @GetMapping("/balance/{userId}")
-    public double getAccountBalance(@PathVariable Integer userId) {
-        return accountDao.findByUserId(userId).getBalance();
+    public Money getAccountBalance(@PathVariable Integer userId) {
+        return balanceService.getBalance(userId);
 
     }
 
+    @GetMapping("/cache/stats")
+    public AccountCacheStatsDto accountCacheStats() {
+        long hits = accountCache.getHits();
+        long misses = accountCache.getMisses();
+        return new AccountCacheStatsDto(hits, misses, hits + misses == 0 ? 0 : (double) hits / (hits + misses),
+                accountCache.getEvictions(), accountCache.getInvalidations(), accountCache.getSize());
+    }
+
 
 }
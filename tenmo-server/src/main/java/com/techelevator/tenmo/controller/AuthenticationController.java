@@ -3,12 +3,13 @@ package com.techelevator.tenmo.controller;
 import javax.validation.Valid;
 
 import com.techelevator.tenmo.exception.DaoException;
+import com.techelevator.tenmo.model.BulkRegistrationDto;
 import com.techelevator.tenmo.model.LoginResponseDto;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
@@ -19,9 +20,22 @@ import com.techelevator.tenmo.dao.UserDao;
 import com.techelevator.tenmo.model.LoginDto;
 import com.techelevator.tenmo.model.RegisterUserDto;
 import com.techelevator.tenmo.model.User;
+import com.techelevator.tenmo.security.PasswordVerifier;
+import com.techelevator.tenmo.security.UserModelDetailsService;
 import com.techelevator.tenmo.security.jwt.TokenProvider;
+import com.techelevator.tenmo.service.UserDirectoryCache;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
 /**
  * Controller to authenticate users.
  */
@@ -29,25 +43,30 @@ import org.springframework.web.server.ResponseStatusException;
 public class AuthenticationController {
 
     private final TokenProvider tokenProvider;
-    private final AuthenticationManagerBuilder authenticationManagerBuilder;
+    private final PasswordVerifier passwordVerifier;
     private final UserDao userDao;
+    private final UserDirectoryCache directoryCache;
+    private final int maxBulkUsers;
 
-    public AuthenticationController(TokenProvider tokenProvider, AuthenticationManagerBuilder authenticationManagerBuilder, UserDao userDao) {
+    public AuthenticationController(TokenProvider tokenProvider, PasswordVerifier passwordVerifier, UserDao userDao,
+                                    UserDirectoryCache directoryCache,
+                                    @Value("${tenmo.register.bulk.max-users:10000}") int maxBulkUsers) {
         this.tokenProvider = tokenProvider;
-        this.authenticationManagerBuilder = authenticationManagerBuilder;
+        this.passwordVerifier = passwordVerifier;
         this.userDao = userDao;
+        this.directoryCache = directoryCache;
+        this.maxBulkUsers = maxBulkUsers;
     }
 
+    /**
+     * Looks the user up once and checks the password on the PasswordVerifier's pool. The request thread is
+     * released while BCrypt runs, and the user already loaded goes into the response.
+     */
     @RequestMapping(path = "/login", method = RequestMethod.POST)
-    public LoginResponseDto login(@Valid @RequestBody LoginDto loginDto) {
-
-        UsernamePasswordAuthenticationToken authenticationToken =
-                new UsernamePasswordAuthenticationToken(loginDto.getUsername(), loginDto.getPassword());
-
-        Authentication authentication = authenticationManagerBuilder.getObject().authenticate(authenticationToken);
-        SecurityContextHolder.getContext().setAuthentication(authentication);
-        String jwt = tokenProvider.createToken(authentication, false);
-
+    public CompletableFuture<LoginResponseDto> login(@Valid @RequestBody LoginDto loginDto) {
+        if (loginDto.getUsername() == null || loginDto.getPassword() == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Username or password is incorrect.");
+        }
         User user;
         try {
             user = userDao.getUserByUsername(loginDto.getUsername());
@@ -55,7 +74,21 @@ public class AuthenticationController {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Username or password is incorrect.");
         }
 
-        return new LoginResponseDto(jwt, user);
+        CompletableFuture<Boolean> matches;
+        try {
+            matches = passwordVerifier.matches(loginDto.getPassword(), user == null ? null : user.getPassword());
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many logins right now, please try again.");
+        }
+
+        return matches.thenApply(match -> {
+            if (!match || !user.isActivated()) {
+                throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Username or password is incorrect.");
+            }
+            Authentication authentication = new UsernamePasswordAuthenticationToken(user.getUsername(), null,
+                    UserModelDetailsService.grantedAuthorities(user));
+            return new LoginResponseDto(tokenProvider.createToken(authentication, false), user);
+        });
     }
 
     @ResponseStatus(HttpStatus.CREATED)
@@ -65,7 +98,10 @@ public class AuthenticationController {
             if (userDao.getUserByUsername(newUser.getUsername()) != null) {
                 throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "User already exists.");
             } else {
-                userDao.createUser(newUser);
+                User created = userDao.createUser(newUser);
+                if (created != null) {
+                    directoryCache.invalidateFrom(created.getId());
+                }
             }
         }
         catch (DaoException e) {
@@ -73,5 +109,46 @@ public class AuthenticationController {
         }
     }
 
-}
+    /**
+     * Registers every user in a CSV body of username,password lines, with an optional username,password header.
+     * The password is everything after the first comma, so it may contain commas itself. Only admins may call it,
+     * with at most tenmo.register.bulk.max-users users per request; the passwords are hashed on the
+     * PasswordVerifier's pool alongside logins.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @ResponseStatus(HttpStatus.CREATED)
+    @RequestMapping(path = "/register/bulk", method = RequestMethod.POST, consumes = "text/csv")
+    public BulkRegistrationDto registerBulk(InputStream csv) throws IOException {
+        List<RegisterUserDto> users = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8));
+        int lineNumber = 0;
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            lineNumber++;
+            if (line.trim().isEmpty() || (lineNumber == 1 && line.trim().equalsIgnoreCase("username,password"))) {
+                continue;
+            }
+            if (users.size() == maxBulkUsers) {
+                throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "At most " + maxBulkUsers + " users per request.");
+            }
+            int comma = line.indexOf(',');
+            if (comma < 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Line " + lineNumber + " is not username,password.");
+            }
+            RegisterUserDto user = new RegisterUserDto();
+            user.setUsername(line.substring(0, comma));
+            user.setPassword(line.substring(comma + 1));
+            users.add(user);
+        }
+        try {
+            BulkRegistrationDto result = userDao.createUsers(users);
+            // The new ids are not returned, so every page goes; imports are rare next to registrations
+            directoryCache.invalidate();
+            return result;
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Password hashing is saturated, retry the bulk registration later.");
+        } catch (DaoException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "User registration failed.");
+        }
+    }
 
+}
@@ -0,0 +1,42 @@
+package com.techelevator.tenmo.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursors: the last id of a page behind a prefix naming the listing, base64url encoded.
+ */
+final class IdCursor {
+
+    private final String prefix;
+
+    IdCursor(String prefix) {
+        this.prefix = prefix;
+    }
+
+    String encode(int id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((prefix + id).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * The id in the cursor, or null for no cursor. A cursor from another listing or not made here is a 400.
+     */
+    Integer decode(String cursor) {
+        if (!StringUtils.hasText(cursor)) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            if (decoded.startsWith(prefix)) {
+                return Integer.valueOf(decoded.substring(prefix.length()));
+            }
+        } catch (IllegalArgumentException e) {
+            // not base64, or no number after the prefix
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+    }
+}
@@ -1,55 +1,204 @@
 package com.techelevator.tenmo.controller;
 
 
-import com.techelevator.tenmo.dao.AccountDao;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.techelevator.tenmo.dao.AccountIdResolver;
 import com.techelevator.tenmo.dao.TransferDao;
+import com.techelevator.tenmo.enums.TransferDirectionEnum;
 import com.techelevator.tenmo.enums.TransferStatusEnum;
 import com.techelevator.tenmo.enums.TransferTypeEnum;
-import com.techelevator.tenmo.model.Account;
+import com.techelevator.tenmo.model.BatchTransferDto;
 import com.techelevator.tenmo.model.BucksDto;
+import com.techelevator.tenmo.model.IdempotencyStatsDto;
 import com.techelevator.tenmo.model.TransferDto;
+import com.techelevator.tenmo.model.TransferPageDto;
+import com.techelevator.tenmo.service.IdempotencyStore;
 import com.techelevator.tenmo.service.TransferService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/transfer")
 public class TransferController {
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final IdCursor CURSOR = new IdCursor("t:");
+    private static final String NDJSON = "application/x-ndjson";
+    // The export cursor's fetch size, so each fetch from Postgres goes out to the client in one flush
+    private static final int EXPORT_FLUSH_ROWS = 500;
+
     private final TransferDao transferDao;
-    private final AccountDao accountDao;
+    private final AccountIdResolver accountIds;
     private final TransferService transferService;
+    private final IdempotencyStore idempotencyStore;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    private final int maxBatchSize;
+    private final ObjectWriter exportWriter;
 
-    public TransferController(TransferDao transferDao, AccountDao accountDao,TransferService transferService) {
+    public TransferController(TransferDao transferDao, AccountIdResolver accountIds, TransferService transferService, IdempotencyStore idempotencyStore,
+                              ObjectMapper objectMapper,
+                              @Value("${tenmo.history.default-page-size:50}") int defaultPageSize,
+                              @Value("${tenmo.history.max-page-size:200}") int maxPageSize,
+                              @Value("${tenmo.transfer.batch.max-size:1000}") int maxBatchSize) {
         this.transferDao = transferDao;
-        this.accountDao = accountDao;
+        this.accountIds = accountIds;
         this.transferService = transferService;
-
+        this.idempotencyStore = idempotencyStore;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.maxBatchSize = maxBatchSize;
+        // ObjectMapper flushes after every value by default, which would be a socket write per exported row
+        this.exportWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
 
     @PostMapping("/request")
-    Integer requestBucks(@RequestBody BucksDto bucksDto) {
-        return transferService.addTransfer(bucksDto, TransferTypeEnum.REQUEST.getTypeId());
+    Integer requestBucks(@RequestBody BucksDto bucksDto,
+                         @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        return idempotent("request", bucksDto, idempotencyKey,
+                () -> transferService.addTransfer(bucksDto, TransferTypeEnum.REQUEST.getTypeId()));
     }
 
     @PostMapping("/send")
-    Integer sendBucks(@RequestBody BucksDto bucksDto){
-        Account fromAccount = accountDao.findByUserId(bucksDto.getFromUserId());
-        Account toAccount = accountDao.findByUserId(bucksDto.getToUserId());
-        return transferDao.addTransfer(TransferTypeEnum.SEND.getTypeId(), TransferStatusEnum.PENDING.getStatusId(), fromAccount.getAccountId(), toAccount.getAccountId(), bucksDto.getAmount());
+    Integer sendBucks(@RequestBody BucksDto bucksDto,
+                      @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey){
+        return idempotent("send", bucksDto, idempotencyKey,
+                () -> transferService.addTransfer(bucksDto, TransferTypeEnum.SEND.getTypeId()));
+    }
+
+    @GetMapping("/idempotency/stats")
+    IdempotencyStatsDto idempotencyStats() {
+        return new IdempotencyStatsDto(idempotencyStore.getHits(), idempotencyStore.getMisses(),
+                idempotencyStore.getEvictions(), idempotencyStore.getSize());
+    }
+
+    private Integer idempotent(String operation, BucksDto bucksDto, String idempotencyKey, Supplier<Integer> action) {
+        if (!StringUtils.hasText(idempotencyKey)) {
+            return action.get();
+        }
+        // Scope keys to the endpoint and the sending user so two clients cannot collide on the same key
+        String scopedKey = operation + ":" + bucksDto.getFromUserId() + ":" + idempotencyKey;
+        try {
+            return idempotencyStore.execute(scopedKey, action);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+
+    @PostMapping("/batch")
+    List<BatchTransferDto> sendBucksBatch(@RequestBody List<BucksDto> bucksDtos) {
+        if (bucksDtos.size() > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "At most " + maxBatchSize + " transfers per request.");
+        }
+        return transferService.addTransfers(bucksDtos, TransferTypeEnum.SEND.getTypeId());
     }
 
     @GetMapping("transfer history/{userId}")
-    List<TransferDto> list(@PathVariable Integer userId) {
-        Account account = accountDao.findByUserId(userId);
-        List<TransferDto> transferDtoList = transferDao.listByAccountId(account.getAccountId());
+    @Transactional(readOnly = true)
+    public List<TransferDto> list(@PathVariable Integer userId) {
+        List<TransferDto> transferDtoList = transferDao.listByAccountId(accountIdOf(userId));
         return transferDtoList;
     }
+    /**
+     * Pages through an account's transfers newest first. Pass the previous page's nextCursor to continue.
+     * direction is ALL, FROM or TO; status is a transfer_status_id.
+     */
+    @GetMapping("/history/{userId}")
+    TransferPageDto history(@PathVariable Integer userId,
+                            @RequestParam(required = false) Integer limit,
+                            @RequestParam(required = false) String cursor,
+                            @RequestParam(defaultValue = "ALL") String direction,
+                            @RequestParam(required = false) Integer status) {
+        Integer accountId = accountIdOf(userId);
+        int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+        // Ask for one extra row to learn whether another page follows
+        List<TransferDto> transfers = transferDao.listPageByAccountId(accountId, parseDirection(direction),
+                status, CURSOR.decode(cursor), pageSize + 1);
+        String nextCursor = null;
+        if (transfers.size() > pageSize) {
+            transfers = transfers.subList(0, pageSize);
+            nextCursor = CURSOR.encode(transfers.get(pageSize - 1).getTransferId());
+        }
+        return new TransferPageDto(transfers, nextCursor);
+    }
+
+    private Integer accountIdOf(Integer userId) {
+        Integer accountId = accountIds.resolve(userId);
+        if (accountId == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Account not found");
+        }
+        return accountId;
+    }
+
+    private TransferDirectionEnum parseDirection(String direction) {
+        try {
+            return TransferDirectionEnum.valueOf(direction.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "direction must be ALL, FROM or TO");
+        }
+    }
+
+    /**
+     * Writes the account's whole history as NDJSON, one transfer per line, while the rows are still being read,
+     * so neither the server nor the client has to hold the full list.
+     */
+    @GetMapping(value = "/export/{userId}", produces = NDJSON)
+    ResponseEntity<StreamingResponseBody> export(@PathVariable Integer userId) {
+        Integer accountId = accountIdOf(userId);
+        StreamingResponseBody body = outputStream -> {
+            JsonGenerator generator = exportWriter.getFactory().createGenerator(outputStream);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            AtomicInteger rows = new AtomicInteger();
+            try {
+                transferDao.streamByAccountId(accountId,
+                        transfer -> writeLine(generator, transfer, rows.incrementAndGet() % EXPORT_FLUSH_ROWS == 0));
+            } catch (UncheckedIOException e) {
+                // Usually the client went away; the cursor is already closed by the time we get here
+                throw e.getCause();
+            }
+            generator.flush();
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"transfers-" + userId + ".ndjson\"")
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
+    }
+
+    private void writeLine(JsonGenerator generator, TransferDto transfer, boolean flush) {
+        try {
+            exportWriter.writeValue(generator, transfer);
+            generator.writeRaw('\n');
+            if (flush) {
+                generator.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     @GetMapping("/Pending Transfers/{userId}")
-    List<TransferDto> listPending(@PathVariable Integer userId) {
-        Account account = accountDao.findByUserId(userId);
-        List<TransferDto> transferDtoList = transferDao.listByAccountIdAndStatus(account.getAccountId(),TransferStatusEnum.PENDING.getStatusId());
+    @Transactional(readOnly = true)
+    public List<TransferDto> listPending(@PathVariable Integer userId) {
+        List<TransferDto> transferDtoList = transferDao.listByAccountIdAndStatus(accountIdOf(userId),TransferStatusEnum.PENDING.getStatusId());
         return transferDtoList;
     }
 
@@ -63,4 +212,14 @@ public class TransferController {
         transferService.rejectTransfer(transferId );
     }
 
+    @PutMapping("/approve")
+    public List<BatchTransferDto> approveTransfers(@RequestBody List<Integer> transferIds) {
+        return transferService.approveTransfers(transferIds);
+    }
+
+    @PostMapping("/reject")
+    public List<BatchTransferDto> rejectTransfers(@RequestBody List<Integer> transferIds) {
+        return transferService.rejectTransfers(transferIds);
+    }
+
 }
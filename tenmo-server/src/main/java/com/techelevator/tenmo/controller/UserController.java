@@ -1,27 +1,101 @@
 package com.techelevator.tenmo.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.techelevator.tenmo.dao.UserDao;
-import com.techelevator.tenmo.model.User;
+import com.techelevator.tenmo.dao.UsernameIndex;
+import com.techelevator.tenmo.model.UserDirectoryEntryDto;
+import com.techelevator.tenmo.model.UserDirectoryPageDto;
+import com.techelevator.tenmo.service.UserDirectoryCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
+import java.util.Locale;
 
 
 @RestController
 @RequestMapping("/user")
 public class UserController {
+    private static final IdCursor CURSOR = new IdCursor("u:");
+
     private final UserDao userDao;
+    private final UserDirectoryCache directoryCache;
+    private final UsernameIndex usernameIndex;
+    private final ObjectMapper objectMapper;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    private final int maxSearchResults;
 
-    public UserController(UserDao userDao) {
+    public UserController(UserDao userDao, UserDirectoryCache directoryCache, UsernameIndex usernameIndex,
+                          ObjectMapper objectMapper,
+                          @Value("${tenmo.directory.default-page-size:50}") int defaultPageSize,
+                          @Value("${tenmo.directory.max-page-size:200}") int maxPageSize,
+                          @Value("${tenmo.user-search.max-results:50}") int maxSearchResults) {
         this.userDao = userDao;
+        this.directoryCache = directoryCache;
+        this.usernameIndex = usernameIndex;
+        this.objectMapper = objectMapper;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.maxSearchResults = maxSearchResults;
+    }
+
+    /**
+     * Pages through users in id order, with only their id and username. Pass the previous page's nextCursor to
+     * continue. Pages are served from UserDirectoryCache as ready-made JSON.
+     */
+    @GetMapping("/directory")
+    @Transactional(readOnly = true)
+    public ResponseEntity<byte[]> directory(@RequestParam(required = false) Integer limit,
+                                            @RequestParam(required = false) String cursor) {
+        int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+        Integer afterUserId = CURSOR.decode(cursor);
+        byte[] page = directoryCache.get(afterUserId, pageSize, () -> loadPage(afterUserId, pageSize));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(page);
     }
 
-    @GetMapping("/listAll")
-    public List<User> listAll() {
-        return userDao.getUsers();
+    /**
+     * Users whose username starts with prefix, in username order, from UsernameIndex without touching the database.
+     */
+    @GetMapping("/search")
+    public List<UserDirectoryEntryDto> search(@RequestParam String prefix,
+                                              @RequestParam(required = false) Integer limit) {
+        // Usernames are stored the way registration normalises them
+        String normalized = prefix.trim().toLowerCase(Locale.ROOT);
+        if (normalized.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "prefix must not be blank");
+        }
+        int results = limit == null ? maxSearchResults : Math.max(1, Math.min(limit, maxSearchResults));
+        return usernameIndex.search(normalized, results);
+    }
+
+    private UserDirectoryCache.Page loadPage(Integer afterUserId, int pageSize) {
+        // Ask for one extra row to learn whether another page follows
+        List<UserDirectoryEntryDto> users = userDao.listDirectoryPage(afterUserId, pageSize + 1);
+        Integer nextAfterUserId = null;
+        if (users.size() > pageSize) {
+            users = users.subList(0, pageSize);
+            nextAfterUserId = users.get(pageSize - 1).getId();
+        }
+        String nextCursor = nextAfterUserId == null ? null : CURSOR.encode(nextAfterUserId);
+        return new UserDirectoryCache.Page(serialize(new UserDirectoryPageDto(users, nextCursor)), nextAfterUserId);
+    }
 
+    private byte[] serialize(UserDirectoryPageDto page) {
+        try {
+            return objectMapper.writeValueAsBytes(page);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
 }
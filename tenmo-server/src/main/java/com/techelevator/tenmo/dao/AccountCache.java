@@ -0,0 +1,258 @@
+package com.techelevator.tenmo.dao;
+
+import com.techelevator.tenmo.model.Account;
+import com.techelevator.tenmo.model.Money;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Accounts by account_id, kept in memory for CachingAccountDao.
+ */
+@Component
+public class AccountCache {
+
+    private static final int EPOCH_STRIPES = 4096;
+
+    private final ConcurrentHashMap<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLongArray epochs = new AtomicLongArray(EPOCH_STRIPES);
+    private final int maxEntries;
+    private final boolean replicaReads;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public AccountCache(int maxEntries) {
+        this(maxEntries, "");
+    }
+
+    @Autowired
+    public AccountCache(@Value("${tenmo.account-cache.max-entries:100000}") int maxEntries,
+                        @Value("${tenmo.datasource.replica.url:}") String replicaUrl) {
+        this.maxEntries = maxEntries;
+        this.replicaReads = StringUtils.hasText(replicaUrl);
+    }
+
+    /**
+     * A copy of the cached account, or null on a miss or if the current transaction has written the account.
+     */
+    public Account find(int accountId) {
+        Entry entry = writtenInTransaction(accountId) ? null : entries.get(accountId);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.toAccount();
+    }
+
+    /**
+     * Call before reading the account from the database and pass the result to install.
+     */
+    public long snapshot(int accountId) {
+        return epochs.get(stripe(accountId));
+    }
+
+    /**
+     * Caches an account read from the database, unless it was written since the snapshot. Reads inside a read-write
+     * transaction are never installed, because their snapshot may be older than what other sessions committed, and
+     * neither are read-only transactions once they may be served by a lagging replica.
+     */
+    public void install(Account account, long epoch) {
+        if (maxEntries <= 0 || (TransactionSynchronizationManager.isActualTransactionActive()
+                && (replicaReads || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()))) {
+            return;
+        }
+        install(account.getAccountId(), account.getUserId(), account.getBalance(), epoch);
+    }
+
+    /**
+     * Call before a balance update. Drops the cached entry and returns the epoch to pass to finishWrite.
+     */
+    public long beginWrite(int accountId) {
+        return evict(accountId);
+    }
+
+    /**
+     * Writes the new balance through once it is committed, provided no other write to the account overlapped
+     * this one. Otherwise the account is simply dropped and the next read reloads it.
+     */
+    public void finishWrite(int accountId, Integer userId, Money balance, long epoch) {
+        PendingWrites pending = pendingWrites();
+        if (pending != null) {
+            pending.write(accountId, userId, balance, epoch);
+        } else if (userId == null || maxEntries <= 0 || !install(accountId, userId, balance, epoch)) {
+            evict(accountId);
+        }
+    }
+
+    /**
+     * Drops the accounts after a change whose new balances are not known here, such as an approval. Inside a
+     * transaction they are dropped again when it completes, so nothing read in between survives.
+     */
+    public void invalidate(Collection<Integer> accountIds) {
+        PendingWrites pending = pendingWrites();
+        for (Integer accountId : accountIds) {
+            evict(accountId);
+            if (pending != null) {
+                pending.write(accountId, null, null, 0);
+            }
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    public int getSize() {
+        return entries.size();
+    }
+
+    private boolean install(int accountId, int userId, Money balance, long epoch) {
+        int stripe = stripe(accountId);
+        Entry entry = new Entry(accountId, userId, balance);
+        boolean[] installed = new boolean[1];
+        entries.compute(accountId, (key, current) -> {
+            if (epochs.get(stripe) != epoch) {
+                return current;
+            }
+            installed[0] = true;
+            return entry;
+        });
+        if (installed[0]) {
+            insertionOrder.add(entry);
+            if (queued.incrementAndGet() > maxEntries) {
+                evictOldest();
+            }
+        }
+        return installed[0];
+    }
+
+    private long evict(int accountId) {
+        int stripe = stripe(accountId);
+        long[] epoch = new long[1];
+        entries.compute(accountId, (key, current) -> {
+            epoch[0] = epochs.incrementAndGet(stripe);
+            return null;
+        });
+        invalidations.increment();
+        return epoch[0];
+    }
+
+    // The queue also holds entries that were since invalidated or replaced; those are skipped, not counted
+    private void evictOldest() {
+        Entry oldest = insertionOrder.poll();
+        if (oldest == null) {
+            return;
+        }
+        queued.decrementAndGet();
+        if (entries.remove(oldest.accountId, oldest)) {
+            evictions.increment();
+        }
+    }
+
+    private boolean writtenInTransaction(int accountId) {
+        PendingWrites pending = (PendingWrites) TransactionSynchronizationManager.getResource(this);
+        return pending != null && pending.writes.containsKey(accountId);
+    }
+
+    private PendingWrites pendingWrites() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        PendingWrites pending = (PendingWrites) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingWrites();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        return pending;
+    }
+
+    private static int stripe(int accountId) {
+        int h = accountId * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (EPOCH_STRIPES - 1);
+    }
+
+    private static final class Entry {
+        private final int accountId;
+        private final int userId;
+        private final Money balance;
+
+        Entry(int accountId, int userId, Money balance) {
+            this.accountId = accountId;
+            this.userId = userId;
+            this.balance = balance;
+        }
+
+        Account toAccount() {
+            return new Account(accountId, userId, balance);
+        }
+    }
+
+    /**
+     * The accounts one transaction has written, with the balance to install on commit where it is known.
+     */
+    private final class PendingWrites implements TransactionSynchronization {
+        private final Map<Integer, Write> writes = new HashMap<>();
+
+        // The latest change to an account decides: an invalidation also bumps the epoch of an earlier write
+        void write(int accountId, Integer userId, Money balance, long epoch) {
+            writes.put(accountId, new Write(userId, balance, epoch));
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(AccountCache.this);
+            for (Map.Entry<Integer, Write> write : writes.entrySet()) {
+                int accountId = write.getKey();
+                Write value = write.getValue();
+                boolean installed = status == STATUS_COMMITTED && value.userId != null && maxEntries > 0
+                        && install(accountId, value.userId, value.balance, value.epoch);
+                if (!installed) {
+                    evict(accountId);
+                }
+            }
+        }
+    }
+
+    private static final class Write {
+        private final Integer userId;
+        private final Money balance;
+        private final long epoch;
+
+        Write(Integer userId, Money balance, long epoch) {
+            this.userId = userId;
+            this.balance = balance;
+            this.epoch = epoch;
+        }
+    }
+}
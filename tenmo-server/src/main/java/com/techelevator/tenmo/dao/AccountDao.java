@@ -1,11 +1,26 @@
 package com.techelevator.tenmo.dao;
 
 import com.techelevator.tenmo.model.Account;
+import com.techelevator.tenmo.model.Money;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 public interface AccountDao {
 
     Account findByUserId(Integer userId);
     Account findByAccountId(Integer accountId);
 
-    void updateBalanceByAccountId(Integer accountId, Double amount);
+    void updateBalanceByAccountId(Integer accountId, Money amount);
+
+    /**
+     * Locks the given accounts FOR UPDATE in ascending account_id order, so concurrent callers cannot deadlock.
+     */
+    List<Account> lockAccounts(Collection<Integer> accountIds);
+
+    /**
+     * Adds each delta to its account's balance in a single statement.
+     */
+    void addToBalances(Map<Integer, Money> deltasByAccountId);
 }
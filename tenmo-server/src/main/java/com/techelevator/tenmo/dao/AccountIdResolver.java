@@ -0,0 +1,158 @@
+package com.techelevator.tenmo.dao;
+
+import com.techelevator.tenmo.exception.DaoException;
+import org.springframework.dao.support.DataAccessUtils;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+/**
+ * Translates user ids to account ids in memory, loaded at startup and appended to on registration.
+ */
+@Component
+public class AccountIdResolver {
+
+    private static final int LOAD_FETCH_SIZE = 10_000;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Table table = new Table(INITIAL_CAPACITY);
+
+    public AccountIdResolver(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Reads every account in one query through a forward-only cursor, into a table that is published when the
+     * cursor is exhausted. Entries appended in the meantime are carried over.
+     */
+    @PostConstruct
+    public void load() {
+        String sql = "SELECT user_id, account_id FROM account";
+        Table loaded;
+        try {
+            loaded = jdbcTemplate.execute((ConnectionCallback<Table>) connection -> {
+                // Outside a transaction the driver would buffer the whole table before returning the first row
+                boolean autoCommit = connection.getAutoCommit();
+                if (autoCommit) {
+                    connection.setAutoCommit(false);
+                }
+                try (PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    statement.setFetchSize(LOAD_FETCH_SIZE);
+                    Table result = new Table(INITIAL_CAPACITY);
+                    try (ResultSet rs = statement.executeQuery()) {
+                        while (rs.next()) {
+                            result = result.putAndGrow(rs.getInt(1), rs.getInt(2));
+                        }
+                    }
+                    return result;
+                } finally {
+                    if (autoCommit) {
+                        connection.rollback();
+                        connection.setAutoCommit(true);
+                    }
+                }
+            });
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to server or database", e);
+        }
+        synchronized (this) {
+            table = loaded.putAllAndGrow(table);
+        }
+    }
+
+    /**
+     * The account id of the user, or 0 if the user is not in the table.
+     */
+    public int find(int userId) {
+        return table.get(userId);
+    }
+
+    /**
+     * The account id of the user, looking it up in the database and remembering it if the user is not in the
+     * table yet, for example because they registered through another server. Null if the user has no account.
+     */
+    public Integer resolve(Integer userId) {
+        if (userId == null) {
+            return null;
+        }
+        int accountId = find(userId);
+        if (accountId != 0) {
+            return accountId;
+        }
+        String sql = "SELECT account_id FROM account WHERE user_id = ?";
+        Integer found;
+        try {
+            found = DataAccessUtils.singleResult(jdbcTemplate.queryForList(sql, Integer.class, userId));
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to server or database", e);
+        }
+        if (found != null) {
+            put(userId, found);
+        }
+        return found;
+    }
+
+    public synchronized void put(int userId, int accountId) {
+        table = table.putAndGrow(userId, accountId);
+    }
+
+    public int size() {
+        return table.size();
+    }
+
+    /**
+     * Bytes held by the table's arrays, which is nearly all of its footprint.
+     */
+    public long memoryBytes() {
+        return (long) table.capacity() * (Integer.BYTES * 2);
+    }
+
+    /**
+     * Account ids by user id. Ids are positive, so 0 stands for a missing entry.
+     */
+    private static final class Table extends IntKeyTable<Table> {
+        private final int[] values;
+
+        Table(int capacity) {
+            super(capacity);
+            values = new int[capacity];
+        }
+
+        int get(int key) {
+            int slot = slotOf(key);
+            return slot < 0 ? 0 : values[slot];
+        }
+
+        /**
+         * @return this table, or a larger copy once this one is full
+         */
+        Table putAndGrow(int key, int value) {
+            int slot = freeSlot(key);
+            if (slot < 0) {
+                return this;
+            }
+            values[slot] = value;
+            return publish(slot, key);
+        }
+
+        Table putAllAndGrow(Table other) {
+            return other.putAllInto(this);
+        }
+
+        @Override
+        Table newTable(int capacity) {
+            return new Table(capacity);
+        }
+
+        @Override
+        Table copyEntry(int slot, Table target) {
+            return target.putAndGrow(key(slot), values[slot]);
+        }
+    }
+}
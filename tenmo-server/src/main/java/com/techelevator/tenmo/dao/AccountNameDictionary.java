@@ -0,0 +1,144 @@
+package com.techelevator.tenmo.dao;
+
+import com.techelevator.tenmo.exception.DaoException;
+import com.techelevator.tenmo.model.TransferDto;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Resolves account ids to usernames in memory, so transfer queries need not join account and tenmo_user.
+ */
+@Component
+public class AccountNameDictionary {
+
+    private static final int LOAD_CHUNK = 50_000;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Table table = new Table(INITIAL_CAPACITY);
+
+    public AccountNameDictionary(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Reads every account in account_id order, a chunk at a time so the driver never buffers the whole table.
+     */
+    @PostConstruct
+    public void load() {
+        String sql = "SELECT a.account_id, u.username FROM account a JOIN tenmo_user u ON u.user_id = a.user_id " +
+                "WHERE a.account_id > ? ORDER BY a.account_id LIMIT ?";
+        int[] lastAccountId = {0};
+        int[] loaded = new int[1];
+        try {
+            do {
+                loaded[0] = 0;
+                jdbcTemplate.query(sql, rs -> {
+                    lastAccountId[0] = rs.getInt(1);
+                    put(lastAccountId[0], rs.getString(2));
+                    loaded[0]++;
+                }, lastAccountId[0], LOAD_CHUNK);
+            } while (loaded[0] == LOAD_CHUNK);
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to server or database", e);
+        }
+    }
+
+    /**
+     * The username of the account's owner, or null if the account is not in the dictionary.
+     */
+    public String find(int accountId) {
+        return table.get(accountId);
+    }
+
+    public synchronized void put(int accountId, String username) {
+        table = table.putAndGrow(accountId, username);
+    }
+
+    public int size() {
+        return table.size();
+    }
+
+    /**
+     * Sets accountFromName and accountToName on each transfer. Accounts missing from the dictionary, for example
+     * ones registered through another server, are looked up together in one query and remembered.
+     */
+    public void fillNames(List<TransferDto> transfers) {
+        Set<Integer> missing = null;
+        for (TransferDto transfer : transfers) {
+            if (!fillNames(transfer)) {
+                if (missing == null) {
+                    missing = new LinkedHashSet<>();
+                }
+                missing.add(transfer.getAccountFrom());
+                missing.add(transfer.getAccountTo());
+            }
+        }
+        if (missing == null) {
+            return;
+        }
+        String sql = "SELECT a.account_id, u.username FROM account a JOIN tenmo_user u ON u.user_id = a.user_id " +
+                "WHERE a.account_id = ANY(?::int[])";
+        try {
+            jdbcTemplate.query(sql, rs -> {
+                put(rs.getInt(1), rs.getString(2));
+            }, SqlArrays.toIntArrayLiteral(missing));
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to server or database", e);
+        }
+        for (TransferDto transfer : transfers) {
+            fillNames(transfer);
+        }
+    }
+
+    private boolean fillNames(TransferDto transfer) {
+        transfer.setAccountFromName(find(transfer.getAccountFrom()));
+        transfer.setAccountToName(find(transfer.getAccountTo()));
+        return transfer.getAccountFromName() != null && transfer.getAccountToName() != null;
+    }
+
+    /**
+     * Usernames by account id.
+     */
+    private static final class Table extends IntKeyTable<Table> {
+        private final String[] values;
+
+        Table(int capacity) {
+            super(capacity);
+            values = new String[capacity];
+        }
+
+        String get(int key) {
+            int slot = slotOf(key);
+            return slot < 0 ? null : values[slot];
+        }
+
+        /**
+         * @return this table, or a larger copy once this one is full
+         */
+        Table putAndGrow(int key, String value) {
+            int slot = freeSlot(key);
+            if (slot < 0) {
+                return this;
+            }
+            values[slot] = value;
+            return publish(slot, key);
+        }
+
+        @Override
+        Table newTable(int capacity) {
+            return new Table(capacity);
+        }
+
+        @Override
+        Table copyEntry(int slot, Table target) {
+            return target.putAndGrow(key(slot), values[slot]);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.techelevator.tenmo.dao;
+
+import com.techelevator.tenmo.model.Money;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Event-sourced balances: each account's balance is its snapshot plus the approved transfers after the snapshot's
+ * last_approval_seq. Approving credits account_from and debits account_to.
+ */
+public interface BalanceSnapshotDao {
+
+    /**
+     * Returns the snapshot balance plus every approval after it, or null if the user has no account.
+     * Accounts without a snapshot row fall back to account.balance.
+     */
+    Money findBalanceByUserId(Integer userId);
+
+    long findMaxApprovalSeq();
+
+    /**
+     * Accounts on either side of a transfer whose approval_seq is in (afterSeq, upToSeq].
+     */
+    List<Integer> findAccountIdsApprovedBetween(long afterSeq, long upToSeq);
+
+    /**
+     * Folds the approvals after each snapshot into it. A snapshot that another writer moved in the meantime is
+     * left alone. Returns the number of snapshots that moved.
+     */
+    int refreshSnapshots(Collection<Integer> accountIds);
+
+    /**
+     * Recomputes the snapshots for account ids in [fromAccountId, toAccountId] from their opening balance and
+     * every approval. Returns the number of snapshots written.
+     */
+    int rebuildSnapshots(int fromAccountId, int toAccountId);
+
+    /**
+     * Lowest and highest account_id that has a snapshot, or null if there are none.
+     */
+    int[] findSnapshotAccountIdRange();
+
+    /**
+     * Number of accounts whose event-sourced balance differs from account.balance.
+     */
+    int countDrift();
+}
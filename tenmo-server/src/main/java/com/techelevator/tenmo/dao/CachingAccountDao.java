@@ -0,0 +1,68 @@
+package com.techelevator.tenmo.dao;
+
+import com.techelevator.tenmo.model.Account;
+import com.techelevator.tenmo.model.Money;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * AccountDao that serves account reads from AccountCache and keeps it current on balance changes.
+ */
+@Primary
+@Component
+public class CachingAccountDao implements AccountDao {
+
+    private final JdbcAccountDao delegate;
+    private final AccountCache cache;
+    private final AccountIdResolver accountIds;
+
+    public CachingAccountDao(JdbcAccountDao delegate, AccountCache cache, AccountIdResolver accountIds) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.accountIds = accountIds;
+    }
+
+    @Override
+    public Account findByUserId(Integer userId) {
+        Integer accountId = accountIds.resolve(userId);
+        return accountId == null ? null : findByAccountId(accountId);
+    }
+
+    @Override
+    public Account findByAccountId(Integer accountId) {
+        Account cached = cache.find(accountId);
+        if (cached != null) {
+            return cached;
+        }
+        long epoch = cache.snapshot(accountId);
+        Account account = delegate.findByAccountId(accountId);
+        if (account != null) {
+            cache.install(account, epoch);
+        }
+        return account;
+    }
+
+    @Override
+    public void updateBalanceByAccountId(Integer accountId, Money amount) {
+        // The owner is only known if the account was cached; otherwise there is nothing to write through to
+        Account cached = cache.find(accountId);
+        long epoch = cache.beginWrite(accountId);
+        delegate.updateBalanceByAccountId(accountId, amount);
+        cache.finishWrite(accountId, cached == null ? null : cached.getUserId(), amount, epoch);
+    }
+
+    @Override
+    public List<Account> lockAccounts(Collection<Integer> accountIds) {
+        return delegate.lockAccounts(accountIds);
+    }
+
+    @Override
+    public void addToBalances(Map<Integer, Money> deltasByAccountId) {
+        delegate.addToBalances(deltasByAccountId);
+        cache.invalidate(deltasByAccountId.keySet());
+    }
+}
@@ -0,0 +1,21 @@
+package com.techelevator.tenmo.dao;
+
+public interface IdempotencyKeyDao {
+
+    /**
+     * Claims the key for this node. Returns false if another request already holds an unexpired claim on it.
+     * An expired claim is taken over.
+     */
+    boolean reserve(String idempotencyKey, long ttlSeconds);
+
+    /**
+     * Returns the transfer id recorded for the key, or null if the claim is still in progress or unknown.
+     */
+    Integer findTransferId(String idempotencyKey);
+
+    void complete(String idempotencyKey, Integer transferId);
+
+    void release(String idempotencyKey);
+
+    int purgeExpired(long ttlSeconds);
+}
@@ -0,0 +1,97 @@
+package com.techelevator.tenmo.dao;
+
+/**
+ * Open-addressing hash table keyed by positive ints, with values in a parallel array kept by each subclass.
+ */
+abstract class IntKeyTable<T extends IntKeyTable<T>> {
+    private final int[] keys;
+    private final int mask;
+    private int size;
+
+    IntKeyTable(int capacity) {
+        keys = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * A table of the same kind with the given capacity, a power of two.
+     */
+    abstract T newTable(int capacity);
+
+    /**
+     * Puts the entry in the slot into the target and returns the target, or its larger copy.
+     */
+    abstract T copyEntry(int slot, T target);
+
+    /**
+     * The slot holding the key, or -1 if the key is not in the table.
+     */
+    final int slotOf(int key) {
+        for (int slot = mix(key) & mask; ; slot = (slot + 1) & mask) {
+            int found = keys[slot];
+            if (found == key) {
+                return slot;
+            }
+            if (found == 0) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * The slot to store a new key's value in before passing it to publish, or -1 if the key is already there.
+     */
+    final int freeSlot(int key) {
+        int slot = mix(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Makes the key visible in a slot from freeSlot whose value is already stored.
+     *
+     * @return this table, or a larger copy once this one is full
+     */
+    @SuppressWarnings("unchecked")
+    final T publish(int slot, int key) {
+        // Readers take no lock; the value is already stored, so one racing this can at worst miss the entry
+        keys[slot] = key;
+        size++;
+        return size * 4 > keys.length * 3 ? putAllInto(newTable(keys.length * 2)) : (T) this;
+    }
+
+    /**
+     * Puts every entry of this table into the target and returns the target, or its larger copy.
+     */
+    final T putAllInto(T target) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != 0) {
+                target = copyEntry(slot, target);
+            }
+        }
+        return target;
+    }
+
+    final int key(int slot) {
+        return keys[slot];
+    }
+
+    final int size() {
+        return size;
+    }
+
+    final int capacity() {
+        return keys.length;
+    }
+
+    // Sequential ids would otherwise fill one run of neighbouring slots
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -2,11 +2,19 @@ package com.techelevator.tenmo.dao;
 
 import com.techelevator.tenmo.exception.DaoException;
 import com.techelevator.tenmo.model.Account;
+import com.techelevator.tenmo.model.Money;
+import org.springframework.dao.support.DataAccessUtils;
 import org.springframework.jdbc.CannotGetJdbcConnectionException;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Component;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
 @Component
 public class JdbcAccountDao implements AccountDao {
     private final JdbcTemplate jdbcTemplate;
@@ -18,49 +26,70 @@ public class JdbcAccountDao implements AccountDao {
 
     @Override
     public Account findByUserId(Integer userId) {
-        Account account = null;
-        String sql = "select account_id,user_id,balance from account where user_id = ?";
+        String sql = "select account_id,user_id,(balance * 100)::bigint as balance_cents from account where user_id = ?";
         try {
-            SqlRowSet result = jdbcTemplate.queryForRowSet(sql, userId);
-            if (result.next()) {
-                account = mapRowToAccount(result);
-            }
+            return DataAccessUtils.singleResult(jdbcTemplate.query(sql, JdbcAccountDao::mapRowToAccount, userId));
         } catch (CannotGetJdbcConnectionException e) {
             throw new DaoException("Unable to connect to server or database", e);
         }
-        return account;
     }
 
     @Override
     public Account findByAccountId(Integer accountId) {
-        Account account = null;
-        String sql = "select account_id,user_id,balance from account where account_id = ?";
+        String sql = "select account_id,user_id,(balance * 100)::bigint as balance_cents from account where account_id = ?";
         try {
-            SqlRowSet result = jdbcTemplate.queryForRowSet(sql, accountId);
-            if (result.next()) {
-                account = mapRowToAccount(result);
-            }
+            return DataAccessUtils.singleResult(jdbcTemplate.query(sql, JdbcAccountDao::mapRowToAccount, accountId));
         } catch (CannotGetJdbcConnectionException e) {
             throw new DaoException("Unable to connect to server or database", e);
         }
-        return account;
     }
 
     @Override
-    public void updateBalanceByAccountId(Integer accountId, Double amount) {
+    public void updateBalanceByAccountId(Integer accountId, Money amount) {
         String sql = "UPDATE account SET balance = ? WHERE account_id = ? ";
         try {
-            jdbcTemplate.update(sql, amount, accountId);
+            jdbcTemplate.update(sql, amount.toBigDecimal(), accountId);
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to server or database", e);
+        }
+    }
+
+    @Override
+    public List<Account> lockAccounts(Collection<Integer> accountIds) {
+        String sql = "select account_id,user_id,(balance * 100)::bigint as balance_cents from account where account_id = ANY(?::int[]) " +
+                "order by account_id for update";
+        try {
+            return jdbcTemplate.query(sql, JdbcAccountDao::mapRowToAccount, SqlArrays.toIntArrayLiteral(accountIds));
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to server or database", e);
+        }
+    }
+
+    @Override
+    public void addToBalances(Map<Integer, Money> deltasByAccountId) {
+        if (deltasByAccountId.isEmpty()) {
+            return;
+        }
+        String sql = "UPDATE account a SET balance = a.balance + d.delta_cents / 100.0 " +
+                "FROM unnest(?::int[], ?::bigint[]) AS d(account_id, delta_cents) " +
+                "WHERE a.account_id = d.account_id";
+        try {
+            List<Long> deltaCents = new ArrayList<>(deltasByAccountId.size());
+            for (Money delta : deltasByAccountId.values()) {
+                deltaCents.add(delta.getCents());
+            }
+            jdbcTemplate.update(sql, SqlArrays.toIntArrayLiteral(deltasByAccountId.keySet()), SqlArrays.toBigintArrayLiteral(deltaCents));
         } catch (CannotGetJdbcConnectionException e) {
             throw new DaoException("Unable to connect to server or database", e);
         }
     }
 
-    private Account mapRowToAccount(SqlRowSet result) {
+    // account_id, user_id, balance_cents in that order. Package-private for RowMapperBenchmark in tenmo-benchmarks.
+    static Account mapRowToAccount(ResultSet result, int rowNum) throws SQLException {
         Account account = new Account();
-        account.setAccountId(result.getInt("account_id"));
-        account.setUserId(result.getInt("user_id"));
-        account.setBalance(result.getDouble("balance"));
+        account.setAccountId(result.getInt(1));
+        account.setUserId(result.getInt(2));
+        account.setBalance(Money.ofCents(result.getLong(3)));
         return account;
     }
 
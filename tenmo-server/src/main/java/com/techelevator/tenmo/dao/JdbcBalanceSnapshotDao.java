@@ -0,0 +1,120 @@
+package com.techelevator.tenmo.dao;
+
+import com.techelevator.tenmo.exception.DaoException;
+import com.techelevator.tenmo.model.Money;
+import org.springframework.dao.support.DataAccessUtils;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+
+@Component
+public class JdbcBalanceSnapshotDao implements BalanceSnapshotDao {
+    // Approvals of one account get their approval_seq while holding that account's row lock, so the approvals
+    // visible for an account are always a prefix of its sequence. That is what lets a snapshot stop at the
+    // highest approval_seq it saw without ever skipping a late commit.
+    private static final String EVENTS_AFTER_SNAPSHOT =
+            "SELECT amount AS delta, approval_seq FROM transfer WHERE account_from = s.account_id AND approval_seq > s.last_approval_seq " +
+            "UNION ALL " +
+            "SELECT -amount, approval_seq FROM transfer WHERE account_to = s.account_id AND approval_seq > s.last_approval_seq";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcBalanceSnapshotDao(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Money findBalanceByUserId(Integer userId) {
+        String sql = "SELECT (CASE WHEN s.account_id IS NULL THEN a.balance " +
+                "ELSE s.balance + (SELECT coalesce(sum(e.delta), 0) FROM (" + EVENTS_AFTER_SNAPSHOT + ") e) END * 100)::bigint AS balance_cents " +
+                "FROM account a LEFT JOIN balance_snapshot s ON s.account_id = a.account_id WHERE a.user_id = ?";
+        try {
+            return DataAccessUtils.singleResult(jdbcTemplate.query(sql, (rs, rowNum) -> Money.ofCents(rs.getLong(1)), userId));
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to server or database", e);
+        }
+    }
+
+    @Override
+    public long findMaxApprovalSeq() {
+        try {
+            return jdbcTemplate.queryForObject("SELECT coalesce(max(approval_seq), 0) FROM transfer", Long.class);
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to server or database", e);
+        }
+    }
+
+    @Override
+    public List<Integer> findAccountIdsApprovedBetween(long afterSeq, long upToSeq) {
+        String sql = "SELECT account_from FROM transfer WHERE approval_seq > ? AND approval_seq <= ? " +
+                "UNION SELECT account_to FROM transfer WHERE approval_seq > ? AND approval_seq <= ?";
+        try {
+            return jdbcTemplate.queryForList(sql, Integer.class, afterSeq, upToSeq, afterSeq, upToSeq);
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to server or database", e);
+        }
+    }
+
+    @Override
+    public int refreshSnapshots(Collection<Integer> accountIds) {
+        if (accountIds.isEmpty()) {
+            return 0;
+        }
+        // The last_approval_seq check is re-evaluated against the latest row version, so a snapshot that moved
+        // after this statement read it is skipped instead of having the same approvals added twice
+        String sql = "UPDATE balance_snapshot bs SET balance = bs.balance + d.delta, last_approval_seq = d.max_seq, taken_at = now() " +
+                "FROM (SELECT s.account_id, s.last_approval_seq AS from_seq, sum(e.delta) AS delta, max(e.approval_seq) AS max_seq " +
+                "FROM balance_snapshot s CROSS JOIN LATERAL (" + EVENTS_AFTER_SNAPSHOT + ") e " +
+                "WHERE s.account_id = ANY(?::int[]) GROUP BY s.account_id, s.last_approval_seq) d " +
+                "WHERE bs.account_id = d.account_id AND bs.last_approval_seq = d.from_seq";
+        try {
+            return jdbcTemplate.update(sql, SqlArrays.toIntArrayLiteral(accountIds));
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to server or database", e);
+        }
+    }
+
+    @Override
+    public int rebuildSnapshots(int fromAccountId, int toAccountId) {
+        // balance and last_approval_seq come from the same statement snapshot, so the pair stays consistent
+        // even if a concurrent refresh commits first
+        String sql = "UPDATE balance_snapshot bs SET balance = bs.opening_balance + d.delta, last_approval_seq = d.max_seq, taken_at = now() " +
+                "FROM (SELECT s.account_id, coalesce(sum(e.delta), 0) AS delta, coalesce(max(e.approval_seq), 0) AS max_seq " +
+                "FROM balance_snapshot s LEFT JOIN LATERAL (" +
+                "SELECT amount AS delta, approval_seq FROM transfer WHERE account_from = s.account_id AND approval_seq IS NOT NULL " +
+                "UNION ALL " +
+                "SELECT -amount, approval_seq FROM transfer WHERE account_to = s.account_id AND approval_seq IS NOT NULL) e ON true " +
+                "WHERE s.account_id BETWEEN ? AND ? GROUP BY s.account_id) d " +
+                "WHERE bs.account_id = d.account_id";
+        try {
+            return jdbcTemplate.update(sql, fromAccountId, toAccountId);
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to server or database", e);
+        }
+    }
+
+    @Override
+    public int[] findSnapshotAccountIdRange() {
+        try {
+            // min and max come back null on an empty table
+            return jdbcTemplate.queryForObject("SELECT min(account_id) AS low, max(account_id) AS high FROM balance_snapshot",
+                    (rs, rowNum) -> rs.getObject(1) == null ? null : new int[]{rs.getInt(1), rs.getInt(2)});
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to server or database", e);
+        }
+    }
+
+    @Override
+    public int countDrift() {
+        String sql = "SELECT count(*) FROM account a JOIN balance_snapshot s ON s.account_id = a.account_id " +
+                "WHERE a.balance <> s.balance + (SELECT coalesce(sum(e.delta), 0) FROM (" + EVENTS_AFTER_SNAPSHOT + ") e)";
+        try {
+            return jdbcTemplate.queryForObject(sql, Integer.class);
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to server or database", e);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.techelevator.tenmo.dao;
+
+import com.techelevator.tenmo.exception.DaoException;
+import org.springframework.dao.support.DataAccessUtils;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+@Component
+public class JdbcIdempotencyKeyDao implements IdempotencyKeyDao {
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcIdempotencyKeyDao(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public boolean reserve(String idempotencyKey, long ttlSeconds) {
+        String sql = "INSERT INTO idempotency_key (idempotency_key) VALUES (?) " +
+                "ON CONFLICT (idempotency_key) DO UPDATE SET transfer_id = null, created_at = now() " +
+                "WHERE idempotency_key.created_at < now() - make_interval(secs => ?)";
+        try {
+            return jdbcTemplate.update(sql, idempotencyKey, ttlSeconds) == 1;
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to server or database", e);
+        }
+    }
+
+    @Override
+    public Integer findTransferId(String idempotencyKey) {
+        String sql = "SELECT transfer_id FROM idempotency_key WHERE idempotency_key = ?";
+        try {
+            // transfer_id stays null while the first request with the key is still running
+            return DataAccessUtils.singleResult(jdbcTemplate.query(sql, (rs, rowNum) -> (Integer) rs.getObject(1), idempotencyKey));
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to server or database", e);
+        }
+    }
+
+    @Override
+    public void complete(String idempotencyKey, Integer transferId) {
+        String sql = "UPDATE idempotency_key SET transfer_id = ? WHERE idempotency_key = ?";
+        try {
+            jdbcTemplate.update(sql, transferId, idempotencyKey);
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to server or database", e);
+        }
+    }
+
+    @Override
+    public void release(String idempotencyKey) {
+        String sql = "DELETE FROM idempotency_key WHERE idempotency_key = ? AND transfer_id IS NULL";
+        try {
+            jdbcTemplate.update(sql, idempotencyKey);
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to server or database", e);
+        }
+    }
+
+    @Override
+    public int purgeExpired(long ttlSeconds) {
+        String sql = "DELETE FROM idempotency_key WHERE created_at < now() - make_interval(secs => ?)";
+        try {
+            return jdbcTemplate.update(sql, ttlSeconds);
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to server or database", e);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.techelevator.tenmo.dao;
+
+import com.techelevator.tenmo.exception.DaoException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+
+@Component
+public class JdbcLedgerPartitionDao implements LedgerPartitionDao {
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcLedgerPartitionDao(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * CREATE TABLE ... PARTITION OF fails if the default partition already holds rows for the month, which happens
+     * when postings for it arrived before its partition was made. Those rows are moved into a standalone table that
+     * is then attached as the partition. Everything runs in one transaction holding an exclusive lock on the default
+     * partition, the lock CREATE ... PARTITION OF would take anyway, so a posting for the month waits for the
+     * partition instead of landing in the default one halfway through.
+     */
+    @Override
+    public int createMonthlyPartition(YearMonth month) {
+        // The name and bounds are built from a YearMonth, never from user input
+        String name = String.format("ledger_entry_%04d_%02d", month.getYear(), month.getMonthValue());
+        try {
+            if (partitionExists(name)) {
+                return -1;
+            }
+            return jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+                boolean autoCommit = connection.getAutoCommit();
+                if (autoCommit) {
+                    connection.setAutoCommit(false);
+                }
+                try (Statement statement = connection.createStatement()) {
+                    int moved = createPartition(statement, name, month);
+                    if (autoCommit) {
+                        connection.commit();
+                    }
+                    return moved;
+                } catch (SQLException | RuntimeException e) {
+                    if (autoCommit) {
+                        connection.rollback();
+                    }
+                    throw e;
+                } finally {
+                    if (autoCommit) {
+                        connection.setAutoCommit(true);
+                    }
+                }
+            });
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to server or database", e);
+        }
+    }
+
+    private boolean partitionExists(String name) {
+        return jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, name);
+    }
+
+    private static int createPartition(Statement statement, String name, YearMonth month) throws SQLException {
+        String bounds = "FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')";
+        String inMonth = "created_at >= '" + month.atDay(1) + "' AND created_at < '" + month.plusMonths(1).atDay(1) + "'";
+        statement.execute("LOCK TABLE ledger_entry_default IN ACCESS EXCLUSIVE MODE");
+        // Another server may have created it while this one waited for the lock
+        if (queryBoolean(statement, "SELECT to_regclass('" + name + "') IS NOT NULL")) {
+            return -1;
+        }
+        if (!queryBoolean(statement, "SELECT EXISTS (SELECT 1 FROM ledger_entry_default WHERE " + inMonth + ")")) {
+            statement.execute("CREATE TABLE " + name + " PARTITION OF ledger_entry " + bounds);
+            return 0;
+        }
+        statement.execute("CREATE TABLE " + name + " (LIKE ledger_entry INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        int moved = statement.executeUpdate("WITH moved AS (DELETE FROM ledger_entry_default WHERE " + inMonth +
+                " RETURNING *) INSERT INTO " + name + " SELECT * FROM moved");
+        statement.execute("ALTER TABLE ledger_entry ATTACH PARTITION " + name + " " + bounds);
+        return moved;
+    }
+
+    private static boolean queryBoolean(Statement statement, String sql) throws SQLException {
+        try (ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getBoolean(1);
+        }
+    }
+}
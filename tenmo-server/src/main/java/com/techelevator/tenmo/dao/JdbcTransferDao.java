@@ -1,51 +1,172 @@
 package com.techelevator.tenmo.dao;
 
+import com.techelevator.tenmo.enums.TransferDirectionEnum;
+import com.techelevator.tenmo.enums.TransferResultEnum;
+import com.techelevator.tenmo.enums.TransferStatusEnum;
 import com.techelevator.tenmo.exception.DaoException;
+import com.techelevator.tenmo.model.BatchTransferDto;
+import com.techelevator.tenmo.model.BucksDto;
+import com.techelevator.tenmo.model.Money;
 import com.techelevator.tenmo.model.TransferDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.support.DataAccessUtils;
 import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.rowset.SqlRowSet;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 @Component
 public class JdbcTransferDao implements TransferDao {
 
+    // Approved transfers come from the account's ledger entries and everything else from the two partial
+    // indexes on transfer, so each branch is an index scan on one account instead of an OR over the table
+    private static final String HISTORY_SQL = "select t.transfer_id,t.transfer_type_id,t.transfer_status_id,t.account_from,t.account_to,(t.amount * 100)::bigint as amount_cents " +
+            "from (select transfer_id, created_at as activity_at from ledger_entry where account_id = ? " +
+            "union all select transfer_id, created_at from transfer where account_from = ? and transfer_status_id <> ? " +
+            "union all select transfer_id, created_at from transfer where account_to = ? and transfer_status_id <> ?) h " +
+            "join transfer t on t.transfer_id = h.transfer_id " +
+            "order by h.activity_at desc, t.transfer_id desc";
+    private static final int EXPORT_FETCH_SIZE = 500;
+
     private final JdbcTemplate jdbcTemplate;
+    private final AccountNameDictionary accountNames;
+    private final AccountCache accountCache;
 
     public JdbcTransferDao(JdbcTemplate jdbcTemplate) {
+        this(jdbcTemplate, new AccountNameDictionary(jdbcTemplate), new AccountCache(0));
+    }
+
+    @Autowired
+    public JdbcTransferDao(JdbcTemplate jdbcTemplate, AccountNameDictionary accountNames, AccountCache accountCache) {
         this.jdbcTemplate = jdbcTemplate;
+        this.accountNames = accountNames;
+        this.accountCache = accountCache;
     }
 
     @Override
     public List<TransferDto> listByAccountId(Integer accountId) {
-        List<TransferDto> transferDtoList = new ArrayList<>();
-        String sql = listSql()+
-                "where (t.account_from = ? " +
-                "or t.account_to = ? ) ";
+        Integer approved = TransferStatusEnum.APPROVED.getStatusId();
         try {
-            SqlRowSet result = jdbcTemplate.queryForRowSet(sql, accountId, accountId);
-            while (result.next()) {
-                TransferDto transferDto = mapRowToTransfer(result);
-                transferDtoList.add(transferDto);
-            }
+            return withNames(jdbcTemplate.query(HISTORY_SQL, JdbcTransferDao::mapRowToTransfer, accountId, accountId, approved, accountId, approved));
         } catch (CannotGetJdbcConnectionException e) {
             throw new DaoException("Unable to connect to server or database", e);
         }
-        return transferDtoList;
     }
 
+    @Override
+    public void streamByAccountId(Integer accountId, Consumer<TransferDto> consumer) {
+        Integer approved = TransferStatusEnum.APPROVED.getStatusId();
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                // The Postgres driver only honours the fetch size inside a transaction; in autocommit mode it
+                // reads the whole result into memory before returning the first row
+                boolean autoCommit = connection.getAutoCommit();
+                if (autoCommit) {
+                    connection.setAutoCommit(false);
+                }
+                try (PreparedStatement statement = connection.prepareStatement(HISTORY_SQL,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    statement.setFetchSize(EXPORT_FETCH_SIZE);
+                    statement.setInt(1, accountId);
+                    statement.setInt(2, accountId);
+                    statement.setInt(3, approved);
+                    statement.setInt(4, accountId);
+                    statement.setInt(5, approved);
+                    try (ResultSet result = statement.executeQuery()) {
+                        // Names are resolved a fetch at a time, so unknown accounts cost one query per chunk
+                        List<TransferDto> chunk = new ArrayList<>(EXPORT_FETCH_SIZE);
+                        int rowNum = 0;
+                        while (result.next()) {
+                            chunk.add(mapRowToTransfer(result, rowNum++));
+                            if (chunk.size() == EXPORT_FETCH_SIZE) {
+                                withNames(chunk).forEach(consumer);
+                                chunk.clear();
+                            }
+                        }
+                        withNames(chunk).forEach(consumer);
+                    }
+                } finally {
+                    if (autoCommit) {
+                        connection.rollback();
+                        connection.setAutoCommit(true);
+                    }
+                }
+                return null;
+            });
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to server or database", e);
+        }
+    }
 
+    @Override
+    public List<TransferDto> listPageByAccountId(Integer accountId, TransferDirectionEnum direction, Integer statusId,
+                                                 Integer beforeTransferId, int limit) {
+        // Each branch walks one account's index backwards from the cursor and stops after limit rows, so a page
+        // costs the same however deep it is. Approved transfers come from the ledger, where a positive entry means
+        // the account is account_from; the rest come from the partial indexes on transfer.
+        Integer approved = TransferStatusEnum.APPROVED.getStatusId();
+        int before = beforeTransferId == null ? Integer.MAX_VALUE : beforeTransferId;
+        List<String> branches = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+        if (statusId == null || statusId.equals(approved)) {
+            String side = direction == TransferDirectionEnum.FROM ? "and amount > 0 " : direction == TransferDirectionEnum.TO ? "and amount < 0 " : "";
+            branches.add("(select transfer_id from ledger_entry where account_id = ? and transfer_id < ? " + side +
+                    "order by transfer_id desc limit ?)");
+            Collections.addAll(args, accountId, before, limit);
+        }
+        if (statusId == null || !statusId.equals(approved)) {
+            String status = statusId == null ? "" : "and transfer_status_id = ? ";
+            for (String column : unpostedColumns(direction)) {
+                branches.add("(select transfer_id from transfer where " + column + " = ? and transfer_status_id <> ? " + status +
+                        "and transfer_id < ? order by transfer_id desc limit ?)");
+                Collections.addAll(args, accountId, approved);
+                if (statusId != null) {
+                    args.add(statusId);
+                }
+                Collections.addAll(args, before, limit);
+            }
+        }
+        args.add(limit);
+        String sql = listSql() +
+                "join (" + String.join(" union all ", branches) + ") page on page.transfer_id = t.transfer_id " +
+                "order by t.transfer_id desc limit ?";
+        try {
+            return withNames(jdbcTemplate.query(sql, JdbcTransferDao::mapRowToTransfer, args.toArray()));
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to server or database", e);
+        }
+    }
+
+    private List<String> unpostedColumns(TransferDirectionEnum direction) {
+        List<String> columns = new ArrayList<>();
+        if (direction.includesFrom()) {
+            columns.add("account_from");
+        }
+        if (direction.includesTo()) {
+            columns.add("account_to");
+        }
+        return columns;
+    }
 
     private String listSql() {
-        return  "select t.transfer_id,t.transfer_type_id,t.transfer_status_id,t.account_from,fu.username as accountFromName,account_to,tu.username as accountToName,t.amount " +
-                "from transfer t " +
-                "left join account fa on t.account_from = fa.account_id " +
-                "left join tenmo_user fu on fa.user_id = fu.user_id " +
-                "left join account ta on t.account_to = ta.account_id " +
-                "left join tenmo_user tu on ta.user_id = tu.user_id " ;
+        return  "select t.transfer_id,t.transfer_type_id,t.transfer_status_id,t.account_from,t.account_to,(t.amount * 100)::bigint as amount_cents " +
+                "from transfer t " ;
+    }
+
+    private List<TransferDto> withNames(List<TransferDto> transfers) {
+        accountNames.fillNames(transfers);
+        return transfers;
     }
 
     @Override
@@ -58,25 +179,130 @@ public class JdbcTransferDao implements TransferDao {
         }
     }
 
+    @Override
+    public TransferResultEnum approvePendingTransfer(Integer transferId) {
+        // Lock the pending transfer, then both accounts in account_id order so opposite-direction approvals
+        // cannot deadlock. The debit only matches while the balance covers the amount, and the credit and the
+        // status change only run off the debit's RETURNING row, so a failed check leaves everything untouched.
+        // The same row posts the two ledger entries.
+        String sql = "WITH t AS ( " +
+                "SELECT transfer_id, account_from, account_to, amount FROM transfer " +
+                "WHERE transfer_id = ? AND transfer_status_id = ? FOR UPDATE), " +
+                "locked AS ( " +
+                "SELECT a.account_id FROM account a JOIN t ON a.account_id IN (t.account_from, t.account_to) " +
+                "ORDER BY a.account_id FOR UPDATE OF a), " +
+                "debit AS ( " +
+                "UPDATE account a SET balance = a.balance - t.amount FROM t " +
+                "WHERE a.account_id = t.account_to AND a.balance >= t.amount " +
+                "AND (SELECT count(*) FROM locked) > 0 " +
+                "RETURNING t.transfer_id, t.account_from, t.account_to, t.amount), " +
+                "credit AS ( " +
+                "UPDATE account a SET balance = a.balance + d.amount FROM debit d " +
+                "WHERE a.account_id = d.account_from RETURNING a.account_id), " +
+                "approved AS ( " +
+                "UPDATE transfer tr SET transfer_status_id = ?, approval_seq = nextval('seq_approval') FROM debit d " +
+                "WHERE tr.transfer_id = d.transfer_id RETURNING tr.transfer_id), " +
+                "posted AS ( " +
+                "INSERT INTO ledger_entry (transfer_id, account_id, amount) " +
+                "SELECT transfer_id, account_from, amount FROM debit " +
+                "UNION ALL SELECT transfer_id, account_to, -amount FROM debit) " +
+                "SELECT (SELECT count(*) FROM transfer WHERE transfer_id = ?) AS found, " +
+                "(SELECT count(*) FROM t) AS pending, " +
+                "(SELECT count(*) FROM approved) AS changed, " +
+                "(SELECT account_from FROM debit) AS account_from, (SELECT account_to FROM debit) AS account_to";
+        RowMapper<TransferResultEnum> resultMapper = resultMapper(TransferResultEnum.INSUFFICIENT_BALANCE);
+        List<Integer> changedAccountIds = new ArrayList<>(2);
+        try {
+            TransferResultEnum result = jdbcTemplate.queryForObject(sql, (rs, rowNum) -> {
+                Collections.addAll(changedAccountIds, rs.getInt("account_from"), rs.getInt("account_to"));
+                return resultMapper.mapRow(rs, rowNum);
+            }, transferId, TransferStatusEnum.PENDING.getStatusId(), TransferStatusEnum.APPROVED.getStatusId(), transferId);
+            if (result == TransferResultEnum.SUCCESS) {
+                // Both balances changed behind AccountDao's back
+                accountCache.invalidate(changedAccountIds);
+            }
+            return result;
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to server or database", e);
+        }
+    }
 
     @Override
-    public TransferDto getTransferById(Integer transferId) {
-        String sql = "SELECT t.transfer_id, t.transfer_type_id, t.transfer_status_id, t.account_from, " +
-                "fu.username as accountFromName, t.account_to, tu.username as accountToName, t.amount " +
-                "FROM transfer t " +
-                "LEFT JOIN account fa ON t.account_from = fa.account_id " +
-                "LEFT JOIN tenmo_user fu ON fa.user_id = fu.user_id " +
-                "LEFT JOIN account ta ON t.account_to = ta.account_id " +
-                "LEFT JOIN tenmo_user tu ON ta.user_id = tu.user_id " +
-                "WHERE t.transfer_id = ?";
+    public TransferResultEnum rejectPendingTransfer(Integer transferId) {
+        String sql = "WITH rejected AS ( " +
+                "UPDATE transfer SET transfer_status_id = ? " +
+                "WHERE transfer_id = ? AND transfer_status_id = ? RETURNING transfer_id) " +
+                "SELECT (SELECT count(*) FROM transfer WHERE transfer_id = ?) AS found, " +
+                "(SELECT count(*) FROM rejected) AS pending, " +
+                "(SELECT count(*) FROM rejected) AS changed";
+        try {
+            return jdbcTemplate.queryForObject(sql, resultMapper(TransferResultEnum.NOT_PENDING),
+                    TransferStatusEnum.REJECTED.getStatusId(), transferId,
+                    TransferStatusEnum.PENDING.getStatusId(), transferId);
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to server or database", e);
+        }
+    }
 
+    @Override
+    public List<TransferDto> lockPendingTransfers(List<Integer> transferIds) {
+        String sql = "SELECT transfer_id, transfer_type_id, transfer_status_id, account_from, " +
+                "account_to, (amount * 100)::bigint as amount_cents FROM transfer " +
+                "WHERE transfer_id = ANY(?::int[]) AND transfer_status_id = ? " +
+                "ORDER BY transfer_id FOR UPDATE";
         try {
-            SqlRowSet result = jdbcTemplate.queryForRowSet(sql, transferId);
-            if (result.next()) {
-                return mapRowToTransfer(result);
-            } else {
-                return null;
+            return jdbcTemplate.query(sql, JdbcTransferDao::mapRowToTransfer, SqlArrays.toIntArrayLiteral(transferIds),
+                    TransferStatusEnum.PENDING.getStatusId());
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to server or database", e);
+        }
+    }
+
+    @Override
+    public List<Integer> updatePendingTransferStatuses(List<Integer> transferIds, Integer newStatusId) {
+        // Approvals take their approval_seq here, after the caller has locked the accounts involved,
+        // and post their ledger entries in the same statement
+        String sql = "WITH changed AS ( " +
+                "UPDATE transfer SET transfer_status_id = ?, " +
+                "approval_seq = CASE WHEN ? = ? THEN nextval('seq_approval') END " +
+                "WHERE transfer_id = ANY(?::int[]) AND transfer_status_id = ? " +
+                "RETURNING transfer_id, account_from, account_to, amount, approval_seq), " +
+                "posted AS ( " +
+                "INSERT INTO ledger_entry (transfer_id, account_id, amount) " +
+                "SELECT transfer_id, account_from, amount FROM changed WHERE approval_seq IS NOT NULL " +
+                "UNION ALL SELECT transfer_id, account_to, -amount FROM changed WHERE approval_seq IS NOT NULL) " +
+                "SELECT transfer_id FROM changed";
+        try {
+            return jdbcTemplate.queryForList(sql, Integer.class, newStatusId,
+                    newStatusId, TransferStatusEnum.APPROVED.getStatusId(), SqlArrays.toIntArrayLiteral(transferIds),
+                    TransferStatusEnum.PENDING.getStatusId());
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to server or database", e);
+        }
+    }
+
+    private RowMapper<TransferResultEnum> resultMapper(TransferResultEnum whenUnchanged) {
+        return (rs, rowNum) -> {
+            if (rs.getInt("found") == 0) {
+                return TransferResultEnum.NOT_FOUND;
+            }
+            if (rs.getInt("pending") == 0) {
+                return TransferResultEnum.NOT_PENDING;
             }
+            if (rs.getInt("changed") == 0) {
+                return whenUnchanged;
+            }
+            return TransferResultEnum.SUCCESS;
+        };
+    }
+
+    @Override
+    public TransferDto getTransferById(Integer transferId) {
+        String sql = "SELECT transfer_id, transfer_type_id, transfer_status_id, account_from, " +
+                "account_to, (amount * 100)::bigint as amount_cents FROM transfer WHERE transfer_id = ?";
+
+        try {
+            return DataAccessUtils.singleResult(withNames(jdbcTemplate.query(sql, JdbcTransferDao::mapRowToTransfer, transferId)));
         } catch (CannotGetJdbcConnectionException e) {
             throw new DaoException("Unable to connect to server or database", e);
         }
@@ -84,48 +310,124 @@ public class JdbcTransferDao implements TransferDao {
 
 
     public List<TransferDto> listByAccountIdAndStatus(Integer accountId, Integer transferStatusId) {
-        List<TransferDto> transferDtoList = new ArrayList<>();
         String sql = listSql() +
                 "where t.account_to = ?  "+
                 "and t.transfer_status_id= ?";
         try {
-            SqlRowSet result = jdbcTemplate.queryForRowSet(sql, accountId, transferStatusId);
-            while (result.next()) {
-                TransferDto transferDto = mapRowToTransfer(result);
-                transferDtoList.add(transferDto);
-            }
+            return withNames(jdbcTemplate.query(sql, JdbcTransferDao::mapRowToTransfer, accountId, transferStatusId));
         } catch (CannotGetJdbcConnectionException e) {
             throw new DaoException("Unable to connect to server or database", e);
         }
-        return transferDtoList;
     }
 
 
 
     @Override
-    public Integer addTransfer(Integer transferTypeId, Integer transferStatusId, Integer accountFrom, Integer accountTo, Double amount) {
+    public Integer addTransfer(Integer transferTypeId, Integer transferStatusId, Integer accountFrom, Integer accountTo, Money amount) {
         String sql = "INSERT INTO  transfer (transfer_type_id,transfer_status_id,account_from,account_to,amount) " +
                 "VALUES(?,?,?,?,?) " +
                 "RETURNING transfer_id";
         Integer transferId;
         try {
-            transferId = jdbcTemplate.queryForObject(sql, Integer.class, transferTypeId, transferStatusId, accountFrom, accountTo, amount);
+            transferId = jdbcTemplate.queryForObject(sql, Integer.class, transferTypeId, transferStatusId, accountFrom, accountTo, amount.toBigDecimal());
         } catch (CannotGetJdbcConnectionException e) {
             throw new DaoException("Unable to connect to server or database", e);
         }
         return transferId;
     }
 
-    private TransferDto mapRowToTransfer(SqlRowSet result) {
+    @Override
+    public List<BatchTransferDto> addTransfers(Integer transferTypeId, Integer transferStatusId, List<BucksDto> bucksDtos) {
+        List<BatchTransferDto> results = new ArrayList<>(bucksDtos.size());
+        List<BatchTransferDto> inserted = new ArrayList<>();
+        List<Object[]> batchArgs = new ArrayList<>();
+        try {
+            Map<Integer, Integer> accountIdsByUserId = findAccountIdsByUserIds(bucksDtos);
+            for (BucksDto bucksDto : bucksDtos) {
+                Integer accountFrom = accountIdsByUserId.get(bucksDto.getFromUserId());
+                Integer accountTo = accountIdsByUserId.get(bucksDto.getToUserId());
+                if (accountFrom == null || accountTo == null) {
+                    results.add(new BatchTransferDto(null, "Account not found"));
+                } else if (accountFrom.equals(accountTo)) {
+                    results.add(new BatchTransferDto(null, "could not transfer to yourself"));
+                } else if (bucksDto.getAmount() == null || !bucksDto.getAmount().isPositive()) {
+                    results.add(new BatchTransferDto(null, "Amount must be greater than zero"));
+                } else {
+                    BatchTransferDto result = new BatchTransferDto();
+                    results.add(result);
+                    inserted.add(result);
+                    batchArgs.add(new Object[]{null, transferTypeId, transferStatusId, accountFrom, accountTo, bucksDto.getAmount().toBigDecimal()});
+                }
+            }
+            if (batchArgs.isEmpty()) {
+                return results;
+            }
+
+            // Reserve all ids up front so the inserts can go out as one JDBC batch and still report their ids
+            List<Integer> transferIds = reserveTransferIds(batchArgs.size());
+            for (int i = 0; i < transferIds.size(); i++) {
+                inserted.get(i).setTransferId(transferIds.get(i));
+                batchArgs.get(i)[0] = transferIds.get(i);
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO transfer (transfer_id,transfer_type_id,transfer_status_id,account_from,account_to,amount) " +
+                    "VALUES (?,?,?,?,?,?)", batchArgs);
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to server or database", e);
+        }
+        return results;
+    }
+
+    @Override
+    public List<Integer> reserveTransferIds(int count) {
+        try {
+            return jdbcTemplate.queryForList("SELECT nextval('seq_transfer_id')::int FROM generate_series(1, ?)", Integer.class, count);
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to server or database", e);
+        }
+    }
+
+    @Override
+    public void addTransfersWithIds(List<TransferDto> transfers) {
+        List<Object[]> batchArgs = new ArrayList<>(transfers.size());
+        for (TransferDto transfer : transfers) {
+            batchArgs.add(new Object[]{transfer.getTransferId(), transfer.getTransferTypeId(), transfer.getTransferStatusId(),
+                    transfer.getAccountFrom(), transfer.getAccountTo(), transfer.getAmount().toBigDecimal()});
+        }
+        try {
+            jdbcTemplate.batchUpdate("INSERT INTO transfer (transfer_id,transfer_type_id,transfer_status_id,account_from,account_to,amount) " +
+                    "VALUES (?,?,?,?,?,?) ON CONFLICT (transfer_id) DO NOTHING", batchArgs);
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to server or database", e);
+        }
+    }
+
+    private Map<Integer, Integer> findAccountIdsByUserIds(List<BucksDto> bucksDtos) {
+        List<Integer> userIds = new ArrayList<>();
+        for (BucksDto bucksDto : bucksDtos) {
+            userIds.add(bucksDto.getFromUserId());
+            userIds.add(bucksDto.getToUserId());
+        }
+        Map<Integer, Integer> accountIdsByUserId = new HashMap<>();
+        jdbcTemplate.query("SELECT user_id, account_id FROM account WHERE user_id = ANY(?::int[])",
+                rs -> {
+                    accountIdsByUserId.put(rs.getInt("user_id"), rs.getInt("account_id"));
+                }, SqlArrays.toIntArrayLiteral(userIds));
+        return accountIdsByUserId;
+    }
+
+    /**
+     * Every transfer query selects transfer_id, transfer_type_id, transfer_status_id, account_from, account_to and
+     * amount_cents in that order, so columns are read by position. The account names are filled in afterwards
+     * from the AccountNameDictionary. Package-private for RowMapperBenchmark in tenmo-benchmarks.
+     */
+    static TransferDto mapRowToTransfer(ResultSet result, int rowNum) throws SQLException {
         TransferDto transferDto = new TransferDto();
-        transferDto.setTransferId(result.getInt("transfer_id"));
-        transferDto.setTransferTypeId(result.getInt("transfer_type_id"));
-        transferDto.setTransferStatusId(result.getInt("transfer_status_id"));
-        transferDto.setAccountFrom(result.getInt("account_from"));
-        transferDto.setAccountFromName(result.getString("accountFromName"));
-        transferDto.setAccountToName(result.getString("accountToName"));
-        transferDto.setAccountTo(result.getInt("account_to"));
-        transferDto.setAmount(result.getDouble("amount"));
+        transferDto.setTransferId(result.getInt(1));
+        transferDto.setTransferTypeId(result.getInt(2));
+        transferDto.setTransferStatusId(result.getInt(3));
+        transferDto.setAccountFrom(result.getInt(4));
+        transferDto.setAccountTo(result.getInt(5));
+        transferDto.setAmount(Money.ofCents(result.getLong(6)));
 
         return transferDto;
     }
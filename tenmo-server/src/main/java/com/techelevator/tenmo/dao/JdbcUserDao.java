@@ -1,75 +1,114 @@
 package com.techelevator.tenmo.dao;
 
 import com.techelevator.tenmo.exception.DaoException;
+import com.techelevator.tenmo.model.BulkRegistrationDto;
+import com.techelevator.tenmo.model.Money;
 import com.techelevator.tenmo.model.RegisterUserDto;
 import com.techelevator.tenmo.model.User;
+import com.techelevator.tenmo.model.UserDirectoryEntryDto;
+import com.techelevator.tenmo.security.PasswordVerifier;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.support.DataAccessUtils;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
 import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Component;
-import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.math.BigDecimal;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 @Component
 public class JdbcUserDao implements UserDao {
 
-    private static final BigDecimal STARTING_BALANCE = new BigDecimal("1000.00");
+    private static final Money STARTING_BALANCE = Money.ofCents(100_000);
+    // tenmo_user.username is varchar(50)
+    private static final int MAX_USERNAME_LENGTH = 50;
     private final JdbcTemplate jdbcTemplate;
+    private final AccountNameDictionary accountNames;
+    private final AccountIdResolver accountIds;
+    private final UsernameIndex usernameIndex;
+    // Hashes bulk imports on the login pool; without one they are hashed on the calling thread
+    private final PasswordVerifier passwordVerifier;
 
     public JdbcUserDao(JdbcTemplate jdbcTemplate) {
+        this(jdbcTemplate, new AccountNameDictionary(jdbcTemplate), new AccountIdResolver(jdbcTemplate));
+    }
+
+    public JdbcUserDao(JdbcTemplate jdbcTemplate, AccountNameDictionary accountNames, AccountIdResolver accountIds) {
+        this(jdbcTemplate, accountNames, accountIds, new UsernameIndex(jdbcTemplate), null);
+    }
+
+    @Autowired
+    public JdbcUserDao(JdbcTemplate jdbcTemplate, AccountNameDictionary accountNames, AccountIdResolver accountIds,
+                       UsernameIndex usernameIndex, PasswordVerifier passwordVerifier) {
         this.jdbcTemplate = jdbcTemplate;
+        this.accountNames = accountNames;
+        this.accountIds = accountIds;
+        this.usernameIndex = usernameIndex;
+        this.passwordVerifier = passwordVerifier;
     }
 
     @Override
     public User getUserById(int userId) {
-        User user = null;
-        String sql = "SELECT user_id, username, password_hash FROM tenmo_user WHERE user_id = ?";
+        String sql = "SELECT user_id, username, password_hash, role FROM tenmo_user WHERE user_id = ?";
         try {
-            SqlRowSet results = jdbcTemplate.queryForRowSet(sql, userId);
-            if (results.next()) {
-                user = mapRowToUser(results);
-            }
+            return DataAccessUtils.singleResult(jdbcTemplate.query(sql, JdbcUserDao::mapRowToUser, userId));
         } catch (CannotGetJdbcConnectionException e) {
             throw new DaoException("Unable to connect to server or database", e);
         }
-        return user;
     }
 
     @Override
     public List<User> getUsers() {
-        List<User> users = new ArrayList<>();
-        String sql = "SELECT user_id, username, password_hash FROM tenmo_user";
+        String sql = "SELECT user_id, username, password_hash, role FROM tenmo_user";
         try {
-            SqlRowSet results = jdbcTemplate.queryForRowSet(sql);
-            while (results.next()) {
-                User user = mapRowToUser(results);
-                users.add(user);
-            }
+            return jdbcTemplate.query(sql, JdbcUserDao::mapRowToUser);
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to server or database", e);
+        }
+    }
+
+    @Override
+    public List<UserDirectoryEntryDto> listDirectoryPage(Integer afterUserId, int limit) {
+        // A range scan on the primary key from the cursor, so every page costs the same however deep it is
+        String sql = "SELECT user_id, username FROM tenmo_user WHERE user_id > ? ORDER BY user_id LIMIT ?";
+        try {
+            return jdbcTemplate.query(sql, (rs, rowNum) -> new UserDirectoryEntryDto(rs.getInt(1), rs.getString(2)),
+                    afterUserId == null ? 0 : afterUserId, limit);
         } catch (CannotGetJdbcConnectionException e) {
             throw new DaoException("Unable to connect to server or database", e);
         }
-        return users;
     }
 
     @Override
     public User getUserByUsername(String username) {
         if (username == null) throw new IllegalArgumentException("Username cannot be null");
-        User user = null;
-        String sql = "SELECT user_id, username, password_hash FROM tenmo_user WHERE username = LOWER(TRIM(?));";
+        String sql = "SELECT user_id, username, password_hash, role FROM tenmo_user WHERE username = LOWER(TRIM(?));";
         try {
-            SqlRowSet rowSet = jdbcTemplate.queryForRowSet(sql, username);
-            if (rowSet.next()) {
-                user = mapRowToUser(rowSet);
-            }
+            return DataAccessUtils.singleResult(jdbcTemplate.query(sql, JdbcUserDao::mapRowToUser, username));
         } catch (CannotGetJdbcConnectionException e) {
             throw new DaoException("Unable to connect to server or database", e);
         }
-        return user;
     }
 
     @Override
@@ -83,8 +122,16 @@ public class JdbcUserDao implements UserDao {
             newUser = getUserById(newUserId);
             if (newUser != null) {
                 // create account
-                sql = "INSERT INTO account (user_id, balance) VALUES (?, ?)";
-                jdbcTemplate.update(sql, newUserId, STARTING_BALANCE);
+                sql = "INSERT INTO account (user_id, balance) VALUES (?, ?) RETURNING account_id";
+                Integer accountId = jdbcTemplate.queryForObject(sql, Integer.class, newUserId, STARTING_BALANCE.toBigDecimal());
+                sql = "INSERT INTO balance_snapshot (account_id, opening_balance, balance) VALUES (?, ?, ?)";
+                jdbcTemplate.update(sql, accountId, STARTING_BALANCE.toBigDecimal(), STARTING_BALANCE.toBigDecimal());
+                String username = newUser.getUsername();
+                afterCommit(() -> {
+                    accountNames.put(accountId, username);
+                    accountIds.put(newUserId, accountId);
+                    usernameIndex.put(newUserId, username);
+                });
             }
         } catch (CannotGetJdbcConnectionException e) {
             throw new DaoException("Unable to connect to server or database", e);
@@ -94,13 +141,182 @@ public class JdbcUserDao implements UserDao {
         return newUser;
     }
 
-    private User mapRowToUser(SqlRowSet rs) {
+    @Override
+    public BulkRegistrationDto createUsers(List<RegisterUserDto> users) {
+        // Normalised the way createUser's LOWER(TRIM(?)) does it, keeping the first password given for a username
+        Map<String, String> passwords = new LinkedHashMap<>();
+        List<String> skipped = new ArrayList<>();
+        for (RegisterUserDto user : users) {
+            String username = user.getUsername() == null ? "" : user.getUsername().trim().toLowerCase(Locale.ROOT);
+            if (username.isEmpty() || username.length() > MAX_USERNAME_LENGTH || user.getPassword() == null
+                    || user.getPassword().isEmpty() || passwords.putIfAbsent(username, user.getPassword()) != null) {
+                skipped.add(user.getUsername());
+            }
+        }
+        try {
+            Set<String> taken = findExistingUsernames(passwords.keySet());
+            passwords.keySet().removeIf(username -> {
+                if (taken.contains(username)) {
+                    skipped.add(username);
+                    return true;
+                }
+                return false;
+            });
+            if (passwords.isEmpty()) {
+                return new BulkRegistrationDto(0, skipped);
+            }
+
+            String[] usernames = passwords.keySet().toArray(new String[0]);
+            String[] hashes = hashPasswords(new ArrayList<>(passwords.values()));
+            int[][] ids = jdbcTemplate.execute((ConnectionCallback<int[][]>) connection -> copyUsers(connection, usernames, hashes));
+            afterCommit(() -> {
+                UsernameIndex.Builder indexed = new UsernameIndex.Builder();
+                for (int i = 0; i < usernames.length; i++) {
+                    accountNames.put(ids[1][i], usernames[i]);
+                    accountIds.put(ids[0][i], ids[1][i]);
+                    indexed.add(ids[0][i], usernames[i]);
+                }
+                usernameIndex.putAll(indexed);
+            });
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to server or database", e);
+        } catch (DataIntegrityViolationException e) {
+            throw new DaoException("Data integrity violation", e);
+        }
+        return new BulkRegistrationDto(passwords.size(), skipped);
+    }
+
+    /**
+     * The name, account and username maps only learn about a user once it is committed, so inside a transaction
+     * the action waits for the commit and is dropped on rollback.
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private Set<String> findExistingUsernames(Set<String> usernames) {
+        Set<String> existing = new HashSet<>();
+        jdbcTemplate.query("SELECT username FROM tenmo_user WHERE username = ANY(?::varchar[])",
+                rs -> {
+                    existing.add(rs.getString(1));
+                }, SqlArrays.toTextArrayLiteral(usernames));
+        return existing;
+    }
+
+    /**
+     * BCrypt is deliberately slow, so the hashes go to the PasswordVerifier's pool: they use every core it has, but
+     * no more, and a login storm and an import share it instead of each taking the whole machine.
+     *
+     * @throws java.util.concurrent.RejectedExecutionException if the pool's queue is full of login checks
+     */
+    private String[] hashPasswords(List<String> passwords) {
+        if (passwordVerifier != null) {
+            return passwordVerifier.encodeAll(passwords);
+        }
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
+        String[] hashes = new String[passwords.size()];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = encoder.encode(passwords.get(i));
+        }
+        return hashes;
+    }
+
+    /**
+     * Reserves the user and account ids up front, then streams tenmo_user, account and balance_snapshot rows in
+     * with COPY, all in one transaction. A connection already inside a transaction is left for its owner to
+     * commit.
+     *
+     * @return the user ids and the account ids, in the order of usernames
+     */
+    private static int[][] copyUsers(Connection connection, String[] usernames, String[] hashes) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        if (autoCommit) {
+            connection.setAutoCommit(false);
+        }
+        boolean committed = false;
+        try {
+            int[] userIds = reserveIds(connection, "seq_user_id", usernames.length);
+            int[] accountIds = reserveIds(connection, "seq_account_id", usernames.length);
+            PGConnection pgConnection = connection.unwrap(PGConnection.class);
+            String balance = STARTING_BALANCE.toBigDecimal().toPlainString();
+
+            try (Writer out = copyIn(pgConnection, "COPY tenmo_user (user_id, username, password_hash) FROM STDIN (FORMAT csv)")) {
+                for (int i = 0; i < usernames.length; i++) {
+                    out.write(userIds[i] + "," + csvField(usernames[i]) + "," + csvField(hashes[i]) + "\n");
+                }
+            }
+            try (Writer out = copyIn(pgConnection, "COPY account (account_id, user_id, balance) FROM STDIN (FORMAT csv)")) {
+                for (int i = 0; i < usernames.length; i++) {
+                    out.write(accountIds[i] + "," + userIds[i] + "," + balance + "\n");
+                }
+            }
+            try (Writer out = copyIn(pgConnection, "COPY balance_snapshot (account_id, opening_balance, balance) FROM STDIN (FORMAT csv)")) {
+                for (int i = 0; i < usernames.length; i++) {
+                    out.write(accountIds[i] + "," + balance + "," + balance + "\n");
+                }
+            }
+            if (autoCommit) {
+                connection.commit();
+                committed = true;
+            }
+            return new int[][]{userIds, accountIds};
+        } catch (IOException e) {
+            // PGCopyOutputStream reports the server's SQLException as the cause
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw new SQLException("COPY failed", e);
+        } finally {
+            if (autoCommit) {
+                if (!committed) {
+                    connection.rollback();
+                }
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    private static int[] reserveIds(Connection connection, String sequence, int count) throws SQLException {
+        int[] ids = new int[count];
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT nextval('" + sequence + "')::int FROM generate_series(1, ?)")) {
+            statement.setInt(1, count);
+            try (ResultSet rs = statement.executeQuery()) {
+                for (int i = 0; rs.next(); i++) {
+                    ids[i] = rs.getInt(1);
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static Writer copyIn(PGConnection connection, String sql) throws SQLException {
+        return new BufferedWriter(new OutputStreamWriter(new PGCopyOutputStream(connection, sql), StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    private static String csvField(String value) {
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    // user_id, username, password_hash, role in that order. role holds ROLE_USER or ROLE_ADMIN, and is null for
+    // users registered through the API
+    private static User mapRowToUser(ResultSet rs, int rowNum) throws SQLException {
         User user = new User();
-        user.setId(rs.getInt("user_id"));
-        user.setUsername(rs.getString("username"));
-        user.setPassword(rs.getString("password_hash"));
+        user.setId(rs.getInt(1));
+        user.setUsername(rs.getString(2));
+        user.setPassword(rs.getString(3));
         user.setActivated(true);
-        user.setAuthorities("USER");
+        String role = rs.getString(4);
+        user.setAuthorities(role == null ? "USER" : role.substring(role.startsWith("ROLE_") ? 5 : 0));
         return user;
     }
 }
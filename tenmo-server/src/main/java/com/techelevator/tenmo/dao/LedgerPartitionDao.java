@@ -0,0 +1,12 @@
+package com.techelevator.tenmo.dao;
+
+import java.time.YearMonth;
+
+public interface LedgerPartitionDao {
+
+    /**
+     * Creates the ledger_entry partition for the month unless it already exists, moving any rows for the month out
+     * of the default partition into it. Returns the number of rows moved, or -1 if the partition already existed.
+     */
+    int createMonthlyPartition(YearMonth month);
+}
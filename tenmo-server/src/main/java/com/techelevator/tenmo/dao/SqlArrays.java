@@ -0,0 +1,52 @@
+package com.techelevator.tenmo.dao;
+
+import java.util.Collection;
+
+/**
+ * Builds Postgres array literals, so id lists can be bound as one "= ANY(?::int[])" parameter.
+ */
+final class SqlArrays {
+
+    private SqlArrays() {
+    }
+
+    static String toIntArrayLiteral(Collection<Integer> ids) {
+        return toNumberArrayLiteral(ids);
+    }
+
+    static String toBigintArrayLiteral(Collection<Long> values) {
+        return toNumberArrayLiteral(values);
+    }
+
+    // Elements are double-quoted, so only quotes and backslashes inside them need escaping
+    static String toTextArrayLiteral(Collection<String> values) {
+        StringBuilder literal = new StringBuilder("{");
+        for (String value : values) {
+            if (literal.length() > 1) {
+                literal.append(',');
+            }
+            literal.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    literal.append('\\');
+                }
+                literal.append(c);
+            }
+            literal.append('"');
+        }
+        return literal.append('}').toString();
+    }
+
+    // A null element is written as null, which Postgres reads as SQL NULL
+    private static String toNumberArrayLiteral(Collection<? extends Number> values) {
+        StringBuilder literal = new StringBuilder("{");
+        for (Number value : values) {
+            if (literal.length() > 1) {
+                literal.append(',');
+            }
+            literal.append(value);
+        }
+        return literal.append('}').toString();
+    }
+}
@@ -1,18 +1,76 @@
 package com.techelevator.tenmo.dao;
 
+import com.techelevator.tenmo.enums.TransferDirectionEnum;
+import com.techelevator.tenmo.enums.TransferResultEnum;
+import com.techelevator.tenmo.model.BatchTransferDto;
+import com.techelevator.tenmo.model.BucksDto;
+import com.techelevator.tenmo.model.Money;
 import com.techelevator.tenmo.model.TransferDto;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface TransferDao {
 
-    Integer addTransfer(Integer transferTypeId, Integer transferStatusId, Integer accountFrom, Integer accountTo, Double amount);
+    Integer addTransfer(Integer transferTypeId, Integer transferStatusId, Integer accountFrom, Integer accountTo, Money amount);
+
+    /**
+     * Inserts one transfer per item, resolving every user id to its account in a single query.
+     * The result lines up with the input: a transfer id, or an error for items that could not be inserted.
+     */
+    List<BatchTransferDto> addTransfers(Integer transferTypeId, Integer transferStatusId, List<BucksDto> bucksDtos);
+
+    /**
+     * Takes the next count values of seq_transfer_id, for callers that need transfer ids before inserting.
+     */
+    List<Integer> reserveTransferIds(int count);
+
+    /**
+     * Inserts transfers whose ids were already reserved, as one JDBC batch. Ids that already exist are skipped,
+     * so replaying the same transfers is harmless.
+     */
+    void addTransfersWithIds(List<TransferDto> transfers);
 
     List<TransferDto> listByAccountId(Integer accountId);
 
+    /**
+     * Hands the same rows as listByAccountId to the consumer one at a time, read through a forward-only cursor,
+     * so memory does not grow with the size of the history. Holds a connection until the last row is consumed.
+     */
+    void streamByAccountId(Integer accountId, Consumer<TransferDto> consumer);
+
+    /**
+     * Up to limit transfers of the account with transfer_id below beforeTransferId (or from the newest if null),
+     * highest id first. statusId may be null for every status.
+     */
+    List<TransferDto> listPageByAccountId(Integer accountId, TransferDirectionEnum direction, Integer statusId,
+                                          Integer beforeTransferId, int limit);
+
     List<TransferDto> listByAccountIdAndStatus(Integer accountId,Integer transferStatusId);
 
     TransferDto getTransferById(Integer transferId);
     void updateTransferStatus(Integer transferId, Integer newStatusId);
 
+    /**
+     * Approves a pending transfer in one statement: flips the status, debits account_to if it can cover
+     * the amount and credits account_from. Nothing changes unless every condition holds.
+     */
+    TransferResultEnum approvePendingTransfer(Integer transferId);
+
+    /**
+     * Rejects a transfer only if it is still pending.
+     */
+    TransferResultEnum rejectPendingTransfer(Integer transferId);
+
+    /**
+     * Locks the given transfers that are still pending FOR UPDATE, in ascending transfer_id order.
+     * Only the transfer table is read, so the account names are left empty.
+     */
+    List<TransferDto> lockPendingTransfers(List<Integer> transferIds);
+
+    /**
+     * Moves every given transfer that is still pending to the new status and returns the ids that changed.
+     */
+    List<Integer> updatePendingTransferStatuses(List<Integer> transferIds, Integer newStatusId);
+
 }
@@ -1,7 +1,9 @@
 package com.techelevator.tenmo.dao;
 
+import com.techelevator.tenmo.model.BulkRegistrationDto;
 import com.techelevator.tenmo.model.RegisterUserDto;
 import com.techelevator.tenmo.model.User;
+import com.techelevator.tenmo.model.UserDirectoryEntryDto;
 
 import java.util.List;
 
@@ -11,7 +13,19 @@ public interface UserDao {
 
     User getUserById(int id);
 
+    /**
+     * Up to limit users with an id greater than afterUserId (all users if it is null), in user id order, with only
+     * their id and username.
+     */
+    List<UserDirectoryEntryDto> listDirectoryPage(Integer afterUserId, int limit);
+
     User getUserByUsername(String username);
 
     User createUser(RegisterUserDto user);
+
+    /**
+     * Creates many users and their accounts in one transaction. Usernames that are blank, too long, repeated or
+     * already taken are skipped and reported instead of failing the import.
+     */
+    BulkRegistrationDto createUsers(List<RegisterUserDto> users);
 }
@@ -0,0 +1,399 @@
+package com.techelevator.tenmo.dao;
+
+import com.techelevator.tenmo.exception.DaoException;
+import com.techelevator.tenmo.model.UserDirectoryEntryDto;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Finds users by username prefix in memory, from sorted UTF-8 blocks that reads search without locking.
+ */
+@Component
+public class UsernameIndex {
+
+    static final int DELTA_CAPACITY = 4096;
+    static final int MIDDLE_SHARE = 16;
+    private static final int LOAD_FETCH_SIZE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Snapshot snapshot = new Snapshot(Block.EMPTY, Block.EMPTY, Block.EMPTY);
+
+    public UsernameIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Reads every user in one query through a forward-only cursor. Rows come back in byte order of their UTF-8
+     * usernames, which is the index's own order, so loading is a plain append. Users added in the meantime are
+     * carried over.
+     */
+    @PostConstruct
+    public void load() {
+        String sql = "SELECT user_id, username FROM tenmo_user ORDER BY username COLLATE \"C\"";
+        Builder loaded;
+        try {
+            loaded = jdbcTemplate.execute((ConnectionCallback<Builder>) connection -> {
+                // Outside a transaction the driver would buffer the whole table before returning the first row
+                boolean autoCommit = connection.getAutoCommit();
+                if (autoCommit) {
+                    connection.setAutoCommit(false);
+                }
+                try (PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    statement.setFetchSize(LOAD_FETCH_SIZE);
+                    Builder builder = new Builder();
+                    try (ResultSet rs = statement.executeQuery()) {
+                        while (rs.next()) {
+                            builder.add(rs.getInt(1), rs.getString(2));
+                        }
+                    }
+                    return builder;
+                } finally {
+                    if (autoCommit) {
+                        connection.rollback();
+                        connection.setAutoCommit(true);
+                    }
+                }
+            });
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to server or database", e);
+        }
+        putAll(loaded);
+    }
+
+    /**
+     * Up to limit users whose username starts with prefix, in username order. The prefix is compared as given;
+     * usernames are stored trimmed and lower-cased.
+     */
+    public List<UserDirectoryEntryDto> search(String prefix, int limit) {
+        Snapshot current = snapshot;
+        Block main = current.main;
+        Block middle = current.middle;
+        Block delta = current.delta;
+        int i = main.lowerBound(prefix);
+        int j = middle.lowerBound(prefix);
+        int k = delta.lowerBound(prefix);
+        List<UserDirectoryEntryDto> matches = null;
+        while (matches == null || matches.size() < limit) {
+            boolean inMain = i < main.size && main.comparePrefix(i, prefix) == 0;
+            boolean inMiddle = j < middle.size && middle.comparePrefix(j, prefix) == 0;
+            boolean inDelta = k < delta.size && delta.comparePrefix(k, prefix) == 0;
+            if (!inMain && !inMiddle && !inDelta) {
+                break;
+            }
+            if (matches == null) {
+                matches = new ArrayList<>(Math.min(limit, 64));
+            }
+            // A username is in one block only, so the smallest of the three heads comes next
+            if (inMain && (!inMiddle || Block.compare(main, i, middle, j) < 0)
+                    && (!inDelta || Block.compare(main, i, delta, k) < 0)) {
+                matches.add(main.entry(i++));
+            } else if (inMiddle && (!inDelta || Block.compare(middle, j, delta, k) < 0)) {
+                matches.add(middle.entry(j++));
+            } else {
+                matches.add(delta.entry(k++));
+            }
+        }
+        return matches == null ? Collections.emptyList() : matches;
+    }
+
+    /**
+     * Adds a user. A username already in the index is left as it is.
+     */
+    public synchronized void put(int userId, String username) {
+        byte[] key = username.getBytes(StandardCharsets.UTF_8);
+        Snapshot current = snapshot;
+        if (current.main.contains(key) || current.middle.contains(key)) {
+            return;
+        }
+        Block delta = current.delta.insert(userId, key);
+        if (delta.size < DELTA_CAPACITY) {
+            snapshot = new Snapshot(current.main, current.middle, delta);
+            return;
+        }
+        Block middle = Block.merge(current.middle, delta);
+        // Rewriting main, ~200 MB at ten million users, happens about once per 600,000 registrations and holds the
+        // lock for several hundred ms, with the old and new main blocks in memory together
+        if (middle.size >= Math.max(DELTA_CAPACITY, current.main.size / MIDDLE_SHARE)) {
+            snapshot = new Snapshot(Block.merge(current.main, middle), Block.EMPTY, Block.EMPTY);
+        } else {
+            snapshot = new Snapshot(current.main, middle, Block.EMPTY);
+        }
+    }
+
+    /**
+     * Adds many users with one merge instead of one insert each.
+     */
+    synchronized void putAll(Builder users) {
+        Snapshot current = snapshot;
+        Block merged = Block.merge(Block.merge(Block.merge(current.main, current.middle), current.delta), users.build());
+        snapshot = new Snapshot(merged, Block.EMPTY, Block.EMPTY);
+    }
+
+    public int size() {
+        Snapshot current = snapshot;
+        return current.main.size + current.middle.size + current.delta.size;
+    }
+
+    /**
+     * Bytes held by the blocks' arrays, which is nearly all of the index's footprint.
+     */
+    public long memoryBytes() {
+        Snapshot current = snapshot;
+        return current.main.memoryBytes() + current.middle.memoryBytes() + current.delta.memoryBytes();
+    }
+
+    private static final class Snapshot {
+        private final Block main;
+        private final Block middle;
+        private final Block delta;
+
+        Snapshot(Block main, Block middle, Block delta) {
+            this.main = main;
+            this.middle = middle;
+            this.delta = delta;
+        }
+    }
+
+    /**
+     * Collects users in any order; build sorts them only if they did not arrive sorted.
+     */
+    static final class Builder {
+        private byte[] bytes = new byte[1024];
+        private int[] offsets = new int[65];
+        private int[] ids = new int[64];
+        private int size;
+        private boolean sorted = true;
+
+        void add(int userId, String username) {
+            byte[] key = username.getBytes(StandardCharsets.UTF_8);
+            add(userId, key, 0, key.length);
+        }
+
+        private void add(int userId, byte[] key, int from, int length) {
+            int start = offsets[size];
+            if (start + length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, start + length));
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                offsets = Arrays.copyOf(offsets, size * 2 + 1);
+            }
+            System.arraycopy(key, from, bytes, start, length);
+            ids[size] = userId;
+            offsets[size + 1] = start + length;
+            size++;
+            // Equal neighbours count as out of order too, so sorting drops the repeat
+            if (sorted && size > 1 && Arrays.compareUnsigned(bytes, offsets[size - 2], start, bytes, start, start + length) >= 0) {
+                sorted = false;
+            }
+        }
+
+        Block build() {
+            Block block = new Block(Arrays.copyOf(bytes, offsets[size]), Arrays.copyOf(offsets, size + 1),
+                    Arrays.copyOf(ids, size), size);
+            return sorted ? block : block.sorted();
+        }
+    }
+
+    /**
+     * Users sorted by the unsigned bytes of their UTF-8 usernames, which is also code point order. Username i is
+     * bytes[offsets[i]] up to bytes[offsets[i + 1]].
+     */
+    private static final class Block {
+        static final Block EMPTY = new Block(new byte[0], new int[1], new int[0], 0);
+
+        private final byte[] bytes;
+        private final int[] offsets;
+        private final int[] ids;
+        private final int size;
+
+        Block(byte[] bytes, int[] offsets, int[] ids, int size) {
+            this.bytes = bytes;
+            this.offsets = offsets;
+            this.ids = ids;
+            this.size = size;
+        }
+
+        /**
+         * The first entry that is not less than prefix, so the first that starts with it if any does.
+         */
+        int lowerBound(String prefix) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (comparePrefix(mid, prefix) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Compares the start of username i with prefix: 0 if the username starts with it. The prefix is encoded to
+         * UTF-8 a byte at a time instead of into a new array.
+         */
+        int comparePrefix(int i, String prefix) {
+            int position = offsets[i];
+            int end = offsets[i + 1];
+            for (int c = 0; c < prefix.length(); ) {
+                int codePoint = prefix.codePointAt(c);
+                c += Character.charCount(codePoint);
+                int length = codePoint < 0x80 ? 1 : codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+                for (int k = 0; k < length; k++) {
+                    if (position == end) {
+                        return -1;
+                    }
+                    int difference = (bytes[position++] & 0xFF) - utf8Byte(codePoint, length, k);
+                    if (difference != 0) {
+                        return difference;
+                    }
+                }
+            }
+            return 0;
+        }
+
+        boolean contains(byte[] key) {
+            int index = indexOf(key);
+            return index < size && compare(index, key) == 0;
+        }
+
+        /**
+         * A copy with the user inserted in order, or this block if the username is already in it.
+         */
+        Block insert(int userId, byte[] key) {
+            int index = indexOf(key);
+            if (index < size && compare(index, key) == 0) {
+                return this;
+            }
+            int at = offsets[index];
+            byte[] newBytes = new byte[bytes.length + key.length];
+            System.arraycopy(bytes, 0, newBytes, 0, at);
+            System.arraycopy(key, 0, newBytes, at, key.length);
+            System.arraycopy(bytes, at, newBytes, at + key.length, offsets[size] - at);
+            int[] newOffsets = new int[size + 2];
+            System.arraycopy(offsets, 0, newOffsets, 0, index + 1);
+            for (int i = index; i <= size; i++) {
+                newOffsets[i + 1] = offsets[i] + key.length;
+            }
+            int[] newIds = new int[size + 1];
+            System.arraycopy(ids, 0, newIds, 0, index);
+            newIds[index] = userId;
+            System.arraycopy(ids, index, newIds, index + 1, size - index);
+            return new Block(newBytes, newOffsets, newIds, size + 1);
+        }
+
+        UserDirectoryEntryDto entry(int i) {
+            return new UserDirectoryEntryDto(ids[i], new String(bytes, offsets[i], offsets[i + 1] - offsets[i], StandardCharsets.UTF_8));
+        }
+
+        long memoryBytes() {
+            return bytes.length + (long) (offsets.length + ids.length) * Integer.BYTES;
+        }
+
+        private int indexOf(byte[] key) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compare(mid, key) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private int compare(int i, byte[] key) {
+            return Arrays.compareUnsigned(bytes, offsets[i], offsets[i + 1], key, 0, key.length);
+        }
+
+        static int compare(Block a, int i, Block b, int j) {
+            return Arrays.compareUnsigned(a.bytes, a.offsets[i], a.offsets[i + 1], b.bytes, b.offsets[j], b.offsets[j + 1]);
+        }
+
+        /**
+         * Both blocks' users in one sorted block. A username in both is kept once, from a.
+         */
+        static Block merge(Block a, Block b) {
+            if (b.size == 0) {
+                return a;
+            }
+            if (a.size == 0) {
+                return b;
+            }
+            byte[] bytes = new byte[a.offsets[a.size] + b.offsets[b.size]];
+            int[] offsets = new int[a.size + b.size + 1];
+            int[] ids = new int[a.size + b.size];
+            int size = 0;
+            int i = 0;
+            int j = 0;
+            while (i < a.size || j < b.size) {
+                int order = i == a.size ? 1 : j == b.size ? -1 : compare(a, i, b, j);
+                Block from = order <= 0 ? a : b;
+                int index = order <= 0 ? i++ : j++;
+                if (order == 0) {
+                    j++;
+                }
+                int length = from.offsets[index + 1] - from.offsets[index];
+                System.arraycopy(from.bytes, from.offsets[index], bytes, offsets[size], length);
+                ids[size] = from.ids[index];
+                offsets[size + 1] = offsets[size] + length;
+                size++;
+            }
+            return new Block(size == ids.length ? bytes : Arrays.copyOf(bytes, offsets[size]),
+                    size == ids.length ? offsets : Arrays.copyOf(offsets, size + 1),
+                    size == ids.length ? ids : Arrays.copyOf(ids, size), size);
+        }
+
+        /**
+         * A sorted copy, for users that did not arrive in order. Duplicate usernames are kept once.
+         */
+        Block sorted() {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (x, y) -> compare(this, x, this, y));
+            Builder builder = new Builder();
+            for (int k = 0; k < size; k++) {
+                int i = order[k];
+                if (k == 0 || compare(this, order[k - 1], this, i) != 0) {
+                    builder.add(ids[i], bytes, offsets[i], offsets[i + 1] - offsets[i]);
+                }
+            }
+            return builder.build();
+        }
+
+        private static int utf8Byte(int codePoint, int length, int k) {
+            int shift = 6 * (length - 1 - k);
+            if (k > 0) {
+                return 0x80 | ((codePoint >> shift) & 0x3F);
+            }
+            switch (length) {
+                case 1:
+                    return codePoint;
+                case 2:
+                    return 0xC0 | (codePoint >> shift);
+                case 3:
+                    return 0xE0 | (codePoint >> shift);
+                default:
+                    return 0xF0 | (codePoint >> shift);
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.techelevator.tenmo.datasource;
+
+import com.techelevator.tenmo.security.SecurityUtils;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Routes read-only transactions to the replica and everything else, or any pinned user, to the primary.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Route { PRIMARY, REPLICA }
+
+    private final ReadYourWritesPins pins;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, ReadYourWritesPins pins) {
+        this.pins = pins;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(Route.PRIMARY, primary);
+        targets.put(Route.REPLICA, replica);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    /**
+     * The read-only flag is only set once the transaction has begun, so the connection must be fetched lazily.
+     */
+    public static DataSource wrap(DataSource primary, DataSource replica, ReadYourWritesPins pins) {
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primary, replica, pins));
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && !pins.isPinned(SecurityUtils.getCurrentUsername())) {
+            return Route.REPLICA;
+        }
+        return Route.PRIMARY;
+    }
+}
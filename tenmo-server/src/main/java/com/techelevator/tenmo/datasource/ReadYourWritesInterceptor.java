@@ -0,0 +1,40 @@
+package com.techelevator.tenmo.datasource;
+
+import com.techelevator.tenmo.security.SecurityUtils;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Pins the signed-in user to the primary for any request that may write.
+ */
+public class ReadYourWritesInterceptor implements HandlerInterceptor {
+
+    private final ReadYourWritesPins pins;
+
+    public ReadYourWritesInterceptor(ReadYourWritesPins pins) {
+        this.pins = pins;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // The body can reach the client before afterCompletion, so pin before the handler runs too
+        if (mayWrite(request)) {
+            pins.pin(SecurityUtils.getCurrentUsername());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (mayWrite(request)) {
+            pins.pin(SecurityUtils.getCurrentUsername());
+        }
+    }
+
+    private static boolean mayWrite(HttpServletRequest request) {
+        String method = request.getMethod();
+        return !"GET".equals(method) && !"HEAD".equals(method) && !"OPTIONS".equals(method);
+    }
+}
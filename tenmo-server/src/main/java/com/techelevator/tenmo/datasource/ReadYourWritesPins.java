@@ -0,0 +1,54 @@
+package com.techelevator.tenmo.datasource;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Users who wrote within the last window. Their reads go to the primary until the window has passed, so they see
+ * their own writes even while the replica is behind.
+ */
+public class ReadYourWritesPins {
+
+    private static final int SWEEP_EVERY = 1024;
+
+    private final ConcurrentHashMap<String, Long> pinnedUntil = new ConcurrentHashMap<>();
+    private final AtomicInteger pinsSinceSweep = new AtomicInteger();
+    private final long windowNanos;
+
+    public ReadYourWritesPins(long windowMillis) {
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+    }
+
+    public void pin(String username) {
+        if (username == null || windowNanos <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        pinnedUntil.put(username, now + windowNanos);
+        // Users who never read again would otherwise stay in the map for good
+        if (pinsSinceSweep.incrementAndGet() >= SWEEP_EVERY) {
+            pinsSinceSweep.set(0);
+            pinnedUntil.values().removeIf(until -> until - now <= 0);
+        }
+    }
+
+    public boolean isPinned(String username) {
+        if (username == null) {
+            return false;
+        }
+        Long until = pinnedUntil.get(username);
+        if (until == null) {
+            return false;
+        }
+        if (until - System.nanoTime() > 0) {
+            return true;
+        }
+        pinnedUntil.remove(username, until);
+        return false;
+    }
+
+    public int size() {
+        return pinnedUntil.size();
+    }
+}
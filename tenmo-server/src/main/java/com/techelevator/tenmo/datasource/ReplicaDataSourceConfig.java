@@ -0,0 +1,77 @@
+package com.techelevator.tenmo.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+
+/**
+ * Primary and replica pools behind a ReadWriteRoutingDataSource, when tenmo.datasource.replica.url is set.
+ */
+@Configuration
+@ConditionalOnProperty("tenmo.datasource.replica.url")
+public class ReplicaDataSourceConfig implements WebMvcConfigurer, DisposableBean {
+
+    private final ReadYourWritesPins pins;
+    private final Binder binder;
+    private HikariDataSource primary;
+    private HikariDataSource replica;
+
+    public ReplicaDataSourceConfig(Environment environment,
+                                   @Value("${tenmo.datasource.read-your-writes-millis:2000}") long readYourWritesMillis) {
+        this.pins = new ReadYourWritesPins(readYourWritesMillis);
+        this.binder = Binder.get(environment);
+    }
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties, ObjectProvider<MeterRegistry> meterRegistry,
+                                 @Value("${tenmo.datasource.replica.url}") String replicaUrl,
+                                 @Value("${tenmo.datasource.replica.username:}") String replicaUsername,
+                                 @Value("${tenmo.datasource.replica.password:}") String replicaPassword) {
+        // The pools are not beans: Boot would run its DataSource initializer against each, which needs this bean
+        primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName("primary");
+        meterRegistry.ifAvailable(primary::setMetricRegistry);
+
+        // The replica normally shares the primary's credentials
+        replica = DataSourceBuilder.create().type(HikariDataSource.class)
+                .url(replicaUrl)
+                .username(replicaUsername.isEmpty() ? properties.determineUsername() : replicaUsername)
+                .password(replicaPassword.isEmpty() ? properties.determinePassword() : replicaPassword)
+                .build();
+        binder.bind("tenmo.datasource.replica.hikari", Bindable.ofInstance(replica));
+        replica.setPoolName("replica");
+        meterRegistry.ifAvailable(replica::setMetricRegistry);
+
+        return ReadWriteRoutingDataSource.wrap(primary, replica, pins);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ReadYourWritesInterceptor(pins));
+    }
+
+    @Override
+    public void destroy() {
+        if (primary != null) {
+            primary.close();
+        }
+        if (replica != null) {
+            replica.close();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.techelevator.tenmo.enums;
+
+/**
+ * Which side of a transfer an account is on when filtering its history.
+ */
+public enum TransferDirectionEnum {
+    ALL,
+    FROM,
+    TO,
+    ;
+
+    public boolean includesFrom() {
+        return this != TO;
+    }
+
+    public boolean includesTo() {
+        return this != FROM;
+    }
+}
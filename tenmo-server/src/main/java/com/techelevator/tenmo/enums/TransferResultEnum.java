@@ -0,0 +1,21 @@
+package com.techelevator.tenmo.enums;
+
+import lombok.Getter;
+
+/**
+ * Outcome of a compare-and-set status change on a transfer, so callers can tell which condition failed.
+ */
+@Getter
+public enum TransferResultEnum {
+    SUCCESS(true),
+    NOT_FOUND(false),
+    NOT_PENDING(false),
+    INSUFFICIENT_BALANCE(false),
+    ;
+
+    private final boolean success;
+
+    TransferResultEnum(boolean success) {
+        this.success = success;
+    }
+}
@@ -0,0 +1,31 @@
+package com.techelevator.tenmo.journal;
+
+import com.techelevator.tenmo.model.Money;
+
+/**
+ * Used when tenmo.journal.enabled is false: records nothing and never runs journal-first.
+ */
+class DisabledTransferJournal implements TransferJournal {
+
+    @Override
+    public void transferCreated(Integer transferId, Integer transferTypeId, Integer transferStatusId, Integer accountFrom, Integer accountTo, Money amount) {
+    }
+
+    @Override
+    public void statusChanged(Integer transferId, Integer transferStatusId) {
+    }
+
+    @Override
+    public boolean isJournalFirst() {
+        return false;
+    }
+
+    @Override
+    public Integer createTransfer(Integer transferTypeId, Integer transferStatusId, Integer accountFrom, Integer accountTo, Money amount) {
+        throw new IllegalStateException("The transfer journal is disabled");
+    }
+
+    @Override
+    public void awaitApplied() {
+    }
+}
@@ -0,0 +1,29 @@
+package com.techelevator.tenmo.journal;
+
+import com.techelevator.tenmo.dao.TransferDao;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+@Configuration
+public class JournalConfig {
+
+    @Bean
+    public TransferJournal transferJournal(TransferDao transferDao,
+                                           @Value("${tenmo.journal.enabled:false}") boolean enabled,
+                                           @Value("${tenmo.journal.directory:journal}") String directory,
+                                           @Value("${tenmo.journal.segment-bytes:67108864}") int segmentBytes,
+                                           @Value("${tenmo.journal.group-commit-interval-millis:2}") long groupCommitIntervalMillis,
+                                           @Value("${tenmo.journal.group-commit-bytes:65536}") int groupCommitBytes,
+                                           @Value("${tenmo.journal.retained-segments:4}") int retainedSegments,
+                                           @Value("${tenmo.journal.journal-first:false}") boolean journalFirst) throws IOException {
+        if (!enabled) {
+            return TransferJournal.DISABLED;
+        }
+        return new MappedTransferJournal(transferDao, Paths.get(directory), segmentBytes, groupCommitIntervalMillis,
+                groupCommitBytes, retainedSegments, journalFirst);
+    }
+}
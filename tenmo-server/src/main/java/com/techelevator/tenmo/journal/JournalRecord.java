@@ -0,0 +1,126 @@
+package com.techelevator.tenmo.journal;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * One fixed-size journal entry: body length, CRC32 of the body, then the body.
+ */
+public class JournalRecord {
+
+    /** A transfer that is already in Postgres. */
+    public static final byte TRANSFER_CREATED = 1;
+    /** A journal-first transfer that still has to be written to Postgres. */
+    public static final byte TRANSFER_CREATED_UNAPPLIED = 2;
+    /** A status change that is already in Postgres. */
+    public static final byte STATUS_CHANGED = 3;
+
+    static final int BODY_BYTES = 8 + 8 + 1 + 4 * 5 + 8;
+    static final int HEADER_BYTES = 4 + 4;
+    public static final int RECORD_BYTES = HEADER_BYTES + BODY_BYTES;
+
+    private long sequence;
+    private final long timestampMillis;
+    private final byte type;
+    private final int transferId;
+    private final int transferTypeId;
+    private final int transferStatusId;
+    private final int accountFrom;
+    private final int accountTo;
+    private final long amountCents;
+
+    public JournalRecord(long sequence, long timestampMillis, byte type, int transferId, int transferTypeId,
+                         int transferStatusId, int accountFrom, int accountTo, long amountCents) {
+        this.sequence = sequence;
+        this.timestampMillis = timestampMillis;
+        this.type = type;
+        this.transferId = transferId;
+        this.transferTypeId = transferTypeId;
+        this.transferStatusId = transferStatusId;
+        this.accountFrom = accountFrom;
+        this.accountTo = accountTo;
+        this.amountCents = amountCents;
+    }
+
+    void writeTo(ByteBuffer buffer) {
+        int start = buffer.position();
+        buffer.putInt(BODY_BYTES);
+        buffer.putInt(0);
+        buffer.putLong(sequence);
+        buffer.putLong(timestampMillis);
+        buffer.put(type);
+        buffer.putInt(transferId);
+        buffer.putInt(transferTypeId);
+        buffer.putInt(transferStatusId);
+        buffer.putInt(accountFrom);
+        buffer.putInt(accountTo);
+        buffer.putLong(amountCents);
+        buffer.putInt(start + 4, checksum(buffer, start + HEADER_BYTES));
+    }
+
+    /**
+     * Reads the record at the buffer's position and advances past it. Returns null, leaving the position alone,
+     * at the end of the written data or at a torn or corrupt record.
+     */
+    static JournalRecord readFrom(ByteBuffer buffer) {
+        int start = buffer.position();
+        if (buffer.remaining() < RECORD_BYTES || buffer.getInt(start) != BODY_BYTES) {
+            return null;
+        }
+        if (buffer.getInt(start + 4) != checksum(buffer, start + HEADER_BYTES)) {
+            return null;
+        }
+        buffer.position(start + HEADER_BYTES);
+        JournalRecord record = new JournalRecord(buffer.getLong(), buffer.getLong(), buffer.get(), buffer.getInt(),
+                buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getLong());
+        return record;
+    }
+
+    private static int checksum(ByteBuffer buffer, int bodyStart) {
+        CRC32 crc = new CRC32();
+        ByteBuffer body = buffer.duplicate();
+        body.position(bodyStart).limit(bodyStart + BODY_BYTES);
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    public byte getType() {
+        return type;
+    }
+
+    public int getTransferId() {
+        return transferId;
+    }
+
+    public int getTransferTypeId() {
+        return transferTypeId;
+    }
+
+    public int getTransferStatusId() {
+        return transferStatusId;
+    }
+
+    public int getAccountFrom() {
+        return accountFrom;
+    }
+
+    public int getAccountTo() {
+        return accountTo;
+    }
+
+    public long getAmountCents() {
+        return amountCents;
+    }
+}
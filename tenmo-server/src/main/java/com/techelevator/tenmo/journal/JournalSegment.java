@@ -0,0 +1,113 @@
+package com.techelevator.tenmo.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * A fixed-size, pre-allocated segment file mapped into memory. Records are appended at the buffer position.
+ */
+class JournalSegment {
+
+    private static final String PREFIX = "transfer-journal-";
+    private static final String SUFFIX = ".seg";
+
+    private final Path path;
+    private final long firstSequence;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private long lastSequence;
+
+    private JournalSegment(Path path, long firstSequence, int segmentBytes) throws IOException {
+        this.path = path;
+        this.firstSequence = firstSequence;
+        this.lastSequence = firstSequence - 1;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() < segmentBytes) {
+            channel.truncate(segmentBytes);
+            channel.position(segmentBytes - 1);
+            channel.write(ByteBuffer.wrap(new byte[1]));
+        }
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+    }
+
+    static JournalSegment create(Path directory, long firstSequence, int segmentBytes) throws IOException {
+        return new JournalSegment(directory.resolve(String.format("%s%020d%s", PREFIX, firstSequence, SUFFIX)), firstSequence, segmentBytes);
+    }
+
+    static JournalSegment open(Path path, int segmentBytes) throws IOException {
+        String name = path.getFileName().toString();
+        long firstSequence = Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        return new JournalSegment(path, firstSequence, segmentBytes);
+    }
+
+    static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+    }
+
+    /**
+     * Scans from the start, adding every intact record to the list and leaving the buffer positioned after the
+     * last one. Anything after that (a torn write from a crash) is zeroed so it cannot be read back later.
+     */
+    void recover(List<JournalRecord> records) {
+        buffer.position(0);
+        JournalRecord record;
+        while ((record = JournalRecord.readFrom(buffer)) != null) {
+            lastSequence = record.getSequence();
+            records.add(record);
+        }
+        int end = buffer.position();
+        for (int i = end; i < Math.min(buffer.limit(), end + JournalRecord.RECORD_BYTES); i++) {
+            buffer.put(i, (byte) 0);
+        }
+    }
+
+    /**
+     * Adds every record written so far to the list without moving the append position.
+     */
+    void read(List<JournalRecord> records) {
+        ByteBuffer view = buffer.duplicate();
+        view.flip();
+        JournalRecord record;
+        while ((record = JournalRecord.readFrom(view)) != null) {
+            records.add(record);
+        }
+    }
+
+    boolean hasRoom() {
+        // keep room for a zero length after the last record so readers always find the end marker
+        return buffer.remaining() >= JournalRecord.RECORD_BYTES + 4;
+    }
+
+    void append(JournalRecord record) {
+        record.writeTo(buffer);
+        lastSequence = record.getSequence();
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    void close() throws IOException {
+        channel.close();
+    }
+
+    void delete() throws IOException {
+        channel.close();
+        Files.deleteIfExists(path);
+    }
+
+    long getFirstSequence() {
+        return firstSequence;
+    }
+
+    long getLastSequence() {
+        return lastSequence;
+    }
+}
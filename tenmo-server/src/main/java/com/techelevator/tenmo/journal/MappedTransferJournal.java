@@ -0,0 +1,523 @@
+package com.techelevator.tenmo.journal;
+
+import com.techelevator.tenmo.dao.TransferDao;
+import com.techelevator.tenmo.model.Money;
+import com.techelevator.tenmo.model.TransferDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * TransferJournal backed by memory-mapped segment files, forced to disk by group commit.
+ */
+public class MappedTransferJournal implements TransferJournal, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(MappedTransferJournal.class);
+    private static final String CHECKPOINT = "checkpoint";
+    private static final String QUARANTINE = "quarantine";
+    private static final int APPLY_BATCH = 512;
+    private static final int RESERVED_ID_BLOCK = 128;
+    private static final long APPLY_RETRY_MILLIS = 1000;
+
+    private final TransferDao transferDao;
+    private final Path directory;
+    private final int segmentBytes;
+    private final long groupCommitIntervalNanos;
+    private final int groupCommitBytes;
+    private final int retainedSegments;
+    private final boolean journalFirst;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushWanted = lock.newCondition();
+    private final Condition durable = lock.newCondition();
+    private final Condition applied = lock.newCondition();
+
+    // guarded by lock
+    private final Deque<JournalSegment> segments = new ArrayDeque<>();
+    private final Set<JournalSegment> dirtySegments = new LinkedHashSet<>();
+    private JournalSegment current;
+    private long lastSequence;
+    private long durableSequence;
+    private long lastUnappliedSequence;
+    private long appliedSequence;
+    private int unflushedBytes;
+    private boolean closed;
+
+    private final BlockingQueue<JournalRecord> applyQueue = new LinkedBlockingQueue<>();
+    private final Deque<Integer> reservedIds = new ArrayDeque<>();
+    // A lock rather than synchronized: refilling queries the database, which would pin a virtual thread's carrier
+    private final ReentrantLock reservedIdsLock = new ReentrantLock();
+    private final AtomicLong quarantined = new AtomicLong();
+    private final Thread flusher;
+    private final Thread applier;
+
+    public MappedTransferJournal(TransferDao transferDao, Path directory, int segmentBytes, long groupCommitIntervalMillis,
+                                 int groupCommitBytes, int retainedSegments, boolean journalFirst) throws IOException {
+        if (segmentBytes < JournalRecord.RECORD_BYTES * 2) {
+            throw new IllegalArgumentException("tenmo.journal.segment-bytes is too small: " + segmentBytes);
+        }
+        this.transferDao = transferDao;
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.groupCommitIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, groupCommitIntervalMillis));
+        this.groupCommitBytes = groupCommitBytes;
+        this.retainedSegments = Math.max(1, retainedSegments);
+        this.journalFirst = journalFirst;
+
+        Files.createDirectories(directory);
+        recover();
+
+        flusher = new Thread(this::flushLoop, "transfer-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+        applier = new Thread(this::applyLoop, "transfer-journal-applier");
+        applier.setDaemon(true);
+        applier.start();
+    }
+
+    @Override
+    public void transferCreated(Integer transferId, Integer transferTypeId, Integer transferStatusId, Integer accountFrom, Integer accountTo, Money amount) {
+        append(new JournalRecord(0, System.currentTimeMillis(), JournalRecord.TRANSFER_CREATED, transferId, transferTypeId,
+                transferStatusId, accountFrom, accountTo, amount.getCents()));
+    }
+
+    @Override
+    public void statusChanged(Integer transferId, Integer transferStatusId) {
+        append(new JournalRecord(0, System.currentTimeMillis(), JournalRecord.STATUS_CHANGED, transferId, 0,
+                transferStatusId, 0, 0, 0));
+    }
+
+    @Override
+    public boolean isJournalFirst() {
+        return journalFirst;
+    }
+
+    @Override
+    public Integer createTransfer(Integer transferTypeId, Integer transferStatusId, Integer accountFrom, Integer accountTo, Money amount) {
+        if (!journalFirst) {
+            throw new IllegalStateException("tenmo.journal.journal-first is not enabled");
+        }
+        int transferId = nextTransferId();
+        JournalRecord record = new JournalRecord(0, System.currentTimeMillis(), JournalRecord.TRANSFER_CREATED_UNAPPLIED,
+                transferId, transferTypeId, transferStatusId, accountFrom, accountTo, amount.getCents());
+        awaitDurable(append(record));
+        return transferId;
+    }
+
+    @Override
+    public void awaitApplied() {
+        lock.lock();
+        try {
+            long target = lastUnappliedSequence;
+            while (appliedSequence < target) {
+                checkOpen();
+                applied.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Calls the consumer with every record still on disk, oldest first. Meant for tools and tests; it holds the
+     * append lock for the whole scan.
+     */
+    public void forEachRecord(Consumer<JournalRecord> consumer) {
+        lock.lock();
+        try {
+            for (JournalSegment segment : segments) {
+                List<JournalRecord> records = new ArrayList<>();
+                segment.read(records);
+                records.forEach(consumer);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getLastSequence() {
+        lock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Journal-first transfers set aside since startup because Postgres rejected them.
+     */
+    public long getQuarantinedCount() {
+        return quarantined.get();
+    }
+
+    public int getSegmentCount() {
+        lock.lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long append(JournalRecord record) {
+        lock.lock();
+        try {
+            checkOpen();
+            if (!current.hasRoom()) {
+                roll();
+            }
+            record.setSequence(++lastSequence);
+            current.append(record);
+            dirtySegments.add(current);
+            unflushedBytes += JournalRecord.RECORD_BYTES;
+            if (record.getType() == JournalRecord.TRANSFER_CREATED_UNAPPLIED) {
+                lastUnappliedSequence = record.getSequence();
+                applyQueue.add(record);
+            }
+            // Wake the flusher when a group starts, and again when it is big enough to commit early
+            if (unflushedBytes == JournalRecord.RECORD_BYTES || unflushedBytes >= groupCommitBytes) {
+                flushWanted.signal();
+            }
+            return record.getSequence();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void awaitDurable(long sequence) {
+        lock.lock();
+        try {
+            while (durableSequence < sequence) {
+                checkOpen();
+                durable.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void roll() {
+        try {
+            current = JournalSegment.create(directory, lastSequence + 1, segmentBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to start a new journal segment", e);
+        }
+        segments.addLast(current);
+        compact();
+    }
+
+    /**
+     * Deletes the oldest segments beyond the retained count, as long as every journal-first transfer in them has
+     * been applied. Called with the lock held.
+     */
+    private void compact() {
+        long safeSequence = lastUnappliedSequence > appliedSequence ? appliedSequence : lastSequence;
+        while (segments.size() > retainedSegments) {
+            JournalSegment oldest = segments.peekFirst();
+            if (oldest == current || oldest.getLastSequence() > safeSequence || dirtySegments.contains(oldest)) {
+                return;
+            }
+            segments.removeFirst();
+            try {
+                oldest.delete();
+            } catch (IOException e) {
+                log.warn("Unable to delete journal segment", e);
+            }
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            List<JournalSegment> toForce;
+            long target;
+            lock.lock();
+            try {
+                while (!closed && unflushedBytes == 0) {
+                    flushWanted.awaitUninterruptibly();
+                }
+                if (unflushedBytes == 0) {
+                    return;
+                }
+                // Give other appenders up to one interval to join this commit, unless the batch is already big enough
+                long remaining = groupCommitIntervalNanos;
+                while (!closed && unflushedBytes < groupCommitBytes && remaining > 0) {
+                    try {
+                        remaining = flushWanted.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        remaining = 0;
+                    }
+                }
+                toForce = new ArrayList<>(dirtySegments);
+                target = lastSequence;
+                unflushedBytes = 0;
+            } finally {
+                lock.unlock();
+            }
+
+            for (JournalSegment segment : toForce) {
+                segment.force();
+            }
+
+            lock.lock();
+            try {
+                // A segment that took more appends while it was being forced stays dirty for the next round
+                for (JournalSegment segment : toForce) {
+                    if (segment.getLastSequence() <= target) {
+                        dirtySegments.remove(segment);
+                    }
+                }
+                durableSequence = target;
+                durable.signalAll();
+                compact();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void applyLoop() {
+        List<JournalRecord> batch = new ArrayList<>(APPLY_BATCH);
+        while (true) {
+            try {
+                if (batch.isEmpty()) {
+                    JournalRecord first = applyQueue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        if (isClosed()) {
+                            return;
+                        }
+                        continue;
+                    }
+                    batch.add(first);
+                    applyQueue.drainTo(batch, APPLY_BATCH - 1);
+                }
+                long last = batch.get(batch.size() - 1).getSequence();
+                awaitDurable(last);
+                try {
+                    transferDao.addTransfersWithIds(batch.stream().map(MappedTransferJournal::toTransferDto).collect(Collectors.toList()));
+                } catch (DataIntegrityViolationException e) {
+                    // A constraint violation fails the same way on every retry, so find the bad records and set them aside
+                    applyEach(batch);
+                }
+                markApplied(last);
+                batch.clear();
+            } catch (InterruptedException e) {
+                return;
+            } catch (IllegalStateException e) {
+                // closed while waiting for durability; the checkpoint makes the next start replay this batch
+                return;
+            } catch (RuntimeException e) {
+                log.error("Unable to apply journaled transfers, retrying", e);
+                try {
+                    Thread.sleep(APPLY_RETRY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies the batch one record at a time, quarantining the records Postgres rejects. Any other failure is
+     * thrown so the whole batch is retried; records already inserted are skipped then.
+     */
+    private void applyEach(List<JournalRecord> batch) {
+        for (JournalRecord record : batch) {
+            try {
+                transferDao.addTransfersWithIds(Collections.singletonList(toTransferDto(record)));
+            } catch (DataIntegrityViolationException e) {
+                quarantine(record, e);
+            }
+        }
+    }
+
+    /**
+     * Logs a journal-first transfer that can never be inserted and appends it to the quarantine file, one CSV line
+     * of sequence, transfer id, type, status, account from, account to and cents, for someone to repair by hand.
+     * The client was already given the transfer id, but the transfer will not show up anywhere.
+     */
+    private void quarantine(JournalRecord record, DataIntegrityViolationException e) {
+        String line = record.getSequence() + "," + record.getTransferId() + "," + record.getTransferTypeId() + ","
+                + record.getTransferStatusId() + "," + record.getAccountFrom() + "," + record.getAccountTo() + ","
+                + record.getAmountCents() + System.lineSeparator();
+        log.error("Quarantined journaled transfer {} that Postgres rejected: {}", record.getTransferId(),
+                e.getMostSpecificCause().getMessage());
+        quarantined.incrementAndGet();
+        try {
+            Files.write(directory.resolve(QUARANTINE), line.getBytes(StandardCharsets.US_ASCII),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+        } catch (IOException io) {
+            log.error("Unable to write journal quarantine file, transfer was {}", line.trim(), io);
+        }
+    }
+
+    private void markApplied(long sequence) {
+        lock.lock();
+        try {
+            appliedSequence = sequence;
+            writeCheckpoint(lastUnappliedSequence > appliedSequence ? appliedSequence : lastSequence);
+            applied.signalAll();
+            compact();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int nextTransferId() {
+        reservedIdsLock.lock();
+        try {
+            if (reservedIds.isEmpty()) {
+                reservedIds.addAll(transferDao.reserveTransferIds(RESERVED_ID_BLOCK));
+            }
+            return reservedIds.removeFirst();
+        } finally {
+            reservedIdsLock.unlock();
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            paths = files.filter(JournalSegment::isSegment).sorted().collect(Collectors.toList());
+        }
+        long checkpoint = readCheckpoint();
+        List<JournalRecord> unapplied = new ArrayList<>();
+        for (Path path : paths) {
+            JournalSegment segment = JournalSegment.open(path, segmentBytes);
+            List<JournalRecord> records = new ArrayList<>();
+            segment.recover(records);
+            segments.addLast(segment);
+            for (JournalRecord record : records) {
+                lastSequence = record.getSequence();
+                if (record.getType() == JournalRecord.TRANSFER_CREATED_UNAPPLIED && record.getSequence() > checkpoint) {
+                    unapplied.add(record);
+                }
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.addLast(JournalSegment.create(directory, 1, segmentBytes));
+        }
+        current = segments.peekLast();
+        durableSequence = lastSequence;
+        appliedSequence = checkpoint;
+        // The inserts skip existing ids, so replaying records the applier already wrote is harmless
+        if (!unapplied.isEmpty()) {
+            log.info("Replaying {} journaled transfers after sequence {}", unapplied.size(), checkpoint);
+            lastUnappliedSequence = unapplied.get(unapplied.size() - 1).getSequence();
+            applyQueue.addAll(unapplied);
+        }
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path path = directory.resolve(CHECKPOINT);
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        return ByteBuffer.wrap(Files.readAllBytes(path)).getLong();
+    }
+
+    private void writeCheckpoint(long sequence) {
+        Path temp = directory.resolve(CHECKPOINT + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.allocate(8).putLong(0, sequence));
+            channel.force(true);
+        } catch (IOException e) {
+            // Only costs a longer replay after a restart
+            log.warn("Unable to write journal checkpoint", e);
+            return;
+        }
+        try {
+            Files.move(temp, directory.resolve(CHECKPOINT), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.warn("Unable to write journal checkpoint", e);
+        }
+    }
+
+    private static TransferDto toTransferDto(JournalRecord record) {
+        TransferDto transfer = new TransferDto();
+        transfer.setTransferId(record.getTransferId());
+        transfer.setTransferTypeId(record.getTransferTypeId());
+        transfer.setTransferStatusId(record.getTransferStatusId());
+        transfer.setAccountFrom(record.getAccountFrom());
+        transfer.setAccountTo(record.getAccountTo());
+        transfer.setAmount(Money.ofCents(record.getAmountCents()));
+        return transfer;
+    }
+
+    private boolean isClosed() {
+        lock.lock();
+        try {
+            return closed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("The transfer journal is closed");
+        }
+    }
+
+    /**
+     * Forces everything appended to disk and lets the applier finish what is already queued before stopping.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            flushWanted.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+            applier.join(TimeUnit.SECONDS.toMillis(10));
+            applier.interrupt();
+            applier.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lock.lock();
+        try {
+            durable.signalAll();
+            applied.signalAll();
+            for (JournalSegment segment : segments) {
+                segment.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
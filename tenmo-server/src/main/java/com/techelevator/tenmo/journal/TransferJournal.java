@@ -0,0 +1,37 @@
+package com.techelevator.tenmo.journal;
+
+import com.techelevator.tenmo.model.Money;
+
+/**
+ * Append-only record of every transfer creation and status change made by TransferServiceImpl.
+ */
+public interface TransferJournal {
+
+    TransferJournal DISABLED = new DisabledTransferJournal();
+
+    /**
+     * Records a transfer that has already been inserted into Postgres. Does not wait for the record to reach disk.
+     */
+    void transferCreated(Integer transferId, Integer transferTypeId, Integer transferStatusId, Integer accountFrom, Integer accountTo, Money amount);
+
+    /**
+     * Records a status change that has already been committed to Postgres. Does not wait for the record to reach disk.
+     */
+    void statusChanged(Integer transferId, Integer transferStatusId);
+
+    /**
+     * True when new transfers are acknowledged once journaled and written to Postgres afterwards.
+     */
+    boolean isJournalFirst();
+
+    /**
+     * Journal-first insert: reserves a transfer id, appends the transfer and returns once it is on disk.
+     * The Postgres insert happens in the background and is replayed from the journal after a crash.
+     */
+    Integer createTransfer(Integer transferTypeId, Integer transferStatusId, Integer accountFrom, Integer accountTo, Money amount);
+
+    /**
+     * Blocks until every journal-first transfer appended so far is in Postgres.
+     */
+    void awaitApplied();
+}
@@ -0,0 +1,42 @@
+package com.techelevator.tenmo.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * Times every public method of the Jdbc*Dao classes as tenmo.dao, tagged with the DAO, the method and the exception
+ * it threw, if any. Calls a DAO makes to its own methods are not timed separately.
+ */
+@Aspect
+@Component
+public class DaoMetricsAspect {
+
+    private final MeterRegistry registry;
+
+    public DaoMetricsAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("execution(public * com.techelevator.tenmo.dao.Jdbc*Dao.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(registry);
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("tenmo.dao")
+                    .description("Time spent in DAO methods, including waiting for a connection")
+                    .tag("dao", joinPoint.getSignature().getDeclaringType().getSimpleName())
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("exception", exception)
+                    .register(registry));
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.techelevator.tenmo.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times hashing and verification as tenmo.password, so CPU spent on BCrypt shows up apart from database time.
+ * Verifications are tagged with whether the password matched.
+ */
+public class TimedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final Timer hash;
+    private final Timer match;
+    private final Timer mismatch;
+
+    public TimedPasswordEncoder(PasswordEncoder delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.hash = timer(registry, "hash", "none");
+        this.match = timer(registry, "verify", "match");
+        this.mismatch = timer(registry, "verify", "mismatch");
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return hash.record(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        long start = System.nanoTime();
+        boolean matches = delegate.matches(rawPassword, encodedPassword);
+        (matches ? match : mismatch).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return matches;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private static Timer timer(MeterRegistry registry, String operation, String result) {
+        return Timer.builder("tenmo.password")
+                .description("Time spent hashing and verifying passwords")
+                .tag("operation", operation)
+                .tag("result", result)
+                .register(registry);
+    }
+}
@@ -12,6 +12,6 @@ import lombok.Setter;
 public class Account {
     private Integer accountId;
     private Integer userId;
-    private double balance;
+    private Money balance;
 
 }
@@ -0,0 +1,18 @@
+package com.techelevator.tenmo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One item of a batch transfer response: the new transfer id, or the reason the item was skipped.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferDto {
+    private Integer transferId;
+    private String error;
+}
@@ -1,15 +1,21 @@
 package com.techelevator.tenmo.model;
 
+import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
 
 
 @Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
 public class BucksDto {
 
     Integer fromUserId;
 
     Integer toUserId;
 
-    Double amount;
+    Money amount;
 
 }
@@ -0,0 +1,21 @@
+package com.techelevator.tenmo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk registration: how many users were created, and the usernames left out because they were blank,
+ * too long, repeated in the import or already taken.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkRegistrationDto {
+    private int created;
+    private List<String> skipped;
+}
@@ -0,0 +1,17 @@
+package com.techelevator.tenmo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyStatsDto {
+    private long hits;
+    private long misses;
+    private long evictions;
+    private int size;
+}
@@ -17,5 +17,5 @@ public class TransferDto {
     private String accountFromName;
     private Integer accountTo;
     private String accountToName;
-    private double amount;
+    private Money amount;
 }
@@ -0,0 +1,18 @@
+package com.techelevator.tenmo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * The public part of a user: enough to pick a counterparty, and nothing else.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserDirectoryEntryDto {
+    private int id;
+    private String username;
+}
@@ -0,0 +1,20 @@
+package com.techelevator.tenmo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * One page of the user directory in user id order. nextCursor is null on the last page.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserDirectoryPageDto {
+    private List<UserDirectoryEntryDto> users;
+    private String nextCursor;
+}
@@ -0,0 +1,121 @@
+package com.techelevator.tenmo.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checks login passwords on a small bounded pool of its own instead of on request threads.
+ */
+@Component
+public class PasswordVerifier implements DisposableBean {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor pool;
+    private final Counter rejected;
+    // Hash checked for unknown usernames, so they take as long to turn down as a wrong password
+    private volatile String unknownUserHash;
+
+    public PasswordVerifier(PasswordEncoder passwordEncoder, MeterRegistry meterRegistry,
+                            @Value("${tenmo.login.verify-threads:0}") int threads,
+                            @Value("${tenmo.login.queue-capacity:50}") int queueCapacity) {
+        this.passwordEncoder = passwordEncoder;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(queueCapacity, 1)), task -> {
+                    Thread thread = new Thread(task, "password-verifier-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.rejected = Counter.builder("tenmo.login.rejected")
+                .description("Logins turned away because too many password checks were waiting")
+                .register(meterRegistry);
+        Gauge.builder("tenmo.login.queue", pool, p -> p.getQueue().size())
+                .description("Password checks waiting for a thread")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Completes with whether rawPassword matches encodedPassword, on one of the pool's threads. A null
+     * encodedPassword (no such user) completes with false after the same amount of work.
+     *
+     * @throws RejectedExecutionException if tenmo.login.queue-capacity checks are already waiting
+     */
+    public CompletableFuture<Boolean> matches(CharSequence rawPassword, String encodedPassword) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                if (encodedPassword == null) {
+                    passwordEncoder.matches(rawPassword, unknownUserHash());
+                    return false;
+                }
+                return passwordEncoder.matches(rawPassword, encodedPassword);
+            }, pool);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw e;
+        }
+    }
+
+    /**
+     * Hashes the passwords on the pool and returns the hashes in the same order, blocking until all are done. At
+     * most one hash per pool thread is queued or running at a time, so a login arriving during a long import waits
+     * behind a few hashes rather than behind the whole import.
+     *
+     * @throws RejectedExecutionException if the queue is already full of login checks
+     */
+    public String[] encodeAll(List<? extends CharSequence> rawPasswords) {
+        String[] hashes = new String[rawPasswords.size()];
+        CompletableFuture<?>[] pending = new CompletableFuture<?>[hashes.length];
+        Semaphore slots = new Semaphore(pool.getMaximumPoolSize());
+        for (int i = 0; i < hashes.length; i++) {
+            int index = i;
+            slots.acquireUninterruptibly();
+            try {
+                pending[i] = CompletableFuture.runAsync(() -> {
+                    try {
+                        hashes[index] = passwordEncoder.encode(rawPasswords.get(index));
+                    } finally {
+                        slots.release();
+                    }
+                }, pool);
+            } catch (RejectedExecutionException e) {
+                slots.release();
+                throw e;
+            }
+        }
+        CompletableFuture.allOf(pending).join();
+        return hashes;
+    }
+
+    public int getQueued() {
+        return pool.getQueue().size();
+    }
+
+    private String unknownUserHash() {
+        String hash = unknownUserHash;
+        if (hash == null) {
+            hash = passwordEncoder.encode("unknown user");
+            unknownUserHash = hash;
+        }
+        return hash;
+    }
+
+    @Override
+    public void destroy() {
+        pool.shutdownNow();
+    }
+}
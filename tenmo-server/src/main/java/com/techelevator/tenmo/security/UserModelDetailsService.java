@@ -40,15 +40,18 @@ public class UserModelDetailsService implements UserDetailsService {
             throw new UserNotActivatedException("User " + login + " was not activated");
         }
 
+        return new org.springframework.security.core.userdetails.User(user.getUsername(),
+                user.getPassword(),
+                grantedAuthorities(user));
+    }
+
+    public static List<GrantedAuthority> grantedAuthorities(User user) {
         List<GrantedAuthority> grantedAuthorities = new ArrayList<>();
         Set<Authority> userAuthorities = user.getAuthorities();
         for (Authority authority : userAuthorities) {
             grantedAuthorities.add(new SimpleGrantedAuthority(authority.getName()));
         }
-
-        return new org.springframework.security.core.userdetails.User(user.getUsername(),
-                user.getPassword(),
-                grantedAuthorities);
+        return grantedAuthorities;
     }
 }
 
@@ -6,6 +6,7 @@ import io.jsonwebtoken.security.Keys;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -29,22 +30,34 @@ public class TokenProvider implements InitializingBean {
     private final long tokenValidityInMilliseconds;
     private final long tokenValidityInMillisecondsForRememberMe;
 
+    private final VerifiedTokenCache verifiedTokens;
+
     private Key key;
+    // Immutable and thread-safe, so one parser serves every request
+    private JwtParser parser;
+
 
+    public TokenProvider(String base64Secret, long tokenValidityInSeconds, long tokenValidityInSecondsForRememberMe) {
+        this(base64Secret, tokenValidityInSeconds, tokenValidityInSecondsForRememberMe, 0);
+    }
 
+    @Autowired
     public TokenProvider(
             @Value("${jwt.base64-secret}") String base64Secret,
             @Value("${jwt.token-validity-in-seconds}") long tokenValidityInSeconds,
-            @Value("${jwt.token-validity-in-seconds-for-remember-me}") long tokenValidityInSecondsForRememberMe) {
+            @Value("${jwt.token-validity-in-seconds-for-remember-me}") long tokenValidityInSecondsForRememberMe,
+            @Value("${jwt.cache.max-entries:10000}") int cacheMaxEntries) {
         this.base64Secret = base64Secret;
         this.tokenValidityInMilliseconds = tokenValidityInSeconds * 1000;
         this.tokenValidityInMillisecondsForRememberMe = tokenValidityInSecondsForRememberMe * 1000;
+        this.verifiedTokens = new VerifiedTokenCache(cacheMaxEntries);
     }
 
     @Override
     public void afterPropertiesSet() {
         byte[] keyBytes = Decoders.BASE64.decode(base64Secret);
         this.key = Keys.hmacShaKeyFor(keyBytes);
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
     }
 
     public String createToken(Authentication authentication, boolean rememberMe) {
@@ -72,27 +85,51 @@ public class TokenProvider implements InitializingBean {
                 .compact();
     }
 
+    /**
+     * The Authentication for a valid token, or null if it is not valid, verifying the signature at most once per
+     * token: the principal of a verified token is cached until the token expires.
+     */
+    public Authentication authenticate(String token) {
+        User principal = verifiedTokens.find(token);
+        if (principal == null) {
+            Claims claims = parseValidClaims(token);
+            if (claims == null) {
+                return null;
+            }
+            principal = toPrincipal(claims);
+            if (claims.getExpiration() != null) {
+                verifiedTokens.put(token, principal, claims.getExpiration().getTime());
+            }
+        }
+        // A new token each time, since callers may set details on it
+        return new UsernamePasswordAuthenticationToken(principal, token, principal.getAuthorities());
+    }
+
     public Authentication getAuthentication(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        User principal = toPrincipal(parser.parseClaimsJws(token).getBody());
+        return new UsernamePasswordAuthenticationToken(principal, token, principal.getAuthorities());
+    }
 
+    public boolean validateToken(String authToken) {
+        return parseValidClaims(authToken) != null;
+    }
+
+    public VerifiedTokenCache getVerifiedTokens() {
+        return verifiedTokens;
+    }
+
+    private static User toPrincipal(Claims claims) {
         Collection<? extends GrantedAuthority> authorities =
                 Arrays.stream(claims.get(AUTHORITIES_KEY).toString().split(","))
                         .map(SimpleGrantedAuthority::new)
                         .collect(Collectors.toList());
 
-        User principal = new User(claims.getSubject(), "", authorities);
-
-        return new UsernamePasswordAuthenticationToken(principal, token, authorities);
+        return new User(claims.getSubject(), "", authorities);
     }
 
-    public boolean validateToken(String authToken) {
+    private Claims parseValidClaims(String authToken) {
         try {
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(authToken);
-            return true;
+            return parser.parseClaimsJws(authToken).getBody();
         } catch (io.jsonwebtoken.security.SecurityException | MalformedJwtException e) {
             log.info("Invalid JWT signature.");
             log.trace("Invalid JWT signature trace: {}", e);
@@ -106,6 +143,6 @@ public class TokenProvider implements InitializingBean {
             log.info("JWT token compact of handler are invalid.");
             log.trace("JWT token compact of handler are invalid trace: {}", e);
         }
-        return false;
+        return null;
     }
 }
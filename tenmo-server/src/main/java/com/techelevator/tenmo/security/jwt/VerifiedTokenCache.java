@@ -0,0 +1,123 @@
+package com.techelevator.tenmo.security.jwt;
+
+import org.springframework.security.core.userdetails.User;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Principals of tokens TokenProvider has already verified, keyed by the token's SHA-256 digest.
+ */
+public class VerifiedTokenCache {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Every JVM has SHA-256", e);
+        }
+    });
+
+    private final ConcurrentHashMap<ByteBuffer, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final int maxEntries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public VerifiedTokenCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * The principal of a verified, unexpired token, or null if the token has to be parsed.
+     */
+    public User find(String token) {
+        if (maxEntries <= 0) {
+            return null;
+        }
+        ByteBuffer key = digest(token);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (System.currentTimeMillis() > entry.expiresAtMillis) {
+            if (entries.remove(key, entry)) {
+                evictions.increment();
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.principal;
+    }
+
+    /**
+     * Call only for tokens whose signature has been verified. expiresAtMillis is the token's exp.
+     */
+    public void put(String token, User principal, long expiresAtMillis) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        Entry entry = new Entry(digest(token), principal, expiresAtMillis);
+        entries.put(entry.key, entry);
+        insertionOrder.add(entry);
+        queued.incrementAndGet();
+        evictOverflow();
+    }
+
+    // The queue also holds entries that were since replaced or dropped as expired; those are skipped, not counted
+    private void evictOverflow() {
+        while (queued.get() > maxEntries) {
+            Entry oldest = insertionOrder.poll();
+            if (oldest == null) {
+                return;
+            }
+            queued.decrementAndGet();
+            if (entries.remove(oldest.key, oldest)) {
+                evictions.increment();
+            }
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public int getSize() {
+        return entries.size();
+    }
+
+    private static ByteBuffer digest(String token) {
+        return ByteBuffer.wrap(SHA_256.get().digest(token.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static class Entry {
+        private final ByteBuffer key;
+        private final User principal;
+        private final long expiresAtMillis;
+
+        Entry(ByteBuffer key, User principal, long expiresAtMillis) {
+            this.key = key;
+            this.principal = principal;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.techelevator.tenmo.service;
+
+import com.techelevator.tenmo.dao.BalanceSnapshotDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rebuilds every balance snapshot and exits 1 if any account drifted from account.balance:
+ * java -jar tenmo-server.jar --tenmo.balance.rebuild=true --spring.main.web-application-type=none
+ */
+@Component
+@ConditionalOnProperty(name = "tenmo.balance.rebuild", havingValue = "true")
+public class BalanceRebuildRunner implements ApplicationRunner, ExitCodeGenerator {
+    private static final Logger log = LoggerFactory.getLogger(BalanceRebuildRunner.class);
+
+    private final BalanceSnapshotter balanceSnapshotter;
+    private final BalanceSnapshotDao balanceSnapshotDao;
+    private volatile int drift;
+
+    public BalanceRebuildRunner(BalanceSnapshotter balanceSnapshotter, BalanceSnapshotDao balanceSnapshotDao) {
+        this.balanceSnapshotter = balanceSnapshotter;
+        this.balanceSnapshotDao = balanceSnapshotDao;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        int rebuilt = balanceSnapshotter.rebuildAll();
+        drift = balanceSnapshotDao.countDrift();
+        log.info("Rebuilt {} balance snapshots in {} ms; {} accounts differ from account.balance",
+                rebuilt, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), drift);
+    }
+
+    @Override
+    public int getExitCode() {
+        return drift == 0 ? 0 : 1;
+    }
+}
@@ -0,0 +1,38 @@
+package com.techelevator.tenmo.service;
+
+import com.techelevator.tenmo.dao.AccountDao;
+import com.techelevator.tenmo.dao.BalanceSnapshotDao;
+import com.techelevator.tenmo.model.Account;
+import com.techelevator.tenmo.model.Money;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Reads balances from account.balance ("stored", the default) or from snapshots plus later approvals
+ * ("event-sourced").
+ */
+@Service
+public class BalanceService {
+    public static final String EVENT_SOURCED = "event-sourced";
+
+    private final AccountDao accountDao;
+    private final BalanceSnapshotDao balanceSnapshotDao;
+    private final boolean eventSourced;
+
+    public BalanceService(AccountDao accountDao, BalanceSnapshotDao balanceSnapshotDao,
+                          @Value("${tenmo.balance.mode:stored}") String mode) {
+        this.accountDao = accountDao;
+        this.balanceSnapshotDao = balanceSnapshotDao;
+        this.eventSourced = EVENT_SOURCED.equals(mode);
+    }
+
+    @Transactional(readOnly = true)
+    public Money getBalance(Integer userId) {
+        if (eventSourced) {
+            return balanceSnapshotDao.findBalanceByUserId(userId);
+        }
+        Account account = accountDao.findByUserId(userId);
+        return account == null ? null : account.getBalance();
+    }
+}
@@ -0,0 +1,116 @@
+package com.techelevator.tenmo.service;
+
+import com.techelevator.tenmo.dao.BalanceSnapshotDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Folds new approvals into the balance snapshots of the accounts they touched, on a schedule.
+ */
+@Component
+public class BalanceSnapshotter {
+    private static final Logger log = LoggerFactory.getLogger(BalanceSnapshotter.class);
+    private static final int REFRESH_CHUNK = 500;
+    private static final int REBUILD_RANGES_PER_THREAD = 4;
+
+    private final BalanceSnapshotDao balanceSnapshotDao;
+    private final int rebuildThreads;
+    private final ScheduledExecutorService scheduler;
+    private long cursor;
+
+    public BalanceSnapshotter(BalanceSnapshotDao balanceSnapshotDao,
+                              @Value("${tenmo.balance.mode:stored}") String mode,
+                              @Value("${tenmo.balance.snapshot-interval-millis:1000}") long intervalMillis,
+                              @Value("${tenmo.balance.rebuild-threads:0}") int rebuildThreads) {
+        this.balanceSnapshotDao = balanceSnapshotDao;
+        this.rebuildThreads = rebuildThreads > 0 ? rebuildThreads : Runtime.getRuntime().availableProcessors();
+        if (BalanceService.EVENT_SOURCED.equals(mode)) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "balance-snapshotter");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::runSafely, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Runs one incremental pass and returns the number of snapshots that moved.
+     */
+    public synchronized int refresh() {
+        long head = balanceSnapshotDao.findMaxApprovalSeq();
+        if (head <= cursor) {
+            return 0;
+        }
+        List<Integer> accountIds = balanceSnapshotDao.findAccountIdsApprovedBetween(cursor, head);
+        int refreshed = 0;
+        for (int i = 0; i < accountIds.size(); i += REFRESH_CHUNK) {
+            refreshed += balanceSnapshotDao.refreshSnapshots(accountIds.subList(i, Math.min(accountIds.size(), i + REFRESH_CHUNK)));
+        }
+        cursor = head;
+        return refreshed;
+    }
+
+    /**
+     * Recomputes every snapshot from its opening balance, splitting the account ids into ranges that are rebuilt
+     * in parallel, each in its own statement. Returns the number of snapshots written.
+     */
+    public int rebuildAll() {
+        int[] range = balanceSnapshotDao.findSnapshotAccountIdRange();
+        if (range == null) {
+            return 0;
+        }
+        int ranges = rebuildThreads * REBUILD_RANGES_PER_THREAD;
+        long width = Math.max(1, ((long) range[1] - range[0] + ranges) / ranges);
+        ExecutorService pool = Executors.newFixedThreadPool(rebuildThreads);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (long from = range[0]; from <= range[1]; from += width) {
+                int low = (int) from;
+                int high = (int) Math.min(range[1], from + width - 1);
+                futures.add(pool.submit(() -> balanceSnapshotDao.rebuildSnapshots(low, high)));
+            }
+            int rebuilt = 0;
+            for (Future<Integer> future : futures) {
+                rebuilt += future.get();
+            }
+            return rebuilt;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted rebuilding balance snapshots", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Unable to rebuild balance snapshots", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void runSafely() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("Balance snapshot pass failed", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.techelevator.tenmo.service;
+
+import com.techelevator.tenmo.dao.IdempotencyKeyDao;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the transfer id created for each Idempotency-Key, so a retried request replays it.
+ */
+@Component
+public class IdempotencyStore {
+
+    private static final int PURGE_EVERY_MISSES = 1024;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final IdempotencyKeyDao idempotencyKeyDao;
+    private final boolean jdbcEnabled;
+    private final int maxEntries;
+    private final long ttlSeconds;
+    private final long ttlNanos;
+    private final long waitMillis;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public IdempotencyStore(IdempotencyKeyDao idempotencyKeyDao,
+                            @Value("${tenmo.idempotency.jdbc.enabled:false}") boolean jdbcEnabled,
+                            @Value("${tenmo.idempotency.max-entries:100000}") int maxEntries,
+                            @Value("${tenmo.idempotency.ttl-seconds:86400}") long ttlSeconds,
+                            @Value("${tenmo.idempotency.wait-millis:30000}") long waitMillis) {
+        this.idempotencyKeyDao = idempotencyKeyDao;
+        this.jdbcEnabled = jdbcEnabled;
+        this.maxEntries = maxEntries;
+        this.ttlSeconds = ttlSeconds;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.waitMillis = waitMillis;
+    }
+
+    /**
+     * Returns the transfer id already recorded for the key, or runs the action once and records its result.
+     * If the action throws or returns no transfer id (null or not positive), nothing is recorded and the next
+     * request with the key runs it again.
+     */
+    public Integer execute(String idempotencyKey, Supplier<Integer> action) {
+        long now = System.nanoTime();
+        evictExpired(now);
+
+        Entry entry = new Entry(idempotencyKey, now);
+        Entry existing = entries.putIfAbsent(idempotencyKey, entry);
+        if (existing != null) {
+            if (!existing.isExpired(now, ttlNanos)) {
+                hits.increment();
+                return await(idempotencyKey, existing, action);
+            }
+            if (!entries.replace(idempotencyKey, existing, entry)) {
+                return execute(idempotencyKey, action);
+            }
+            evictions.increment();
+        }
+        insertionOrder.add(entry);
+        queued.incrementAndGet();
+        evictOverflow();
+        if (!jdbcEnabled) {
+            misses.increment();
+        }
+
+        try {
+            Integer transferId = jdbcEnabled ? executeDurably(idempotencyKey, action) : action.get();
+            if (!isTransferId(transferId)) {
+                entries.remove(idempotencyKey, entry);
+            }
+            entry.result.complete(transferId);
+            return transferId;
+        } catch (RuntimeException e) {
+            entries.remove(idempotencyKey, entry);
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private Integer executeDurably(String idempotencyKey, Supplier<Integer> action) {
+        if (!idempotencyKeyDao.reserve(idempotencyKey, ttlSeconds)) {
+            Integer transferId = idempotencyKeyDao.findTransferId(idempotencyKey);
+            if (transferId == null) {
+                throw new IllegalStateException("A request with this Idempotency-Key is still in progress");
+            }
+            hits.increment();
+            return transferId;
+        }
+        misses.increment();
+        if (ThreadLocalRandom.current().nextInt(PURGE_EVERY_MISSES) == 0) {
+            idempotencyKeyDao.purgeExpired(ttlSeconds);
+        }
+        Integer transferId;
+        try {
+            transferId = action.get();
+        } catch (RuntimeException e) {
+            idempotencyKeyDao.release(idempotencyKey);
+            throw e;
+        }
+        if (isTransferId(transferId)) {
+            idempotencyKeyDao.complete(idempotencyKey, transferId);
+        } else {
+            idempotencyKeyDao.release(idempotencyKey);
+        }
+        return transferId;
+    }
+
+    // addTransfer reports a refused transfer as -1 rather than by throwing
+    private static boolean isTransferId(Integer transferId) {
+        return transferId != null && transferId > 0;
+    }
+
+    private Integer await(String idempotencyKey, Entry existing, Supplier<Integer> action) {
+        try {
+            return existing.result.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // The first attempt failed and removed itself, so this request gets to try again
+            return execute(idempotencyKey, action);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("A request with this Idempotency-Key is still in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for Idempotency-Key", e);
+        }
+    }
+
+    private void evictExpired(long now) {
+        Entry oldest;
+        while ((oldest = insertionOrder.peek()) != null && oldest.isExpired(now, ttlNanos)) {
+            if (!insertionOrder.remove(oldest)) {
+                continue;
+            }
+            queued.decrementAndGet();
+            if (entries.remove(oldest.key, oldest)) {
+                evictions.increment();
+            }
+        }
+    }
+
+    // The queue also holds entries that failed or were replaced; those are counted until they are removed, so
+    // the queue stays bounded even when the map is not full. Entries whose action is still running are skipped:
+    // dropping one would let a retry with the same key run the action a second time
+    private void evictOverflow() {
+        Iterator<Entry> oldestFirst = insertionOrder.iterator();
+        while (queued.get() > maxEntries && oldestFirst.hasNext()) {
+            Entry oldest = oldestFirst.next();
+            if (!oldest.result.isDone() && entries.get(oldest.key) == oldest) {
+                continue;
+            }
+            if (!insertionOrder.remove(oldest)) {
+                continue;
+            }
+            queued.decrementAndGet();
+            if (entries.remove(oldest.key, oldest)) {
+                evictions.increment();
+            }
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public int getSize() {
+        return entries.size();
+    }
+
+    private static class Entry {
+        private final String key;
+        private final long createdNanos;
+        private final CompletableFuture<Integer> result = new CompletableFuture<>();
+
+        Entry(String key, long createdNanos) {
+            this.key = key;
+            this.createdNanos = createdNanos;
+        }
+
+        boolean isExpired(long now, long ttlNanos) {
+            return now - createdNanos > ttlNanos;
+        }
+    }
+}
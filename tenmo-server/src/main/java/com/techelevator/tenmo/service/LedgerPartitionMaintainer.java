@@ -0,0 +1,66 @@
+package com.techelevator.tenmo.service;
+
+import com.techelevator.tenmo.dao.LedgerPartitionDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.YearMonth;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates the monthly ledger_entry partitions for the current month and the next few, at startup and then daily,
+ * so postings never fall into the default partition.
+ */
+@Component
+public class LedgerPartitionMaintainer {
+    private static final Logger log = LoggerFactory.getLogger(LedgerPartitionMaintainer.class);
+
+    private final LedgerPartitionDao ledgerPartitionDao;
+    private final int monthsAhead;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "ledger-partition-maintainer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public LedgerPartitionMaintainer(LedgerPartitionDao ledgerPartitionDao,
+                                     @Value("${tenmo.ledger.partition-months-ahead:3}") int monthsAhead) {
+        this.ledgerPartitionDao = ledgerPartitionDao;
+        this.monthsAhead = monthsAhead;
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::ensurePartitions, 0, 1, TimeUnit.DAYS);
+    }
+
+    public void ensurePartitions() {
+        YearMonth month = YearMonth.now();
+        try {
+            for (int i = 0; i <= monthsAhead; i++) {
+                int moved = ledgerPartitionDao.createMonthlyPartition(month.plusMonths(i));
+                if (moved > 0) {
+                    // Postings only reach the default partition when the maintainer fell behind: the server was down
+                    // across a month boundary, partition-months-ahead is too small, or a clock is wrong
+                    log.warn("Created ledger_entry partition for {} and moved {} rows for it out of ledger_entry_default; " +
+                            "check why the partition was not created ahead", month.plusMonths(i), moved);
+                } else if (moved == 0) {
+                    log.info("Created ledger_entry partition for {}", month.plusMonths(i));
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Unable to create ledger_entry partitions", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
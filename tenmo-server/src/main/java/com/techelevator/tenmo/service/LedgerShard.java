@@ -0,0 +1,59 @@
+package com.techelevator.tenmo.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One writer thread fed by a bounded ring buffer. Everything submitted to a shard runs in order, one at a time.
+ */
+class LedgerShard {
+
+    private final ThreadPoolExecutor writer;
+
+    LedgerShard(int shardId, int queueCapacity, long offerTimeoutMillis) {
+        this.writer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "ledger-shard-" + shardId);
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, executor) -> {
+                    // Full buffer: hold the caller for a bounded time instead of running the task on its thread,
+                    // which would break the single-writer guarantee.
+                    try {
+                        if (executor.isShutdown() || !executor.getQueue().offer(runnable, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                            throw new RejectedExecutionException("Ledger shard " + shardId + " is full");
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RejectedExecutionException("Interrupted waiting for ledger shard " + shardId, e);
+                    }
+                });
+    }
+
+    <T> T execute(Callable<T> task) {
+        Future<T> future = writer.submit(task);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for ledger shard", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    void shutdown() {
+        writer.shutdown();
+    }
+}
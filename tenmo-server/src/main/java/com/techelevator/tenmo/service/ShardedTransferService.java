@@ -0,0 +1,131 @@
+package com.techelevator.tenmo.service;
+
+import com.techelevator.tenmo.dao.AccountDao;
+import com.techelevator.tenmo.dao.AccountIdResolver;
+import com.techelevator.tenmo.dao.TransferDao;
+import com.techelevator.tenmo.journal.TransferJournal;
+import com.techelevator.tenmo.model.BatchTransferDto;
+import com.techelevator.tenmo.model.BucksDto;
+import com.techelevator.tenmo.model.TransferDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import javax.transaction.Transactional;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * TransferService that serializes approvals per debited account on single-writer shards instead of Postgres row locks.
+ * Enabled with the "sharded" Spring profile.
+ */
+@Service
+@Profile("sharded")
+public class ShardedTransferService implements TransferService {
+    private final TransferServiceImpl delegate;
+    private final TransferDao transferDao;
+    private final AccountIdResolver accountIds;
+    private final LedgerShard[] shards;
+    // transfer_id to account_to for transfers created here; an account never changes, so an entry is never stale
+    private final ConcurrentHashMap<Integer, Integer> debitedAccounts = new ConcurrentHashMap<>();
+    private final int maxRoutes;
+
+    public ShardedTransferService(TransferDao transferDao, AccountDao accountDao, TransferJournal journal,
+                                  AccountIdResolver accountIds,
+                                  @Value("${tenmo.ledger.shards:0}") int shardCount,
+                                  @Value("${tenmo.ledger.queue-capacity:1024}") int queueCapacity,
+                                  @Value("${tenmo.ledger.offer-timeout-millis:1000}") long offerTimeoutMillis,
+                                  @Value("${tenmo.ledger.max-routes:100000}") int maxRoutes) {
+        this.delegate = new TransferServiceImpl(transferDao, accountDao, journal);
+        this.transferDao = transferDao;
+        this.accountIds = accountIds;
+        this.maxRoutes = maxRoutes;
+        if (shardCount <= 0) {
+            shardCount = Runtime.getRuntime().availableProcessors();
+        }
+        this.shards = new LedgerShard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new LedgerShard(i, queueCapacity, offerTimeoutMillis);
+        }
+    }
+
+    @Override
+    public Integer addTransfer(BucksDto bucksDto, Integer transferTypeId) {
+        // Inserting a pending transfer does not touch balances, so it needs no ordering.
+        Integer transferId = delegate.addTransfer(bucksDto, transferTypeId);
+        rememberRoute(transferId, bucksDto);
+        return transferId;
+    }
+
+    @Override
+    public List<BatchTransferDto> addTransfers(List<BucksDto> bucksDtos, Integer transferTypeId) {
+        List<BatchTransferDto> results = delegate.addTransfers(bucksDtos, transferTypeId);
+        for (int i = 0; i < results.size(); i++) {
+            rememberRoute(results.get(i).getTransferId(), bucksDtos.get(i));
+        }
+        return results;
+    }
+
+    private void rememberRoute(Integer transferId, BucksDto bucksDto) {
+        int accountTo = bucksDto.getToUserId() == null ? 0 : accountIds.find(bucksDto.getToUserId());
+        if (transferId != null && transferId > 0 && accountTo != 0) {
+            // Entries for transfers that are never approved or rejected here would pile up, and they are only
+            // hints, so a full map is simply cleared
+            if (debitedAccounts.size() >= maxRoutes) {
+                debitedAccounts.clear();
+            }
+            debitedAccounts.put(transferId, accountTo);
+        }
+    }
+
+    @Override
+    public void approveTransfer(Integer transferId) {
+        shardFor(transferId).execute(() -> {
+            delegate.approveTransfer(transferId);
+            return null;
+        });
+        debitedAccounts.remove(transferId);
+    }
+
+    @Override
+    public void rejectTransfer(Integer transferId) {
+        shardFor(transferId).execute(() -> {
+            delegate.rejectTransfer(transferId);
+            return null;
+        });
+        debitedAccounts.remove(transferId);
+    }
+
+    @Override
+    @Transactional
+    public List<BatchTransferDto> approveTransfers(List<Integer> transferIds) {
+        // A bulk job spans shards; ordered row locks keep it safe alongside the shard writers
+        return delegate.approveTransfers(transferIds);
+    }
+
+    @Override
+    public List<BatchTransferDto> rejectTransfers(List<Integer> transferIds) {
+        return delegate.rejectTransfers(transferIds);
+    }
+
+    // account_to is the account approve debits, so that is the row whose lock we want to keep uncontended
+    private LedgerShard shardFor(Integer transferId) {
+        Integer accountTo = debitedAccounts.get(transferId);
+        if (accountTo == null) {
+            TransferDto transfer = transferDao.getTransferById(transferId);
+            if (transfer == null) {
+                throw new IllegalArgumentException("Transfer not found with id: " + transferId);
+            }
+            accountTo = transfer.getAccountTo();
+        }
+        return shards[Math.floorMod(accountTo, shards.length)];
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (LedgerShard shard : shards) {
+            shard.shutdown();
+        }
+    }
+}
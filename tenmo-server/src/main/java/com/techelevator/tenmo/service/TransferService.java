@@ -1,9 +1,29 @@
 package com.techelevator.tenmo.service;
 
+import com.techelevator.tenmo.model.BatchTransferDto;
 import com.techelevator.tenmo.model.BucksDto;
 
+import java.util.List;
+
 public interface TransferService {
     Integer addTransfer(BucksDto bucksDto, Integer transferTypeId);
+
+    /**
+     * Creates pending transfers with one batch insert, skipping any addTransfer would refuse. The result lines up
+     * with the input, each item carrying the new transfer id or the reason it was skipped.
+     */
+    List<BatchTransferDto> addTransfers(List<BucksDto> bucksDtos, Integer transferTypeId);
     void approveTransfer(Integer transferId);
     void rejectTransfer(Integer transferId);
+
+    /**
+     * Approves pending transfers in one transaction, in transfer_id order, skipping any the payer cannot cover.
+     * The result lines up with the input ids.
+     */
+    List<BatchTransferDto> approveTransfers(List<Integer> transferIds);
+
+    /**
+     * Rejects the pending transfers among the given ids. The result lines up with the input ids.
+     */
+    List<BatchTransferDto> rejectTransfers(List<Integer> transferIds);
 }
@@ -2,23 +2,45 @@ package com.techelevator.tenmo.service;
 
 import com.techelevator.tenmo.dao.AccountDao;
 import com.techelevator.tenmo.dao.TransferDao;
+import com.techelevator.tenmo.enums.TransferResultEnum;
 import com.techelevator.tenmo.enums.TransferStatusEnum;
 import com.techelevator.tenmo.enums.TransferTypeEnum;
+import com.techelevator.tenmo.journal.TransferJournal;
 import com.techelevator.tenmo.model.Account;
+import com.techelevator.tenmo.model.BatchTransferDto;
 import com.techelevator.tenmo.model.BucksDto;
+import com.techelevator.tenmo.model.Money;
 import com.techelevator.tenmo.model.TransferDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 @Service
+@Profile("!sharded")
 public class TransferServiceImpl implements TransferService {
     private final TransferDao transferDao;
     private final AccountDao accountDao;
+    private final TransferJournal journal;
     public TransferServiceImpl(TransferDao transferDao, AccountDao accountDao) {
+        this(transferDao, accountDao, TransferJournal.DISABLED);
+    }
+
+    @Autowired
+    public TransferServiceImpl(TransferDao transferDao, AccountDao accountDao, TransferJournal journal) {
         this.transferDao = transferDao;
         this.accountDao = accountDao;
-
+        this.journal = journal;
     }
     @Override
     public Integer addTransfer(BucksDto bucksDto, Integer transferTypeId) {
@@ -31,11 +53,74 @@ public class TransferServiceImpl implements TransferService {
         boolean isRequest = TransferTypeEnum.REQUEST.getTypeId().equals(transferTypeId);
         boolean isSend = TransferTypeEnum.SEND.getTypeId().equals(transferTypeId);
         if (isRequest||isSend) {
-            return transferDao.addTransfer(transferTypeId, TransferStatusEnum.PENDING.getStatusId(), fromAccount.getAccountId(), toAccount.getAccountId(), bucksDto.getAmount());
+            Integer statusId = TransferStatusEnum.PENDING.getStatusId();
+            if (journal.isJournalFirst()) {
+                // Nothing checks the transfer's constraints before the applier inserts it, so catch what they would
+                if (fromAccount.getAccountId().equals(toAccount.getAccountId())
+                        || bucksDto.getAmount() == null || !bucksDto.getAmount().isPositive()) {
+                    return -1;
+                }
+                return journal.createTransfer(transferTypeId, statusId, fromAccount.getAccountId(), toAccount.getAccountId(), bucksDto.getAmount());
+            }
+            Integer transferId = transferDao.addTransfer(transferTypeId, statusId, fromAccount.getAccountId(), toAccount.getAccountId(), bucksDto.getAmount());
+            journal.transferCreated(transferId, transferTypeId, statusId, fromAccount.getAccountId(), toAccount.getAccountId(), bucksDto.getAmount());
+            return transferId;
         }
         return -1;
     }
 
+    @Override
+    public List<BatchTransferDto> addTransfers(List<BucksDto> bucksDtos, Integer transferTypeId) {
+        List<BatchTransferDto> results = new ArrayList<>(bucksDtos.size());
+        if (!TransferTypeEnum.REQUEST.getTypeId().equals(transferTypeId) && !TransferTypeEnum.SEND.getTypeId().equals(transferTypeId)) {
+            for (int i = 0; i < bucksDtos.size(); i++) {
+                results.add(new BatchTransferDto(null, "Unknown transfer type"));
+            }
+            return results;
+        }
+        Integer statusId = TransferStatusEnum.PENDING.getStatusId();
+        List<BucksDto> accepted = new ArrayList<>();
+        List<Account> fromAccounts = new ArrayList<>();
+        List<Account> toAccounts = new ArrayList<>();
+        List<BatchTransferDto> acceptedResults = new ArrayList<>();
+        for (BucksDto bucksDto : bucksDtos) {
+            Account fromAccount = accountDao.findByUserId(bucksDto.getFromUserId());
+            Account toAccount = accountDao.findByUserId(bucksDto.getToUserId());
+            if (fromAccount == null || toAccount == null) {
+                results.add(new BatchTransferDto(null, "Account not found"));
+            } else if (!isAccountAvaliable(fromAccount, toAccount) || fromAccount.getAccountId().equals(toAccount.getAccountId())) {
+                results.add(new BatchTransferDto(null, "could not transfer to yourself"));
+            } else if (bucksDto.getAmount() == null || !bucksDto.getAmount().isPositive()) {
+                results.add(new BatchTransferDto(null, "Amount must be greater than zero"));
+            } else if (journal.isJournalFirst()) {
+                results.add(new BatchTransferDto(journal.createTransfer(transferTypeId, statusId,
+                        fromAccount.getAccountId(), toAccount.getAccountId(), bucksDto.getAmount()), null));
+            } else {
+                BatchTransferDto result = new BatchTransferDto();
+                results.add(result);
+                accepted.add(bucksDto);
+                fromAccounts.add(fromAccount);
+                toAccounts.add(toAccount);
+                acceptedResults.add(result);
+            }
+        }
+        if (accepted.isEmpty()) {
+            return results;
+        }
+
+        List<BatchTransferDto> inserted = transferDao.addTransfers(transferTypeId, statusId, accepted);
+        for (int i = 0; i < inserted.size(); i++) {
+            BatchTransferDto result = acceptedResults.get(i);
+            result.setTransferId(inserted.get(i).getTransferId());
+            result.setError(inserted.get(i).getError());
+            if (result.getTransferId() != null) {
+                journal.transferCreated(result.getTransferId(), transferTypeId, statusId, fromAccounts.get(i).getAccountId(),
+                        toAccounts.get(i).getAccountId(), accepted.get(i).getAmount());
+            }
+        }
+        return results;
+    }
+
     Boolean isAccountAvaliable(Account fromAccount, Account toAccount) {
         if (fromAccount == null ) {
             return false;
@@ -50,69 +135,114 @@ public class TransferServiceImpl implements TransferService {
     }
 
     @Override
-    @Transactional
     public void approveTransfer(Integer transferId){
-
-        TransferDto transferDto = searchAndCheckTransferInfo(transferId);
-        Account accountFrom = searchAndCheckFromAccount(transferDto.getAccountFrom(), transferDto.getAmount());
-        Account accountTo = searchAndCheckToAccount(transferDto.getAccountFrom(), transferDto.getAccountTo());
-        updateTransferAndAccount(transferDto, accountFrom, accountTo);
-
+        // A journal-first transfer may not be in Postgres yet
+        journal.awaitApplied();
+        checkTransferResult(transferId, transferDao.approvePendingTransfer(transferId));
+        journal.statusChanged(transferId, TransferStatusEnum.APPROVED.getStatusId());
     }
 
-
-    private void updateTransferAndAccount(TransferDto transferDto, Account accountFrom, Account accountTo) {
-        transferDao.updateTransferStatus(transferDto.getTransferId(), TransferStatusEnum.APPROVED.getStatusId());
-        accountDao.updateBalanceByAccountId(accountFrom.getAccountId(), accountFrom.getBalance() + transferDto.getAmount());
-        accountDao.updateBalanceByAccountId(accountTo.getAccountId(), accountTo.getBalance() - transferDto.getAmount());
+    @Override
+    public void rejectTransfer(Integer transferId){
+        journal.awaitApplied();
+        checkTransferResult(transferId, transferDao.rejectPendingTransfer(transferId));
+        journal.statusChanged(transferId, TransferStatusEnum.REJECTED.getStatusId());
     }
 
-    private TransferDto searchAndCheckTransferInfo(Integer transferId) {
-        TransferDto transfer = transferDao.getTransferById(transferId);
-        if (transfer == null) {
-            throw new IllegalArgumentException("Transfer not found with id: " + transferId);
+    @Override
+    @Transactional
+    public List<BatchTransferDto> approveTransfers(List<Integer> transferIds) {
+        journal.awaitApplied();
+        // Lock order is always transfers then accounts, each ascending, the same as approvePendingTransfer
+        List<TransferDto> pending = transferDao.lockPendingTransfers(transferIds);
+        Set<Integer> accountIds = new HashSet<>();
+        for (TransferDto transfer : pending) {
+            accountIds.add(transfer.getAccountFrom());
+            accountIds.add(transfer.getAccountTo());
+        }
+        Map<Integer, Money> available = new HashMap<>();
+        for (Account account : accountDao.lockAccounts(accountIds)) {
+            available.put(account.getAccountId(), account.getBalance());
         }
 
-        boolean isPending = TransferStatusEnum.PENDING.getStatusId().equals(transfer.getTransferStatusId());
-        if (!isPending) {
-            throw new IllegalArgumentException("Transfer with id" + transferId + " is not pending");
+        Map<Integer, String> errors = new HashMap<>();
+        Map<Integer, Money> deltas = new TreeMap<>();
+        List<Integer> approvedIds = new ArrayList<>();
+        for (TransferDto transfer : pending) {
+            Money amount = transfer.getAmount();
+            if (available.get(transfer.getAccountTo()).isLessThan(amount)) {
+                errors.put(transfer.getTransferId(), "Insufficient Balance: ");
+                continue;
+            }
+            available.merge(transfer.getAccountTo(), amount.negate(), Money::plus);
+            available.merge(transfer.getAccountFrom(), amount, Money::plus);
+            deltas.merge(transfer.getAccountTo(), amount.negate(), Money::plus);
+            deltas.merge(transfer.getAccountFrom(), amount, Money::plus);
+            approvedIds.add(transfer.getTransferId());
+        }
 
+        if (!approvedIds.isEmpty()) {
+            accountDao.addToBalances(deltas);
+            transferDao.updatePendingTransferStatuses(approvedIds, TransferStatusEnum.APPROVED.getStatusId());
+            afterCommit(() -> {
+                for (Integer transferId : approvedIds) {
+                    journal.statusChanged(transferId, TransferStatusEnum.APPROVED.getStatusId());
+                }
+            });
         }
-        return transfer;
+        return toBatchResults(transferIds, approvedIds, errors);
     }
 
-    private Account searchAndCheckFromAccount(Integer accountId, Double amount) {
-        Account account = accountDao.findByAccountId(accountId);
-        if (account == null) {
-            throw new IllegalArgumentException("Account not found with id: " + accountId);
-        }
-        if (account.getBalance() < amount) {
-            throw new IllegalArgumentException("Insufficient Balance: ");
+    @Override
+    public List<BatchTransferDto> rejectTransfers(List<Integer> transferIds) {
+        journal.awaitApplied();
+        List<Integer> rejectedIds = transferDao.updatePendingTransferStatuses(transferIds, TransferStatusEnum.REJECTED.getStatusId());
+        for (Integer transferId : rejectedIds) {
+            journal.statusChanged(transferId, TransferStatusEnum.REJECTED.getStatusId());
         }
-        return account;
+        return toBatchResults(transferIds, rejectedIds, new HashMap<>());
     }
 
-    private Account searchAndCheckToAccount(Integer accountIdFrom, Integer accountIdTo) {
-        if (accountIdFrom.equals(accountIdTo)) {
-            throw new IllegalArgumentException("could not transfer to yourself ");
+    private List<BatchTransferDto> toBatchResults(List<Integer> transferIds, List<Integer> changedIds, Map<Integer, String> errors) {
+        Set<Integer> changed = new HashSet<>(changedIds);
+        List<BatchTransferDto> results = new ArrayList<>(transferIds.size());
+        for (Integer transferId : transferIds) {
+            if (changed.contains(transferId)) {
+                results.add(new BatchTransferDto(transferId, null));
+            } else {
+                results.add(new BatchTransferDto(transferId, errors.getOrDefault(transferId, "Transfer with id " + transferId + " is not pending.")));
+            }
         }
-        Account accountTo = accountDao.findByAccountId(accountIdTo);
-        if (accountTo == null) {
-            throw new IllegalArgumentException("Account not found with id: " + accountIdTo);
+        return results;
+    }
+
+    /**
+     * The journal only records committed changes, so inside a transaction the action waits for the commit and is
+     * dropped on rollback.
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
         }
-        return accountTo;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 
-    @Override
-    public void rejectTransfer(Integer transferId){
-        TransferDto transfer = transferDao.getTransferById(transferId);
-        if(transfer == null){
+    private void checkTransferResult(Integer transferId, TransferResultEnum result) {
+        if (result == TransferResultEnum.NOT_FOUND) {
             throw new IllegalArgumentException("Transfer not found with id: " + transferId);
         }
-        if(transfer.getTransferStatusId() != TransferStatusEnum.PENDING.getStatusId()){
+        if (result == TransferResultEnum.NOT_PENDING) {
             throw new IllegalArgumentException("Transfer with id " + transferId + " is not pending.");
         }
-        transferDao.updateTransferStatus(transferId, TransferStatusEnum.REJECTED.getStatusId());
+        if (result == TransferResultEnum.INSUFFICIENT_BALANCE) {
+            throw new IllegalArgumentException("Insufficient Balance: ");
+        }
     }
 
 
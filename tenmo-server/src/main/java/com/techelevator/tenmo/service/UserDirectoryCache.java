@@ -0,0 +1,114 @@
+package com.techelevator.tenmo.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * User directory pages already serialized to JSON, keyed by cursor and page size.
+ */
+@Component
+public class UserDirectoryCache {
+
+    private final ConcurrentHashMap<String, Entry> pages = new ConcurrentHashMap<>();
+    // Keys of the pages that kept pages' nextCursors point to
+    private final Set<String> issued = ConcurrentHashMap.newKeySet();
+    private final AtomicLong generation = new AtomicLong();
+    private final int maxEntries;
+
+    public UserDirectoryCache(@Value("${tenmo.directory.cache.max-entries:10000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * The cached page of pageSize users after afterUserId (null for the first page), or the loader's page, which is
+     * cached for the next request if the server issued its cursor.
+     */
+    public byte[] get(Integer afterUserId, int pageSize, Supplier<Page> loader) {
+        String key = key(afterUserId, pageSize);
+        Entry cached = pages.get(key);
+        if (cached != null) {
+            return cached.json;
+        }
+        long before = generation.get();
+        Page page = loader.get();
+        if ((afterUserId == null || issued.contains(key)) && pages.size() < maxEntries) {
+            Entry entry = new Entry(page, pageSize);
+            pages.put(key, entry);
+            if (entry.nextKey != null) {
+                issued.add(entry.nextKey);
+            }
+            // Undo a put that raced an invalidation, so a page from before a registration never outlives it, and
+            // forget the cursor it issued, since the invalidation may already have swept past it
+            if (generation.get() != before && pages.remove(key, entry) && entry.nextKey != null) {
+                issued.remove(entry.nextKey);
+            }
+        }
+        return page.json;
+    }
+
+    /**
+     * Drops the pages a user with this id belongs on or may now push rows into: every page reaching the id or past
+     * it, including the last page of each size.
+     */
+    public void invalidateFrom(int userId) {
+        generation.incrementAndGet();
+        pages.values().removeIf(entry -> {
+            if (entry.lastUserId < userId) {
+                return false;
+            }
+            if (entry.nextKey != null) {
+                issued.remove(entry.nextKey);
+            }
+            return true;
+        });
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+        pages.clear();
+        issued.clear();
+    }
+
+    public int size() {
+        return pages.size();
+    }
+
+    public int issuedSize() {
+        return issued.size();
+    }
+
+    private static String key(Integer afterUserId, int pageSize) {
+        return afterUserId + ":" + pageSize;
+    }
+
+    /**
+     * A serialized page, with the id its nextCursor continues after, or null if it is the last page.
+     */
+    public static final class Page {
+        private final byte[] json;
+        private final Integer nextAfterUserId;
+
+        public Page(byte[] json, Integer nextAfterUserId) {
+            this.json = json;
+            this.nextAfterUserId = nextAfterUserId;
+        }
+    }
+
+    private static final class Entry {
+        private final byte[] json;
+        // The last page reaches every id still to come
+        private final int lastUserId;
+        private final String nextKey;
+
+        private Entry(Page page, int pageSize) {
+            this.json = page.json;
+            this.lastUserId = page.nextAfterUserId == null ? Integer.MAX_VALUE : page.nextAfterUserId;
+            this.nextKey = page.nextAfterUserId == null ? null : key(page.nextAfterUserId, pageSize);
+        }
+    }
+}
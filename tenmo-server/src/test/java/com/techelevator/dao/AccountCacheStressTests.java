@@ -0,0 +1,187 @@
+package com.techelevator.dao;
+
+import com.techelevator.tenmo.dao.AccountCache;
+import com.techelevator.tenmo.dao.AccountIdResolver;
+import com.techelevator.tenmo.dao.AccountNameDictionary;
+import com.techelevator.tenmo.dao.CachingAccountDao;
+import com.techelevator.tenmo.dao.JdbcAccountDao;
+import com.techelevator.tenmo.dao.JdbcTransferDao;
+import com.techelevator.tenmo.model.Account;
+import com.techelevator.tenmo.service.TransferServiceImpl;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Approves transfers among a handful of accounts from several connections, while other threads keep reading the
+ * same accounts through one shared AccountCache. Half the accounts only see single approvals and the other half
+ * only transactional batches, so a path that forgot to invalidate leaves its own accounts stale. Once everything
+ * settles, every cached balance must match the database. Like ApproveTransferConcurrencyTests
+ * this has to commit, so it creates its own accounts and deletes them afterwards.
+ */
+public class AccountCacheStressTests extends BaseDaoTests {
+    private static final int ACCOUNTS = 6;
+    private static final int TRANSFERS = 1200;
+    private static final int BATCH = 5;
+    private static final int APPROVERS = 4;
+    private static final int READERS = 4;
+    private static final BigDecimal OPENING_BALANCE = new BigDecimal("1000.00");
+
+    private DriverManagerDataSource committingDataSource;
+    private JdbcTemplate committingJdbcTemplate;
+    private final List<Integer> accountIds = new ArrayList<>();
+    private final List<Integer> transferIds = new ArrayList<>();
+    private final List<List<Integer>> transferIdsByGroup = Arrays.asList(new ArrayList<>(), new ArrayList<>());
+
+    @Before
+    public void setup() {
+        SingleConnectionDataSource testDataSource = (SingleConnectionDataSource) dataSource;
+        committingDataSource = new DriverManagerDataSource(testDataSource.getUrl(), testDataSource.getUsername(), testDataSource.getPassword());
+        committingJdbcTemplate = new JdbcTemplate(committingDataSource);
+
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountIds.add(committingJdbcTemplate.queryForObject("INSERT INTO account (user_id, balance) VALUES (1003, ?) RETURNING account_id",
+                    Integer.class, OPENING_BALANCE));
+        }
+        Random random = new Random(42);
+        String transferSql = "INSERT INTO transfer (transfer_type_id, transfer_status_id, account_from, account_to, amount) " +
+                "VALUES (1, 1, ?, ?, ?) RETURNING transfer_id";
+        // Even accounts trade with even accounts, odd with odd
+        int groupSize = ACCOUNTS / 2;
+        for (int i = 0; i < TRANSFERS; i++) {
+            int group = i % 2;
+            int from = random.nextInt(groupSize);
+            int to = (from + 1 + random.nextInt(groupSize - 1)) % groupSize;
+            Integer transferId = committingJdbcTemplate.queryForObject(transferSql, Integer.class,
+                    accountIds.get(from * 2 + group), accountIds.get(to * 2 + group), 1 + random.nextInt(100));
+            transferIds.add(transferId);
+            transferIdsByGroup.get(group).add(transferId);
+        }
+    }
+
+    @After
+    public void cleanup() {
+        String ids = accountIds.toString().replace('[', '{').replace(']', '}');
+        committingJdbcTemplate.update("DELETE FROM ledger_entry WHERE account_id = ANY(?::int[])", ids);
+        committingJdbcTemplate.update("DELETE FROM transfer WHERE account_from = ANY(?::int[])", ids);
+        committingJdbcTemplate.update("DELETE FROM account WHERE account_id = ANY(?::int[])", ids);
+    }
+
+    @Test
+    public void cached_balances_match_the_database_after_concurrent_approvals() throws Exception {
+        AccountCache cache = new AccountCache(1000);
+        List<ConcurrentLinkedQueue<Integer>> workByGroup = Arrays.asList(
+                new ConcurrentLinkedQueue<>(transferIdsByGroup.get(0)), new ConcurrentLinkedQueue<>(transferIdsByGroup.get(1)));
+        AtomicBoolean approving = new AtomicBoolean(true);
+        AtomicInteger negativeReads = new AtomicInteger();
+        AtomicLong reads = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(APPROVERS + READERS);
+        List<Future<?>> approvers = new ArrayList<>();
+        for (int i = 0; i < APPROVERS; i++) {
+            boolean batched = i % 2 == 0;
+            ConcurrentLinkedQueue<Integer> work = workByGroup.get(i % 2);
+            approvers.add(executor.submit(() -> withConnection(connection -> {
+                JdbcTemplate jdbcTemplate = new JdbcTemplate(connection);
+                JdbcTransferDao transferDao = new JdbcTransferDao(jdbcTemplate, new AccountNameDictionary(jdbcTemplate), cache);
+                CachingAccountDao accountDao = new CachingAccountDao(new JdbcAccountDao(jdbcTemplate), cache, new AccountIdResolver(jdbcTemplate));
+                TransferServiceImpl transferService = new TransferServiceImpl(transferDao, accountDao);
+                TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(connection));
+                start.await();
+                Integer transferId;
+                while ((transferId = work.poll()) != null) {
+                    if (batched) {
+                        List<Integer> batch = new ArrayList<>(Arrays.asList(transferId));
+                        while (batch.size() < BATCH && (transferId = work.poll()) != null) {
+                            batch.add(transferId);
+                        }
+                        transactionTemplate.execute(status -> transferService.approveTransfers(batch));
+                    } else {
+                        transferDao.approvePendingTransfer(transferId);
+                    }
+                }
+            })));
+        }
+        List<Future<?>> readers = new ArrayList<>();
+        for (int i = 0; i < READERS; i++) {
+            readers.add(executor.submit(() -> withConnection(connection -> {
+                JdbcTemplate jdbcTemplate = new JdbcTemplate(connection);
+                CachingAccountDao accountDao = new CachingAccountDao(new JdbcAccountDao(jdbcTemplate), cache, new AccountIdResolver(jdbcTemplate));
+                Random random = new Random();
+                start.await();
+                while (approving.get()) {
+                    Account account = accountDao.findByAccountId(accountIds.get(random.nextInt(ACCOUNTS)));
+                    if (account.getBalance().getCents() < 0) {
+                        negativeReads.incrementAndGet();
+                    }
+                    reads.incrementAndGet();
+                }
+            })));
+        }
+
+        start.countDown();
+        for (Future<?> future : approvers) {
+            future.get();
+        }
+        approving.set(false);
+        for (Future<?> future : readers) {
+            future.get();
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        Assert.assertEquals(0, negativeReads.get());
+        Assert.assertTrue(reads.get() > 0);
+        Assert.assertTrue(cache.getHits() > 0);
+        Assert.assertTrue(cache.getInvalidations() > 0);
+        CachingAccountDao accountDao = new CachingAccountDao(new JdbcAccountDao(committingJdbcTemplate), cache,
+                new AccountIdResolver(committingJdbcTemplate));
+        BigDecimal total = BigDecimal.ZERO;
+        for (Integer accountId : accountIds) {
+            BigDecimal stored = committingJdbcTemplate.queryForObject("SELECT balance FROM account WHERE account_id = ?", BigDecimal.class, accountId);
+            Assert.assertEquals(stored, accountDao.findByAccountId(accountId).getBalance().toBigDecimal());
+            total = total.add(stored);
+        }
+        Assert.assertEquals(OPENING_BALANCE.multiply(BigDecimal.valueOf(ACCOUNTS)), total);
+        Integer approved = committingJdbcTemplate.queryForObject("SELECT count(*) FROM transfer WHERE transfer_id = ANY(?::int[]) " +
+                "AND transfer_status_id = 2", Integer.class, transferIds.toString().replace('[', '{').replace(']', '}'));
+        Assert.assertTrue(approved > 0);
+    }
+
+    private Void withConnection(ConnectionWork work) throws Exception {
+        SingleConnectionDataSource connection = new SingleConnectionDataSource(
+                committingDataSource.getUrl(), committingDataSource.getUsername(), committingDataSource.getPassword(), true);
+        try {
+            work.run(connection);
+        } finally {
+            connection.destroy();
+        }
+        return null;
+    }
+
+    private interface ConnectionWork {
+        void run(SingleConnectionDataSource connection) throws Exception;
+    }
+}
@@ -0,0 +1,73 @@
+package com.techelevator.dao;
+
+import com.techelevator.tenmo.dao.AccountIdResolver;
+import com.techelevator.tenmo.dao.JdbcAccountDao;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Registers a million users (or -Dtenmo.bench.users of them), then reports how long AccountIdResolver takes to load
+ * them, how much memory its table holds, and what a lookup costs against the findByUserId query it replaces.
+ * The rows are rolled back with the test transaction.
+ */
+public class AccountIdResolverLoadBenchmarkTests extends BaseBenchmarkTests {
+    private static final int USERS = Integer.getInteger("tenmo.bench.users", 1_000_000);
+    private static final int LOOKUPS = 1_000_000;
+    private static final int QUERIES = 50;
+
+    private JdbcTemplate jdbcTemplate;
+    private int firstBenchUser;
+
+    @Before
+    public void setup() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO tenmo_user (username, password_hash, role) " +
+                "SELECT 'bench' || g, 'x', 'ROLE_USER' FROM generate_series(1, ?) g", USERS);
+        jdbcTemplate.update("INSERT INTO account (user_id, balance) " +
+                "SELECT user_id, 1000 FROM tenmo_user WHERE username LIKE 'bench%' ORDER BY user_id");
+        jdbcTemplate.execute("ANALYZE account");
+        firstBenchUser = jdbcTemplate.queryForObject("SELECT min(user_id) FROM tenmo_user WHERE user_id > 1003", Integer.class);
+    }
+
+    @Test
+    public void load_time_footprint_and_lookup_cost() {
+        AccountIdResolver sut = new AccountIdResolver(jdbcTemplate);
+        long start = System.nanoTime();
+        sut.load();
+        double loadMillis = (System.nanoTime() - start) / 1e6;
+        Assert.assertEquals(USERS + 3, sut.size());
+
+        Random random = new Random(42);
+        int[] userIds = new int[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            userIds[i] = firstBenchUser + random.nextInt(USERS);
+        }
+        long checksum = 0;
+        start = System.nanoTime();
+        for (int userId : userIds) {
+            checksum += sut.find(userId);
+        }
+        double lookupNanos = (System.nanoTime() - start) / (double) LOOKUPS;
+        Assert.assertTrue(checksum > 0);
+
+        JdbcAccountDao accountDao = new JdbcAccountDao(jdbcTemplate);
+        long[] nanos = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            start = System.nanoTime();
+            int accountId = accountDao.findByUserId(userIds[i]).getAccountId();
+            nanos[i] = System.nanoTime() - start;
+            Assert.assertEquals(accountId, sut.find(userIds[i]));
+        }
+        Arrays.sort(nanos);
+
+        System.out.printf("AccountIdResolver over %d users: loaded in %.0f ms, table %.1f MB (%.1f bytes per user); " +
+                        "lookup %.0f ns, findByUserId query median %.1f us%n",
+                sut.size(), loadMillis, sut.memoryBytes() / 1048576.0, sut.memoryBytes() / (double) sut.size(),
+                lookupNanos, nanos[QUERIES / 2] / 1e3);
+    }
+}
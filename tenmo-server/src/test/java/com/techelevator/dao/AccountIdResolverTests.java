@@ -0,0 +1,62 @@
+package com.techelevator.dao;
+
+import com.techelevator.tenmo.dao.AccountIdResolver;
+import com.techelevator.tenmo.dao.AccountNameDictionary;
+import com.techelevator.tenmo.dao.JdbcUserDao;
+import com.techelevator.tenmo.model.RegisterUserDto;
+import com.techelevator.tenmo.model.User;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class AccountIdResolverTests extends BaseDaoTests {
+
+    private JdbcTemplate jdbcTemplate;
+    private AccountIdResolver sut;
+
+    @Before
+    public void setup() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        sut = new AccountIdResolver(jdbcTemplate);
+    }
+
+    @Test
+    public void load_reads_every_account_and_registration_adds_one() {
+        sut.load();
+        Assert.assertEquals(3, sut.size());
+        Assert.assertEquals(2001, sut.find(1001));
+        Assert.assertEquals(2003, sut.find(1003));
+        Assert.assertEquals(0, sut.find(-1));
+
+        RegisterUserDto registerUserDto = new RegisterUserDto();
+        registerUserDto.setUsername("New");
+        registerUserDto.setPassword("pw");
+        User user = new JdbcUserDao(jdbcTemplate, new AccountNameDictionary(jdbcTemplate), sut).createUser(registerUserDto);
+        Integer accountId = jdbcTemplate.queryForObject("SELECT account_id FROM account WHERE user_id = ?", Integer.class, user.getId());
+        Assert.assertEquals(accountId.intValue(), sut.find(user.getId()));
+    }
+
+    @Test
+    public void resolve_falls_back_to_the_database_and_remembers() {
+        Assert.assertEquals(0, sut.find(1002));
+        Assert.assertEquals(Integer.valueOf(2002), sut.resolve(1002));
+        Assert.assertEquals(2002, sut.find(1002));
+        Assert.assertNull(sut.resolve(-1));
+        Assert.assertNull(sut.resolve(null));
+    }
+
+    @Test
+    public void put_keeps_every_entry_across_resizes() {
+        for (int id = 1; id <= 100_000; id++) {
+            sut.put(id, id + 7);
+        }
+        sut.put(5, 1);
+
+        Assert.assertEquals(100_000, sut.size());
+        for (int id = 1; id <= 100_000; id++) {
+            Assert.assertEquals(id + 7, sut.find(id));
+        }
+        Assert.assertEquals(0, sut.find(100_001));
+    }
+}
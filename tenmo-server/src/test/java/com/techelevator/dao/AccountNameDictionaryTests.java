@@ -0,0 +1,112 @@
+package com.techelevator.dao;
+
+import com.techelevator.tenmo.dao.AccountCache;
+import com.techelevator.tenmo.dao.AccountIdResolver;
+import com.techelevator.tenmo.dao.AccountNameDictionary;
+import com.techelevator.tenmo.dao.JdbcTransferDao;
+import com.techelevator.tenmo.dao.JdbcUserDao;
+import com.techelevator.tenmo.model.Money;
+import com.techelevator.tenmo.model.RegisterUserDto;
+import com.techelevator.tenmo.model.TransferDto;
+import com.techelevator.tenmo.model.User;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class AccountNameDictionaryTests extends BaseDaoTests {
+    // The history query before the dictionary, which joined account and tenmo_user twice for the names
+    private static final String JOINED_SQL = "select t.transfer_id, fu.username, tu.username " +
+            "from (select transfer_id, created_at as activity_at from ledger_entry where account_id = ? " +
+            "union all select transfer_id, created_at from transfer where account_from = ? and transfer_status_id <> 2 " +
+            "union all select transfer_id, created_at from transfer where account_to = ? and transfer_status_id <> 2) h " +
+            "join transfer t on t.transfer_id = h.transfer_id " +
+            "left join account fa on t.account_from = fa.account_id " +
+            "left join tenmo_user fu on fa.user_id = fu.user_id " +
+            "left join account ta on t.account_to = ta.account_id " +
+            "left join tenmo_user tu on ta.user_id = tu.user_id " +
+            "order by h.activity_at desc, t.transfer_id desc";
+
+    private JdbcTemplate jdbcTemplate;
+    private AccountNameDictionary sut;
+
+    @Before
+    public void setup() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        sut = new AccountNameDictionary(jdbcTemplate);
+    }
+
+    @Test
+    public void load_reads_every_account_and_registration_adds_one() {
+        sut.load();
+        Assert.assertEquals("user1", sut.find(2001));
+        Assert.assertEquals("user3", sut.find(2003));
+        Assert.assertNull(sut.find(-1));
+
+        RegisterUserDto registerUserDto = new RegisterUserDto();
+        registerUserDto.setUsername("New");
+        registerUserDto.setPassword("pw");
+        User user = new JdbcUserDao(jdbcTemplate, sut, new AccountIdResolver(jdbcTemplate)).createUser(registerUserDto);
+        Integer accountId = jdbcTemplate.queryForObject("SELECT account_id FROM account WHERE user_id = ?", Integer.class, user.getId());
+        Assert.assertEquals("new", sut.find(accountId));
+    }
+
+    @Test
+    public void put_keeps_every_entry_across_resizes() {
+        for (int id = 1; id <= 100_000; id++) {
+            sut.put(id, "u" + id);
+        }
+        sut.put(5, "changed");
+
+        Assert.assertEquals(100_000, sut.size());
+        for (int id = 1; id <= 100_000; id++) {
+            Assert.assertEquals("u" + id, sut.find(id));
+        }
+        Assert.assertNull(sut.find(100_001));
+    }
+
+    @Test
+    public void fillNames_looks_up_missing_accounts_in_one_query() {
+        sut.put(2001, "user1");
+        TransferDto first = transfer(2001, 2002);
+        TransferDto second = transfer(2003, 2001);
+        List<TransferDto> transfers = Arrays.asList(first, second);
+
+        sut.fillNames(transfers);
+
+        Assert.assertEquals("user2", first.getAccountToName());
+        Assert.assertEquals("user3", second.getAccountFromName());
+        Assert.assertEquals("user1", second.getAccountToName());
+        Assert.assertEquals("user2", sut.find(2002));
+    }
+
+    @Test
+    public void history_names_match_the_joined_query() {
+        sut.load();
+        JdbcTransferDao transferDao = new JdbcTransferDao(jdbcTemplate, sut, new AccountCache(0));
+        transferDao.approvePendingTransfer(3001);
+        transferDao.addTransfer(2, 1, 2003, 2001, Money.ofCents(1_00));
+
+        for (int accountId = 2001; accountId <= 2003; accountId++) {
+            List<String> joined = jdbcTemplate.query(JOINED_SQL,
+                    (rs, rowNum) -> rs.getInt(1) + ":" + rs.getString(2) + ":" + rs.getString(3), accountId, accountId, accountId);
+            List<String> names = new ArrayList<>();
+            for (TransferDto transfer : transferDao.listByAccountId(accountId)) {
+                names.add(transfer.getTransferId() + ":" + transfer.getAccountFromName() + ":" + transfer.getAccountToName());
+            }
+            Assert.assertFalse(joined.isEmpty());
+            Assert.assertEquals(joined, names);
+        }
+    }
+
+    private static TransferDto transfer(int accountFrom, int accountTo) {
+        TransferDto transfer = new TransferDto();
+        transfer.setAccountFrom(accountFrom);
+        transfer.setAccountTo(accountTo);
+        return transfer;
+    }
+}
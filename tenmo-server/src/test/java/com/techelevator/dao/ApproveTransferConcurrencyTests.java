@@ -0,0 +1,51 @@
+package com.techelevator.dao;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+/**
+ * Hammers approvePendingTransfer from several connections at once. Every transfer is approved by two threads,
+ * and the payer can only cover part of them, so lost updates or double approvals show up in the final balances.
+ * Unlike the other DAO tests this one has to commit, so it creates its own accounts and deletes them afterwards.
+ */
+public class ApproveTransferConcurrencyTests extends BaseDaoTests {
+    private static final int THREADS = 8;
+    private static final int TRANSFERS = 400;
+    private static final int AFFORDABLE = 300;
+    private static final int AMOUNT = 5;
+
+    private PendingTransferRace race;
+
+    @Before
+    public void setup() {
+        race = new PendingTransferRace((SingleConnectionDataSource) dataSource, TRANSFERS, AFFORDABLE, AMOUNT);
+    }
+
+    @After
+    public void cleanup() {
+        race.cleanup();
+    }
+
+    @Test
+    public void concurrent_approvals_lose_no_updates() throws Exception {
+        race.run(THREADS);
+
+        // Each affordable transfer succeeds once and is found already approved by its second caller; every other
+        // transfer is turned down twice and stays pending
+        Assert.assertEquals(AFFORDABLE, race.approved.get());
+        Assert.assertEquals(AFFORDABLE, race.notPending.get());
+        Assert.assertEquals((TRANSFERS - AFFORDABLE) * 2, race.insufficient.get());
+
+        // Money is only moved, never created or lost
+        Assert.assertEquals(0, race.payerBalance());
+        Assert.assertEquals(AFFORDABLE * AMOUNT, race.payeeBalance());
+
+        Assert.assertEquals(AFFORDABLE, race.countTransfers(2));
+        Assert.assertEquals(TRANSFERS - AFFORDABLE, race.countTransfers(1));
+        Assert.assertEquals(AFFORDABLE * 2, race.countLedgerRows());
+        Assert.assertEquals(0, race.sumLedgerRows());
+    }
+}
@@ -0,0 +1,39 @@
+package com.techelevator.dao;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+/**
+ * Prints approvals/sec for approvePendingTransfer against Postgres, with every transfer approved from two of
+ * several connections. Commits its own accounts and transfers and deletes them afterwards.
+ */
+public class ApproveTransferThroughputBenchmarkTests extends BaseBenchmarkTests {
+    private static final int THREADS = 8;
+    private static final int TRANSFERS = 5000;
+    private static final int AMOUNT = 5;
+
+    private PendingTransferRace race;
+
+    @Before
+    public void setup() {
+        race = new PendingTransferRace((SingleConnectionDataSource) dataSource, TRANSFERS, TRANSFERS, AMOUNT);
+    }
+
+    @After
+    public void cleanup() {
+        race.cleanup();
+    }
+
+    @Test
+    public void concurrent_approvals_per_second() throws Exception {
+        long elapsedNanos = race.run(THREADS);
+
+        System.out.printf("approvePendingTransfer: %d calls on %d threads in %d ms (%.0f calls/sec, %.0f approvals/sec)%n",
+                race.calls(), THREADS, elapsedNanos / 1_000_000, race.calls() / (elapsedNanos / 1e9),
+                race.approved.get() / (elapsedNanos / 1e9));
+        Assert.assertEquals(TRANSFERS, race.approved.get());
+    }
+}
@@ -0,0 +1,17 @@
+package com.techelevator.dao;
+
+import org.junit.Assume;
+import org.junit.BeforeClass;
+
+/**
+ * Database benchmarks that load large data sets or run for many seconds and print their timings. They are skipped
+ * unless the tests are run with -Dtenmo.bench=true.
+ */
+public abstract class BaseBenchmarkTests extends BaseDaoTests {
+
+    @BeforeClass
+    public static void benchmarksEnabled() {
+        Assume.assumeTrue("benchmark, run with -Dtenmo.bench=true", Boolean.getBoolean("tenmo.bench"));
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.techelevator.dao;
+
+import com.techelevator.tenmo.dao.AccountCache;
+import com.techelevator.tenmo.dao.AccountIdResolver;
+import com.techelevator.tenmo.dao.CachingAccountDao;
+import com.techelevator.tenmo.dao.JdbcAccountDao;
+import com.techelevator.tenmo.dao.JdbcTransferDao;
+import com.techelevator.tenmo.dao.AccountNameDictionary;
+import com.techelevator.tenmo.model.Money;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+public class CachingAccountDaoTests extends BaseDaoTests {
+
+    private JdbcTemplate jdbcTemplate;
+    private AccountCache cache;
+    private CachingAccountDao sut;
+
+    @Before
+    public void setup() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        cache = new AccountCache(100);
+        sut = new CachingAccountDao(new JdbcAccountDao(jdbcTemplate), cache, new AccountIdResolver(jdbcTemplate));
+    }
+
+    @Test
+    public void repeated_reads_are_served_from_memory() {
+        sut.findByUserId(1001);
+        sut.findByUserId(1001);
+        // Changed behind the cache's back, so only a cached read still sees 1000
+        jdbcTemplate.update("UPDATE account SET balance = 1 WHERE account_id = 2001");
+
+        Assert.assertEquals(Money.parse("1000.00"), sut.findByUserId(1001).getBalance());
+        Assert.assertEquals(Money.parse("1000.00"), sut.findByAccountId(2001).getBalance());
+        Assert.assertEquals(3, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void balance_updates_write_through_and_approvals_invalidate() {
+        sut.findByAccountId(2001);
+        sut.updateBalanceByAccountId(2001, Money.parse("7.00"));
+        jdbcTemplate.update("UPDATE account SET balance = 8 WHERE account_id = 2001");
+        Assert.assertEquals(Money.parse("7.00"), sut.findByAccountId(2001).getBalance());
+
+        sut.findByAccountId(2002);
+        JdbcTransferDao transferDao = new JdbcTransferDao(jdbcTemplate, new AccountNameDictionary(jdbcTemplate), cache);
+        transferDao.approvePendingTransfer(3001);
+        Assert.assertEquals(Money.parse("900.00"), sut.findByAccountId(2002).getBalance());
+        Assert.assertEquals(Money.parse("108.00"), sut.findByAccountId(2001).getBalance());
+    }
+
+    @Test
+    public void rolled_back_write_is_not_cached() {
+        sut.findByAccountId(2001);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        transactionTemplate.execute(status -> {
+            sut.updateBalanceByAccountId(2001, Money.parse("5.00"));
+            // The transaction reads its own write, not the committed balance still held for everyone else
+            Assert.assertEquals(Money.parse("5.00"), sut.findByAccountId(2001).getBalance());
+            status.setRollbackOnly();
+            return null;
+        });
+
+        Assert.assertEquals(Money.parse("1000.00"), sut.findByAccountId(2001).getBalance());
+        Assert.assertEquals(Money.parse("1000.00"), cache.find(2001).getBalance());
+    }
+
+    @Test
+    public void read_only_transactions_are_cached_unless_a_replica_may_serve_them() {
+        TransactionTemplate readOnly = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        readOnly.setReadOnly(true);
+        readOnly.execute(status -> sut.findByAccountId(2001));
+        Assert.assertNotNull(cache.find(2001));
+
+        AccountCache replicaCache = new AccountCache(100, "jdbc:postgresql://replica/tenmo");
+        CachingAccountDao replicaDao = new CachingAccountDao(new JdbcAccountDao(jdbcTemplate), replicaCache, new AccountIdResolver(jdbcTemplate));
+        readOnly.execute(status -> replicaDao.findByAccountId(2001));
+        Assert.assertNull(replicaCache.find(2001));
+    }
+}
@@ -0,0 +1,77 @@
+package com.techelevator.dao;
+
+import com.techelevator.tenmo.dao.JdbcBalanceSnapshotDao;
+import com.techelevator.tenmo.dao.JdbcTransferDao;
+import com.techelevator.tenmo.enums.TransferStatusEnum;
+import com.techelevator.tenmo.model.Money;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class JdbcBalanceSnapshotDaoTests extends BaseDaoTests {
+    private static final int PENDING_TRANSFER_ID = 3001;
+
+    private JdbcBalanceSnapshotDao sut;
+    private JdbcTransferDao transferDao;
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    public void setup() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        sut = new JdbcBalanceSnapshotDao(jdbcTemplate);
+        transferDao = new JdbcTransferDao(jdbcTemplate);
+    }
+
+    @Test
+    public void balance_includes_approvals_after_the_snapshot() {
+        transferDao.approvePendingTransfer(PENDING_TRANSFER_ID);
+
+        Assert.assertEquals(Money.ofCents(1100_00), sut.findBalanceByUserId(1001));
+        Assert.assertEquals(Money.ofCents(900_00), sut.findBalanceByUserId(1002));
+        Assert.assertNull(sut.findBalanceByUserId(-1));
+    }
+
+    @Test
+    public void refresh_folds_approvals_into_the_snapshot_once() {
+        transferDao.approvePendingTransfer(PENDING_TRANSFER_ID);
+        long head = sut.findMaxApprovalSeq();
+
+        Assert.assertEquals(Arrays.asList(2001, 2002), sortedAccountIdsApprovedUpTo(head));
+        Assert.assertEquals(2, sut.refreshSnapshots(Arrays.asList(2001, 2002)));
+        Assert.assertEquals(0, sut.refreshSnapshots(Arrays.asList(2001, 2002)));
+
+        Assert.assertEquals(Money.ofCents(1100_00), snapshotBalance(2001));
+        Assert.assertEquals(Money.ofCents(1100_00), sut.findBalanceByUserId(1001));
+        Assert.assertEquals(0, sut.countDrift());
+    }
+
+    @Test
+    public void rebuild_recomputes_snapshots_from_opening_balance() {
+        transferDao.updatePendingTransferStatuses(Collections.singletonList(PENDING_TRANSFER_ID), TransferStatusEnum.APPROVED.getStatusId());
+        jdbcTemplate.update("UPDATE balance_snapshot SET balance = 0");
+
+        Assert.assertEquals(3, sut.rebuildSnapshots(2001, 2003));
+
+        Assert.assertEquals(Money.ofCents(1100_00), snapshotBalance(2001));
+        Assert.assertEquals(Money.ofCents(900_00), snapshotBalance(2002));
+        Assert.assertEquals(Money.ofCents(1000_00), snapshotBalance(2003));
+        // Only the status changed here, so account.balance no longer agrees for the two accounts involved
+        Assert.assertEquals(2, sut.countDrift());
+    }
+
+    private List<Integer> sortedAccountIdsApprovedUpTo(long head) {
+        List<Integer> accountIds = sut.findAccountIdsApprovedBetween(0, head);
+        Collections.sort(accountIds);
+        return accountIds;
+    }
+
+    private Money snapshotBalance(int accountId) {
+        return Money.ofCents(jdbcTemplate.queryForObject(
+                "SELECT (balance * 100)::bigint FROM balance_snapshot WHERE account_id = ?", Long.class, accountId));
+    }
+}
@@ -0,0 +1,48 @@
+package com.techelevator.dao;
+
+import com.techelevator.tenmo.dao.JdbcLedgerPartitionDao;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.YearMonth;
+
+public class JdbcLedgerPartitionDaoTests extends BaseDaoTests {
+
+    private JdbcLedgerPartitionDao sut;
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    public void setup() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        sut = new JdbcLedgerPartitionDao(jdbcTemplate);
+    }
+
+    @Test
+    public void creates_a_partition_once() {
+        Assert.assertEquals(0, sut.createMonthlyPartition(YearMonth.of(2090, 1)));
+        Assert.assertEquals(-1, sut.createMonthlyPartition(YearMonth.of(2090, 1)));
+    }
+
+    @Test
+    public void moves_rows_stranded_in_the_default_partition() {
+        String insert = "INSERT INTO ledger_entry (transfer_id, account_id, amount, created_at) VALUES (3002, ?, ?, ?::timestamp)";
+        jdbcTemplate.update(insert, 2001, 50, "2090-02-10 12:00");
+        jdbcTemplate.update(insert, 2002, -50, "2090-02-10 12:00");
+        jdbcTemplate.update(insert, 2001, 50, "2090-03-01 00:00");
+
+        Assert.assertEquals(2, sut.createMonthlyPartition(YearMonth.of(2090, 2)));
+
+        Assert.assertEquals(2, count("ledger_entry_2090_02"));
+        Assert.assertEquals(1, count("ledger_entry_default WHERE created_at >= '2090-01-01'"));
+        Assert.assertEquals(3, count("ledger_entry WHERE created_at >= '2090-01-01'"));
+        // New postings for the month now go to the partition
+        jdbcTemplate.update(insert, 2003, 5, "2090-02-20 00:00");
+        Assert.assertEquals(3, count("ledger_entry_2090_02"));
+    }
+
+    private int count(String from) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM " + from, Integer.class);
+    }
+}
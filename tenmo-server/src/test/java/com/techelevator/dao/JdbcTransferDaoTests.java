@@ -0,0 +1,170 @@
+package com.techelevator.dao;
+
+import com.techelevator.tenmo.dao.JdbcAccountDao;
+import com.techelevator.tenmo.dao.JdbcTransferDao;
+import com.techelevator.tenmo.enums.TransferDirectionEnum;
+import com.techelevator.tenmo.enums.TransferResultEnum;
+import com.techelevator.tenmo.enums.TransferStatusEnum;
+import com.techelevator.tenmo.enums.TransferTypeEnum;
+import com.techelevator.tenmo.model.BatchTransferDto;
+import com.techelevator.tenmo.model.BucksDto;
+import com.techelevator.tenmo.model.Money;
+import com.techelevator.tenmo.model.TransferDto;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class JdbcTransferDaoTests extends BaseDaoTests {
+    private static final int PENDING_TRANSFER_ID = 3001;
+    private static final int APPROVED_TRANSFER_ID = 3002;
+    private static final int TOO_LARGE_TRANSFER_ID = 3003;
+
+    private JdbcTransferDao sut;
+    private JdbcAccountDao accountDao;
+
+    @Before
+    public void setup() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        sut = new JdbcTransferDao(jdbcTemplate);
+        accountDao = new JdbcAccountDao(jdbcTemplate);
+    }
+
+    @Test
+    public void approvePendingTransfer_moves_balance_and_approves() {
+        TransferResultEnum result = sut.approvePendingTransfer(PENDING_TRANSFER_ID);
+
+        Assert.assertEquals(TransferResultEnum.SUCCESS, result);
+        Assert.assertEquals(TransferStatusEnum.APPROVED.getStatusId(), sut.getTransferById(PENDING_TRANSFER_ID).getTransferStatusId());
+        Assert.assertEquals(Money.ofCents(1100_00), accountDao.findByAccountId(2001).getBalance());
+        Assert.assertEquals(Money.ofCents(900_00), accountDao.findByAccountId(2002).getBalance());
+    }
+
+    @Test
+    public void approvePendingTransfer_twice_only_applies_once() {
+        sut.approvePendingTransfer(PENDING_TRANSFER_ID);
+
+        Assert.assertEquals(TransferResultEnum.NOT_PENDING, sut.approvePendingTransfer(PENDING_TRANSFER_ID));
+        Assert.assertEquals(Money.ofCents(900_00), accountDao.findByAccountId(2002).getBalance());
+    }
+
+    @Test
+    public void approvePendingTransfer_given_insufficient_balance_changes_nothing() {
+        TransferResultEnum result = sut.approvePendingTransfer(TOO_LARGE_TRANSFER_ID);
+
+        Assert.assertEquals(TransferResultEnum.INSUFFICIENT_BALANCE, result);
+        Assert.assertEquals(TransferStatusEnum.PENDING.getStatusId(), sut.getTransferById(TOO_LARGE_TRANSFER_ID).getTransferStatusId());
+        Assert.assertEquals(Money.ofCents(1000_00), accountDao.findByAccountId(2002).getBalance());
+        Assert.assertEquals(Money.ofCents(1000_00), accountDao.findByAccountId(2003).getBalance());
+    }
+
+    @Test
+    public void approvePendingTransfer_given_invalid_id_returns_not_found() {
+        Assert.assertEquals(TransferResultEnum.NOT_FOUND, sut.approvePendingTransfer(-1));
+    }
+
+    @Test
+    public void rejectPendingTransfer_rejects_only_pending() {
+        Assert.assertEquals(TransferResultEnum.SUCCESS, sut.rejectPendingTransfer(PENDING_TRANSFER_ID));
+        Assert.assertEquals(TransferStatusEnum.REJECTED.getStatusId(), sut.getTransferById(PENDING_TRANSFER_ID).getTransferStatusId());
+        Assert.assertEquals(TransferResultEnum.NOT_PENDING, sut.rejectPendingTransfer(APPROVED_TRANSFER_ID));
+        Assert.assertEquals(TransferResultEnum.NOT_FOUND, sut.rejectPendingTransfer(-1));
+    }
+
+    @Test
+    public void approving_posts_a_debit_and_a_credit() {
+        sut.approvePendingTransfer(PENDING_TRANSFER_ID);
+        sut.updatePendingTransferStatuses(Arrays.asList(TOO_LARGE_TRANSFER_ID), TransferStatusEnum.APPROVED.getStatusId());
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        Assert.assertEquals(Arrays.asList(new BigDecimal("-100.00"), new BigDecimal("100.00")), jdbcTemplate.queryForList(
+                "SELECT amount FROM ledger_entry WHERE transfer_id = ? ORDER BY amount", BigDecimal.class, PENDING_TRANSFER_ID));
+        Assert.assertEquals(Integer.valueOf(2001), jdbcTemplate.queryForObject(
+                "SELECT account_id FROM ledger_entry WHERE transfer_id = ? AND amount > 0", Integer.class, PENDING_TRANSFER_ID));
+        Assert.assertEquals(Integer.valueOf(2), jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM ledger_entry WHERE transfer_id = ?", Integer.class, TOO_LARGE_TRANSFER_ID));
+    }
+
+    @Test
+    public void listByAccountId_returns_posted_and_unposted_transfers_once() {
+        sut.rejectPendingTransfer(TOO_LARGE_TRANSFER_ID);
+
+        List<TransferDto> history = sut.listByAccountId(2002);
+
+        Assert.assertEquals(3, history.size());
+        Assert.assertEquals(Arrays.asList(3003, 3002, 3001), Arrays.asList(history.get(0).getTransferId(),
+                history.get(1).getTransferId(), history.get(2).getTransferId()));
+        Assert.assertEquals("user1", history.get(2).getAccountFromName());
+        Assert.assertEquals(1, sut.listByAccountId(2003).size());
+    }
+
+    @Test
+    public void streamByAccountId_matches_listByAccountId() {
+        sut.approvePendingTransfer(PENDING_TRANSFER_ID);
+
+        List<TransferDto> streamed = new ArrayList<>();
+        sut.streamByAccountId(2002, streamed::add);
+
+        Assert.assertEquals(transferIds(sut.listByAccountId(2002)), transferIds(streamed));
+        // Just approved, so its ledger entry is the newest activity
+        Assert.assertEquals(PENDING_TRANSFER_ID, streamed.get(0).getTransferId().intValue());
+        Assert.assertEquals("user1", streamed.get(0).getAccountFromName());
+        Assert.assertEquals(Money.parse("100.00"), streamed.get(0).getAmount());
+    }
+
+    @Test
+    public void listPageByAccountId_pages_by_transfer_id_with_filters() {
+        sut.approvePendingTransfer(PENDING_TRANSFER_ID);
+
+        List<TransferDto> firstPage = sut.listPageByAccountId(2002, TransferDirectionEnum.ALL, null, null, 2);
+        Assert.assertEquals(Arrays.asList(3003, 3002), transferIds(firstPage));
+        List<TransferDto> secondPage = sut.listPageByAccountId(2002, TransferDirectionEnum.ALL, null, 3002, 2);
+        Assert.assertEquals(Arrays.asList(3001), transferIds(secondPage));
+
+        Assert.assertEquals(Arrays.asList(3002, 3001), transferIds(sut.listPageByAccountId(2001, TransferDirectionEnum.FROM, null, null, 10)));
+        Assert.assertTrue(sut.listPageByAccountId(2001, TransferDirectionEnum.TO, null, null, 10).isEmpty());
+        Assert.assertEquals(Arrays.asList(3003), transferIds(sut.listPageByAccountId(2002, TransferDirectionEnum.TO,
+                TransferStatusEnum.PENDING.getStatusId(), null, 10)));
+        Assert.assertEquals(Arrays.asList(3002, 3001), transferIds(sut.listPageByAccountId(2002, TransferDirectionEnum.TO,
+                TransferStatusEnum.APPROVED.getStatusId(), null, 10)));
+    }
+
+    private static List<Integer> transferIds(List<TransferDto> transfers) {
+        List<Integer> ids = new ArrayList<>();
+        for (TransferDto transfer : transfers) {
+            ids.add(transfer.getTransferId());
+        }
+        return ids;
+    }
+
+    @Test
+    public void addTransfers_inserts_valid_items_and_reports_errors() {
+        List<BucksDto> bucksDtos = Arrays.asList(
+                new BucksDto(1001, 1002, Money.parse("10.00")),
+                new BucksDto(1001, -1, Money.parse("10.00")),
+                new BucksDto(1002, 1002, Money.parse("10.00")),
+                new BucksDto(1002, 1003, Money.ZERO),
+                new BucksDto(1003, 1001, Money.parse("25.50")));
+
+        List<BatchTransferDto> results = sut.addTransfers(TransferTypeEnum.SEND.getTypeId(), TransferStatusEnum.PENDING.getStatusId(), bucksDtos);
+
+        Assert.assertEquals(5, results.size());
+        Assert.assertNull(results.get(1).getTransferId());
+        Assert.assertNotNull(results.get(1).getError());
+        Assert.assertNotNull(results.get(2).getError());
+        Assert.assertNotNull(results.get(3).getError());
+
+        TransferDto first = sut.getTransferById(results.get(0).getTransferId());
+        Assert.assertEquals(2001, first.getAccountFrom().intValue());
+        Assert.assertEquals(2002, first.getAccountTo().intValue());
+        Assert.assertEquals(Money.parse("10.00"), first.getAmount());
+        TransferDto last = sut.getTransferById(results.get(4).getTransferId());
+        Assert.assertEquals(2003, last.getAccountFrom().intValue());
+        Assert.assertEquals(Money.parse("25.50"), last.getAmount());
+    }
+}
@@ -1,14 +1,23 @@
 package com.techelevator.dao;
 
+import com.techelevator.tenmo.dao.AccountIdResolver;
+import com.techelevator.tenmo.dao.AccountNameDictionary;
 import com.techelevator.tenmo.dao.JdbcUserDao;
+import com.techelevator.tenmo.dao.UsernameIndex;
 import com.techelevator.tenmo.exception.DaoException;
+import com.techelevator.tenmo.model.BulkRegistrationDto;
 import com.techelevator.tenmo.model.RegisterUserDto;
 import com.techelevator.tenmo.model.User;
+import com.techelevator.tenmo.model.UserDirectoryEntryDto;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
 
+import java.util.Arrays;
 import java.util.List;
 
 public class JdbcUserDaoTests extends BaseDaoTests {
@@ -41,6 +50,16 @@ public class JdbcUserDaoTests extends BaseDaoTests {
         Assert.assertEquals(USER_1, actualUser);
     }
 
+    @Test
+    public void getUserById_maps_the_role_column() {
+        new JdbcTemplate(dataSource).update("UPDATE tenmo_user SET role = 'ROLE_ADMIN' WHERE user_id = ?", USER_1.getId());
+
+        User admin = sut.getUserById(USER_1.getId());
+
+        Assert.assertEquals(new User(1001, "user1", "user1", "ADMIN").getAuthorities(), admin.getAuthorities());
+        Assert.assertEquals(USER_2.getAuthorities(), sut.getUserById(USER_2.getId()).getAuthorities());
+    }
+
     @Test
     public void getUserById_given_invalid_user_id_returns_null() {
         User actualUser = sut.getUserById(-1);
@@ -66,6 +85,19 @@ public class JdbcUserDaoTests extends BaseDaoTests {
         Assert.assertEquals(USER_3, users.get(2));
     }
 
+    @Test
+    public void listDirectoryPage_pages_through_users_in_id_order() {
+        List<UserDirectoryEntryDto> first = sut.listDirectoryPage(null, 2);
+        List<UserDirectoryEntryDto> second = sut.listDirectoryPage(first.get(1).getId(), 2);
+
+        Assert.assertEquals(2, first.size());
+        Assert.assertEquals(USER_1.getId(), first.get(0).getId());
+        Assert.assertEquals(USER_1.getUsername(), first.get(0).getUsername());
+        Assert.assertEquals(USER_2.getId(), first.get(1).getId());
+        Assert.assertEquals(1, second.size());
+        Assert.assertEquals(USER_3.getId(), second.get(0).getId());
+    }
+
     @Test(expected = DaoException.class)
     public void createUser_with_null_username() {
         RegisterUserDto registerUserDto = new RegisterUserDto();
@@ -103,4 +135,70 @@ public class JdbcUserDaoTests extends BaseDaoTests {
         User retrievedUser = sut.getUserByUsername(createdUser.getUsername());
         Assert.assertEquals(retrievedUser, createdUser);
     }
+
+    @Test
+    public void createUsers_creates_users_with_accounts_and_skips_duplicates() {
+        BulkRegistrationDto result = sut.createUsers(Arrays.asList(
+                registerUserDto(" Bulk1 ", "password1"),
+                registerUserDto("bulk2", "password2"),
+                registerUserDto("BULK1", "other"),
+                registerUserDto(USER_1.getUsername(), "password"),
+                registerUserDto("", "password")));
+
+        Assert.assertEquals(2, result.getCreated());
+        Assert.assertEquals(3, result.getSkipped().size());
+        User bulk1 = sut.getUserByUsername("bulk1");
+        Assert.assertNotNull(bulk1);
+        Assert.assertTrue(new BCryptPasswordEncoder().matches("password1", bulk1.getPassword()));
+        Assert.assertNotNull(sut.getUserByUsername("bulk2"));
+        Integer balance = new JdbcTemplate(dataSource).queryForObject(
+                "SELECT (balance * 100)::int FROM account WHERE user_id = ?", Integer.class, bulk1.getId());
+        Assert.assertEquals(Integer.valueOf(100_000), balance);
+    }
+
+    @Test
+    public void createUsers_skips_existing_usernames_with_quotes_and_backslashes() {
+        String awkward = "o\"brien,{x}\\";
+        sut.createUser(registerUserDto(awkward, "password"));
+
+        BulkRegistrationDto result = sut.createUsers(Arrays.asList(registerUserDto(awkward, "other")));
+
+        Assert.assertEquals(0, result.getCreated());
+        Assert.assertEquals(1, result.getSkipped().size());
+    }
+
+    @Test
+    public void createUsers_updates_the_in_memory_maps_only_after_commit() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        AccountIdResolver accountIds = new AccountIdResolver(jdbcTemplate);
+        UsernameIndex usernameIndex = new UsernameIndex(jdbcTemplate);
+        JdbcUserDao transactional = new JdbcUserDao(jdbcTemplate, new AccountNameDictionary(jdbcTemplate), accountIds, usernameIndex, null);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            transactional.createUsers(Arrays.asList(registerUserDto("rolledback", "password")));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        Assert.assertEquals(0, accountIds.find(sut.getUserByUsername("rolledback").getId()));
+        Assert.assertTrue(usernameIndex.search("rolledback", 10).isEmpty());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            transactional.createUsers(Arrays.asList(registerUserDto("committed", "password")));
+            Assert.assertTrue(usernameIndex.search("committed", 10).isEmpty());
+            TransactionSynchronizationUtils.triggerAfterCommit();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        Assert.assertNotEquals(0, accountIds.find(sut.getUserByUsername("committed").getId()));
+        Assert.assertEquals(1, usernameIndex.search("committed", 10).size());
+    }
+
+    private static RegisterUserDto registerUserDto(String username, String password) {
+        RegisterUserDto registerUserDto = new RegisterUserDto();
+        registerUserDto.setUsername(username);
+        registerUserDto.setPassword(password);
+        return registerUserDto;
+    }
 }
@@ -0,0 +1,134 @@
+package com.techelevator.dao;
+
+import com.techelevator.tenmo.dao.JdbcTransferDao;
+import com.techelevator.tenmo.enums.TransferResultEnum;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Committed pending transfers from a payer who can only cover some of them, approved twice each from several
+ * connections at once. The rows are created by the constructor and removed by cleanup.
+ */
+class PendingTransferRace {
+    private final DriverManagerDataSource committingDataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final int payerAccountId;
+    private final int payeeAccountId;
+    private final List<Integer> transferIds = new ArrayList<>();
+
+    final AtomicInteger approved = new AtomicInteger();
+    final AtomicInteger notPending = new AtomicInteger();
+    final AtomicInteger insufficient = new AtomicInteger();
+
+    PendingTransferRace(SingleConnectionDataSource testDataSource, int transfers, int affordable, int amount) {
+        committingDataSource = new DriverManagerDataSource(testDataSource.getUrl(), testDataSource.getUsername(), testDataSource.getPassword());
+        jdbcTemplate = new JdbcTemplate(committingDataSource);
+
+        String accountSql = "INSERT INTO account (user_id, balance) VALUES (?, ?) RETURNING account_id";
+        payerAccountId = jdbcTemplate.queryForObject(accountSql, Integer.class, 1003, affordable * amount);
+        payeeAccountId = jdbcTemplate.queryForObject(accountSql, Integer.class, 1003, 0);
+
+        String transferSql = "INSERT INTO transfer (transfer_type_id, transfer_status_id, account_from, account_to, amount) " +
+                "VALUES (1, 1, ?, ?, ?) RETURNING transfer_id";
+        for (int i = 0; i < transfers; i++) {
+            transferIds.add(jdbcTemplate.queryForObject(transferSql, Integer.class, payeeAccountId, payerAccountId, amount));
+        }
+    }
+
+    /**
+     * Approves every transfer twice on the given number of threads and returns the elapsed nanoseconds.
+     */
+    long run(int threads) throws Exception {
+        ConcurrentLinkedQueue<Integer> work = new ConcurrentLinkedQueue<>();
+        for (Integer transferId : transferIds) {
+            work.add(transferId);
+            work.add(transferId);
+        }
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                SingleConnectionDataSource connection = new SingleConnectionDataSource(
+                        committingDataSource.getUrl(), committingDataSource.getUsername(), committingDataSource.getPassword(), true);
+                try {
+                    JdbcTransferDao transferDao = new JdbcTransferDao(new JdbcTemplate(connection));
+                    start.await();
+                    Integer transferId;
+                    while ((transferId = work.poll()) != null) {
+                        TransferResultEnum result = transferDao.approvePendingTransfer(transferId);
+                        if (result == TransferResultEnum.SUCCESS) {
+                            approved.incrementAndGet();
+                        } else if (result == TransferResultEnum.NOT_PENDING) {
+                            notPending.incrementAndGet();
+                        } else if (result == TransferResultEnum.INSUFFICIENT_BALANCE) {
+                            insufficient.incrementAndGet();
+                        }
+                    }
+                } finally {
+                    connection.destroy();
+                }
+                return null;
+            }));
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        return elapsedNanos;
+    }
+
+    int calls() {
+        return transferIds.size() * 2;
+    }
+
+    int payerBalance() {
+        return balanceOf(payerAccountId);
+    }
+
+    int payeeBalance() {
+        return balanceOf(payeeAccountId);
+    }
+
+    int countTransfers(int transferStatusId) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM transfer WHERE account_to = ? AND transfer_status_id = ?",
+                Integer.class, payerAccountId, transferStatusId);
+    }
+
+    int countLedgerRows() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM ledger_entry WHERE account_id IN (?, ?)",
+                Integer.class, payerAccountId, payeeAccountId);
+    }
+
+    int sumLedgerRows() {
+        return jdbcTemplate.queryForObject("SELECT coalesce(sum(amount), 0) FROM ledger_entry WHERE account_id IN (?, ?)",
+                Integer.class, payerAccountId, payeeAccountId);
+    }
+
+    void cleanup() {
+        jdbcTemplate.update("DELETE FROM ledger_entry WHERE account_id IN (?, ?)", payerAccountId, payeeAccountId);
+        jdbcTemplate.update("DELETE FROM transfer WHERE account_from = ? OR account_to = ?", payeeAccountId, payerAccountId);
+        jdbcTemplate.update("DELETE FROM account WHERE account_id IN (?, ?)", payerAccountId, payeeAccountId);
+    }
+
+    private int balanceOf(int accountId) {
+        return jdbcTemplate.queryForObject("SELECT balance FROM account WHERE account_id = ?", Integer.class, accountId);
+    }
+}
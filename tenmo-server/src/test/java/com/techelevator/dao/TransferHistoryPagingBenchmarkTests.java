@@ -0,0 +1,98 @@
+package com.techelevator.dao;
+
+import com.techelevator.tenmo.dao.JdbcTransferDao;
+import com.techelevator.tenmo.enums.TransferDirectionEnum;
+import com.techelevator.tenmo.model.TransferDto;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.rowset.SqlRowSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Loads one account with a long history and times a page near the start and a page near the end, once with
+ * listPageByAccountId and once with the OFFSET query it replaces. Both must return the same transfers.
+ * The rows are rolled back with the test transaction.
+ */
+public class TransferHistoryPagingBenchmarkTests extends BaseBenchmarkTests {
+    private static final int TRANSFERS = 200_000;
+    private static final int PAGE_SIZE = 50;
+    private static final int RUNS = 20;
+    private static final String OFFSET_SQL = "SELECT t.transfer_id, t.transfer_type_id, t.transfer_status_id, t.account_from, " +
+            "fu.username AS accountFromName, t.account_to, tu.username AS accountToName, (t.amount * 100)::bigint AS amount_cents " +
+            "FROM transfer t " +
+            "LEFT JOIN account fa ON t.account_from = fa.account_id " +
+            "LEFT JOIN tenmo_user fu ON fa.user_id = fu.user_id " +
+            "LEFT JOIN account ta ON t.account_to = ta.account_id " +
+            "LEFT JOIN tenmo_user tu ON ta.user_id = tu.user_id " +
+            "WHERE t.account_from = ? OR t.account_to = ? " +
+            "ORDER BY t.transfer_id DESC OFFSET ? LIMIT ?";
+
+    private JdbcTemplate jdbcTemplate;
+    private JdbcTransferDao sut;
+
+    @Before
+    public void setup() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        sut = new JdbcTransferDao(jdbcTemplate);
+        // Half approved with their ledger entries, the rest pending or rejected, alternating direction
+        jdbcTemplate.update("WITH t AS (INSERT INTO transfer (transfer_type_id, transfer_status_id, account_from, account_to, amount) " +
+                "SELECT 2, CASE WHEN g % 2 = 0 THEN 2 WHEN g % 3 = 0 THEN 3 ELSE 1 END, " +
+                "CASE WHEN g % 4 < 2 THEN 2001 ELSE 2002 END, CASE WHEN g % 4 < 2 THEN 2002 ELSE 2001 END, 1 " +
+                "FROM generate_series(1, ?) g RETURNING transfer_id, transfer_status_id, account_from, account_to, amount) " +
+                "INSERT INTO ledger_entry (transfer_id, account_id, amount) " +
+                "SELECT transfer_id, account_from, amount FROM t WHERE transfer_status_id = 2 " +
+                "UNION ALL SELECT transfer_id, account_to, -amount FROM t WHERE transfer_status_id = 2", TRANSFERS);
+        jdbcTemplate.execute("ANALYZE transfer");
+        jdbcTemplate.execute("ANALYZE ledger_entry");
+    }
+
+    @Test
+    public void keyset_pages_cost_the_same_at_any_depth() {
+        int deepOffset = TRANSFERS - 2 * PAGE_SIZE;
+        Integer deepCursor = offsetPageIds(deepOffset - 1, 1).get(0);
+
+        List<Integer> offsetPage = offsetPageIds(deepOffset, PAGE_SIZE);
+        List<Integer> keysetPage = transferIds(sut.listPageByAccountId(2001, TransferDirectionEnum.ALL, null, deepCursor, PAGE_SIZE));
+        Assert.assertEquals(offsetPage, keysetPage);
+
+        System.out.printf("history page of %d over %d transfers: keyset first %.2f ms, deep %.2f ms; OFFSET first %.2f ms, deep %.2f ms%n",
+                PAGE_SIZE, TRANSFERS,
+                medianMillis(() -> sut.listPageByAccountId(2001, TransferDirectionEnum.ALL, null, null, PAGE_SIZE)),
+                medianMillis(() -> sut.listPageByAccountId(2001, TransferDirectionEnum.ALL, null, deepCursor, PAGE_SIZE)),
+                medianMillis(() -> jdbcTemplate.queryForRowSet(OFFSET_SQL, 2001, 2001, 0, PAGE_SIZE)),
+                medianMillis(() -> jdbcTemplate.queryForRowSet(OFFSET_SQL, 2001, 2001, deepOffset, PAGE_SIZE)));
+    }
+
+    private List<Integer> offsetPageIds(int offset, int limit) {
+        List<Integer> ids = new ArrayList<>();
+        SqlRowSet result = jdbcTemplate.queryForRowSet(OFFSET_SQL, 2001, 2001, offset, limit);
+        while (result.next()) {
+            ids.add(result.getInt("transfer_id"));
+        }
+        return ids;
+    }
+
+    private static double medianMillis(Runnable page) {
+        long[] nanos = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            page.run();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos[RUNS / 2] / 1e6;
+    }
+
+    private static List<Integer> transferIds(List<TransferDto> transfers) {
+        List<Integer> ids = new ArrayList<>();
+        for (TransferDto transfer : transfers) {
+            ids.add(transfer.getTransferId());
+        }
+        return ids;
+    }
+}
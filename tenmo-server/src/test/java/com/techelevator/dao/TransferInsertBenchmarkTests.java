@@ -0,0 +1,63 @@
+package com.techelevator.dao;
+
+import com.techelevator.tenmo.dao.JdbcAccountDao;
+import com.techelevator.tenmo.dao.JdbcTransferDao;
+import com.techelevator.tenmo.enums.TransferStatusEnum;
+import com.techelevator.tenmo.enums.TransferTypeEnum;
+import com.techelevator.tenmo.model.Account;
+import com.techelevator.tenmo.model.BatchTransferDto;
+import com.techelevator.tenmo.model.BucksDto;
+import com.techelevator.tenmo.model.Money;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Prints inserts/sec for the per-item send path (two account lookups and an INSERT ... RETURNING per transfer)
+ * against addTransfers. Runs inside the test transaction, so nothing is committed.
+ */
+public class TransferInsertBenchmarkTests extends BaseBenchmarkTests {
+    private static final int TRANSFERS = 2000;
+
+    private JdbcTransferDao transferDao;
+    private JdbcAccountDao accountDao;
+
+    @Before
+    public void setup() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        transferDao = new JdbcTransferDao(jdbcTemplate);
+        accountDao = new JdbcAccountDao(jdbcTemplate);
+    }
+
+    @Test
+    public void batch_and_single_inserts_create_the_same_number_of_transfers() {
+        List<BucksDto> bucksDtos = new ArrayList<>();
+        for (int i = 0; i < TRANSFERS; i++) {
+            bucksDtos.add(new BucksDto(1001 + i % 3, 1001 + (i + 1) % 3, Money.ofCents(100 + i % 10 * 100)));
+        }
+
+        long start = System.nanoTime();
+        for (BucksDto bucksDto : bucksDtos) {
+            Account fromAccount = accountDao.findByUserId(bucksDto.getFromUserId());
+            Account toAccount = accountDao.findByUserId(bucksDto.getToUserId());
+            transferDao.addTransfer(TransferTypeEnum.SEND.getTypeId(), TransferStatusEnum.PENDING.getStatusId(),
+                    fromAccount.getAccountId(), toAccount.getAccountId(), bucksDto.getAmount());
+        }
+        long single = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        List<BatchTransferDto> results = transferDao.addTransfers(TransferTypeEnum.SEND.getTypeId(),
+                TransferStatusEnum.PENDING.getStatusId(), bucksDtos);
+        long batch = System.nanoTime() - start;
+
+        System.out.printf("single inserts: %.0f/sec, addTransfers: %.0f/sec%n",
+                TRANSFERS / (single / 1e9), TRANSFERS / (batch / 1e9));
+        for (BatchTransferDto result : results) {
+            Assert.assertNotNull(result.getTransferId());
+        }
+    }
+}
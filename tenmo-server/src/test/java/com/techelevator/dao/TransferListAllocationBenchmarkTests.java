@@ -0,0 +1,62 @@
+package com.techelevator.dao;
+
+import com.techelevator.tenmo.dao.JdbcTransferDao;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+/**
+ * Times listByAccountId over one account with a 10k row history and reports how many bytes each call allocates
+ * on the calling thread, which covers the driver, the row mapping and the DTOs. The rows are rolled back with the
+ * test transaction.
+ */
+public class TransferListAllocationBenchmarkTests extends BaseBenchmarkTests {
+    private static final int TRANSFERS = 10_000;
+    private static final int WARMUP_RUNS = 30;
+    private static final int RUNS = 50;
+
+    private JdbcTransferDao sut;
+
+    @Before
+    public void setup() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        sut = new JdbcTransferDao(jdbcTemplate);
+        jdbcTemplate.update("WITH t AS (INSERT INTO transfer (transfer_type_id, transfer_status_id, account_from, account_to, amount) " +
+                "SELECT 2, CASE WHEN g % 2 = 0 THEN 2 ELSE 1 END, 2001, 2002, g % 500 + 1 " +
+                "FROM generate_series(1, ?) g RETURNING transfer_id, transfer_status_id, account_from, account_to, amount) " +
+                "INSERT INTO ledger_entry (transfer_id, account_id, amount) " +
+                "SELECT transfer_id, account_from, amount FROM t WHERE transfer_status_id = 2 " +
+                "UNION ALL SELECT transfer_id, account_to, -amount FROM t WHERE transfer_status_id = 2", TRANSFERS);
+        jdbcTemplate.execute("ANALYZE transfer");
+        jdbcTemplate.execute("ANALYZE ledger_entry");
+    }
+
+    @Test
+    public void listByAccountId_time_and_allocation() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            sut.listByAccountId(2001);
+        }
+
+        long[] nanos = new long[RUNS];
+        long allocated = 0;
+        int rows = 0;
+        for (int i = 0; i < RUNS; i++) {
+            long bytesBefore = threads.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            rows = sut.listByAccountId(2001).size();
+            nanos[i] = System.nanoTime() - start;
+            allocated += threads.getThreadAllocatedBytes(thread) - bytesBefore;
+        }
+        Arrays.sort(nanos);
+
+        Assert.assertEquals(TRANSFERS + 2, rows);
+        System.out.printf("listByAccountId over %d rows: median %.2f ms, %.0f KB allocated per call (%.0f bytes per row)%n",
+                rows, nanos[RUNS / 2] / 1e6, allocated / (double) RUNS / 1024, allocated / (double) RUNS / rows);
+    }
+}
@@ -0,0 +1,98 @@
+package com.techelevator.dao;
+
+import com.techelevator.tenmo.dao.AccountCache;
+import com.techelevator.tenmo.dao.AccountNameDictionary;
+import com.techelevator.tenmo.dao.JdbcTransferDao;
+import com.techelevator.tenmo.model.TransferDto;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Registers a million users, gives one account a 10k transfer history spread across them, and times
+ * listByAccountId against the query it replaced, which joined account and tenmo_user twice for the names.
+ * The rows are rolled back with the test transaction.
+ */
+public class TransferNameJoinBenchmarkTests extends BaseBenchmarkTests {
+    private static final int USERS = 1_000_000;
+    private static final int TRANSFERS = 10_000;
+    private static final int RUNS = 30;
+    private static final String JOINED_SQL = "select t.transfer_id, fu.username, tu.username " +
+            "from (select transfer_id, created_at as activity_at from ledger_entry where account_id = ? " +
+            "union all select transfer_id, created_at from transfer where account_from = ? and transfer_status_id <> 2 " +
+            "union all select transfer_id, created_at from transfer where account_to = ? and transfer_status_id <> 2) h " +
+            "join transfer t on t.transfer_id = h.transfer_id " +
+            "left join account fa on t.account_from = fa.account_id " +
+            "left join tenmo_user fu on fa.user_id = fu.user_id " +
+            "left join account ta on t.account_to = ta.account_id " +
+            "left join tenmo_user tu on ta.user_id = tu.user_id " +
+            "order by h.activity_at desc, t.transfer_id desc";
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    public void setup() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO tenmo_user (username, password_hash, role) " +
+                "SELECT 'bench' || g, 'x', 'ROLE_USER' FROM generate_series(1, ?) g", USERS);
+        jdbcTemplate.update("INSERT INTO account (user_id, balance) " +
+                "SELECT user_id, 1000 FROM tenmo_user WHERE username LIKE 'bench%' ORDER BY user_id");
+        int firstBenchAccount = jdbcTemplate.queryForObject("SELECT min(account_id) FROM account WHERE account_id > 2003", Integer.class);
+        // Every other transfer approved with its ledger entries, each with a different counterparty
+        jdbcTemplate.update("WITH t AS (INSERT INTO transfer (transfer_type_id, transfer_status_id, account_from, account_to, amount) " +
+                "SELECT 2, CASE WHEN g % 2 = 0 THEN 2 ELSE 1 END, 2001, ? + (g * 7919) % ?, 1 " +
+                "FROM generate_series(1, ?) g RETURNING transfer_id, transfer_status_id, account_from, account_to, amount) " +
+                "INSERT INTO ledger_entry (transfer_id, account_id, amount) " +
+                "SELECT transfer_id, account_from, amount FROM t WHERE transfer_status_id = 2 " +
+                "UNION ALL SELECT transfer_id, account_to, -amount FROM t WHERE transfer_status_id = 2",
+                firstBenchAccount, USERS, TRANSFERS);
+        for (String table : new String[]{"tenmo_user", "account", "transfer", "ledger_entry"}) {
+            jdbcTemplate.execute("ANALYZE " + table);
+        }
+    }
+
+    @Test
+    public void join_free_history_against_joined_history() {
+        AccountNameDictionary accountNames = new AccountNameDictionary(jdbcTemplate);
+        long start = System.nanoTime();
+        accountNames.load();
+        double loadMillis = (System.nanoTime() - start) / 1e6;
+        JdbcTransferDao sut = new JdbcTransferDao(jdbcTemplate, accountNames, new AccountCache(0));
+
+        List<String> joined = jdbcTemplate.query(JOINED_SQL, (rs, rowNum) -> rs.getInt(1) + rs.getString(2) + rs.getString(3),
+                2001, 2001, 2001);
+        Assert.assertEquals(TRANSFERS + 2, joined.size());
+        Assert.assertEquals(joined, names(sut.listByAccountId(2001)));
+
+        System.out.printf("history of %d rows among %d users: dictionary of %d accounts loaded in %.0f ms; " +
+                        "join-free %.2f ms, joined %.2f ms%n",
+                joined.size(), USERS, accountNames.size(), loadMillis,
+                medianMillis(() -> sut.listByAccountId(2001)),
+                medianMillis(() -> jdbcTemplate.query(JOINED_SQL, (rs, rowNum) -> rs.getInt(1) + rs.getString(2) + rs.getString(3),
+                        2001, 2001, 2001)));
+    }
+
+    private static List<String> names(List<TransferDto> transfers) {
+        List<String> names = new ArrayList<>();
+        for (TransferDto transfer : transfers) {
+            names.add(transfer.getTransferId() + transfer.getAccountFromName() + transfer.getAccountToName());
+        }
+        return names;
+    }
+
+    private static double medianMillis(Runnable query) {
+        long[] nanos = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            query.run();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos[RUNS / 2] / 1e6;
+    }
+}
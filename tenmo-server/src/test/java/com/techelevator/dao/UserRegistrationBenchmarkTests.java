@@ -0,0 +1,75 @@
+package com.techelevator.dao;
+
+import com.techelevator.tenmo.dao.AccountIdResolver;
+import com.techelevator.tenmo.dao.AccountNameDictionary;
+import com.techelevator.tenmo.dao.JdbcUserDao;
+import com.techelevator.tenmo.dao.UsernameIndex;
+import com.techelevator.tenmo.model.BulkRegistrationDto;
+import com.techelevator.tenmo.model.RegisterUserDto;
+import com.techelevator.tenmo.security.PasswordVerifier;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Prints users/sec for createUser, one serial BCrypt hash and four statements per user, against createUsers, which
+ * hashes on a PasswordVerifier pool of one thread per core. Runs inside the test transaction, so nothing is
+ * committed.
+ */
+public class UserRegistrationBenchmarkTests extends BaseBenchmarkTests {
+    private static final int USERS = 200;
+
+    private JdbcUserDao userDao;
+    private PasswordVerifier passwordVerifier;
+
+    @Before
+    public void setup() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        passwordVerifier = new PasswordVerifier(new BCryptPasswordEncoder(), new SimpleMeterRegistry(), 0, 50);
+        userDao = new JdbcUserDao(jdbcTemplate, new AccountNameDictionary(jdbcTemplate), new AccountIdResolver(jdbcTemplate),
+                new UsernameIndex(jdbcTemplate), passwordVerifier);
+    }
+
+    @After
+    public void shutDown() {
+        passwordVerifier.destroy();
+    }
+
+    @Test
+    public void bulk_and_single_registration_create_the_same_number_of_users() {
+        List<RegisterUserDto> single = users("single");
+        List<RegisterUserDto> bulk = users("bulk");
+
+        long start = System.nanoTime();
+        for (RegisterUserDto user : single) {
+            Assert.assertNotNull(userDao.createUser(user));
+        }
+        long singleNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        BulkRegistrationDto result = userDao.createUsers(bulk);
+        long bulkNanos = System.nanoTime() - start;
+
+        System.out.printf("createUser: %.0f users/sec, createUsers: %.0f users/sec on %d cores%n",
+                USERS / (singleNanos / 1e9), USERS / (bulkNanos / 1e9), Runtime.getRuntime().availableProcessors());
+        Assert.assertEquals(USERS, result.getCreated());
+    }
+
+    private static List<RegisterUserDto> users(String prefix) {
+        List<RegisterUserDto> users = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            RegisterUserDto user = new RegisterUserDto();
+            user.setUsername(prefix + i);
+            user.setPassword("password" + i);
+            users.add(user);
+        }
+        return users;
+    }
+}
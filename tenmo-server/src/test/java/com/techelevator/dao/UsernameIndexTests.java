@@ -0,0 +1,116 @@
+package com.techelevator.dao;
+
+import com.techelevator.tenmo.dao.AccountIdResolver;
+import com.techelevator.tenmo.dao.AccountNameDictionary;
+import com.techelevator.tenmo.dao.JdbcUserDao;
+import com.techelevator.tenmo.dao.UsernameIndex;
+import com.techelevator.tenmo.model.RegisterUserDto;
+import com.techelevator.tenmo.model.User;
+import com.techelevator.tenmo.model.UserDirectoryEntryDto;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+
+public class UsernameIndexTests extends BaseDaoTests {
+
+    private JdbcTemplate jdbcTemplate;
+    private UsernameIndex sut;
+
+    @Before
+    public void setup() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        sut = new UsernameIndex(jdbcTemplate);
+    }
+
+    @Test
+    public void load_reads_every_user_and_registration_adds_one() {
+        sut.load();
+        Assert.assertEquals(3, sut.size());
+        List<UserDirectoryEntryDto> matches = sut.search("user", 10);
+        Assert.assertEquals(3, matches.size());
+        Assert.assertEquals(1001, matches.get(0).getId());
+        Assert.assertEquals("user3", matches.get(2).getUsername());
+
+        RegisterUserDto registerUserDto = new RegisterUserDto();
+        registerUserDto.setUsername("User10");
+        registerUserDto.setPassword("pw");
+        User user = new JdbcUserDao(jdbcTemplate, new AccountNameDictionary(jdbcTemplate),
+                new AccountIdResolver(jdbcTemplate), sut, null).createUser(registerUserDto);
+
+        matches = sut.search("user1", 10);
+        Assert.assertEquals(2, matches.size());
+        Assert.assertEquals("user1", matches.get(0).getUsername());
+        Assert.assertEquals(user.getId(), matches.get(1).getId());
+        Assert.assertEquals("user10", matches.get(1).getUsername());
+    }
+
+    @Test
+    public void search_merges_registrations_with_loaded_users_in_username_order() {
+        // Enough users to merge the registration block into the main one more than once
+        for (int i = 0; i < 10_000; i++) {
+            int n = (i * 7919) % 10_000;
+            sut.put(n + 1, "u" + n);
+        }
+        sut.put(20_000, "u42");
+
+        Assert.assertEquals(10_000, sut.size());
+        List<UserDirectoryEntryDto> matches = sut.search("u42", 20);
+        Assert.assertEquals(Arrays.asList("u42", "u420", "u4200", "u4201", "u4202", "u4203", "u4204", "u4205",
+                        "u4206", "u4207", "u4208", "u4209", "u421", "u4210", "u4211", "u4212", "u4213", "u4214",
+                        "u4215", "u4216"),
+                usernames(matches));
+        Assert.assertEquals(43, matches.get(0).getId());
+        Assert.assertEquals(1, sut.search("u4200", 5).size());
+        Assert.assertTrue(sut.search("v", 10).isEmpty());
+        Assert.assertTrue(sut.search("u99999", 10).isEmpty());
+    }
+
+    @Test
+    public void search_merges_the_main_middle_and_registration_blocks() {
+        // Past sixteen delta merges the main block stops taking every one, so all three blocks hold users
+        int users = 100_000;
+        TreeMap<String, Integer> expected = new TreeMap<>();
+        for (int i = 0; i < users; i++) {
+            int n = (int) ((i * 48271L) % users);
+            sut.put(n + 1, "m" + n);
+            expected.put("m" + n, n + 1);
+        }
+
+        Assert.assertEquals(users, sut.size());
+        for (String prefix : Arrays.asList("m", "m1", "m42", "m999", "m99999")) {
+            List<UserDirectoryEntryDto> matches = sut.search(prefix, 50);
+            List<String> names = new ArrayList<>(expected.subMap(prefix, prefix + Character.MAX_VALUE).keySet());
+            Assert.assertEquals(names.subList(0, Math.min(50, names.size())), usernames(matches));
+            for (UserDirectoryEntryDto match : matches) {
+                Assert.assertEquals(expected.get(match.getUsername()), Integer.valueOf(match.getId()));
+            }
+        }
+    }
+
+    @Test
+    public void search_compares_non_ascii_prefixes_by_code_point() {
+        sut.put(1, "zoë");
+        sut.put(2, "zoe");
+        sut.put(3, "zoé");
+        sut.put(4, "zo😀");
+        sut.put(5, "zp");
+
+        Assert.assertEquals(Arrays.asList("zoe", "zoé", "zoë", "zo😀"), usernames(sut.search("zo", 10)));
+        Assert.assertEquals(Arrays.asList("zoë"), usernames(sut.search("zoë", 10)));
+        Assert.assertEquals(Arrays.asList("zo😀"), usernames(sut.search("zo😀", 10)));
+    }
+
+    private static List<String> usernames(List<UserDirectoryEntryDto> entries) {
+        String[] names = new String[entries.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = entries.get(i).getUsername();
+        }
+        return Arrays.asList(names);
+    }
+}
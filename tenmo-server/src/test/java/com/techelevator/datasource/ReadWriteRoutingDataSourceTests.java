@@ -0,0 +1,101 @@
+package com.techelevator.datasource;
+
+import com.techelevator.dao.BaseDaoTests;
+import com.techelevator.tenmo.datasource.ReadWriteRoutingDataSource;
+import com.techelevator.tenmo.datasource.ReadYourWritesInterceptor;
+import com.techelevator.tenmo.datasource.ReadYourWritesPins;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * Stands in the server's postgres database for the replica, so the database that answers shows where a
+ * connection was routed.
+ */
+public class ReadWriteRoutingDataSourceTests extends BaseDaoTests {
+
+    private String primaryName;
+    private DriverManagerDataSource primary;
+    private DriverManagerDataSource replica;
+
+    @Before
+    public void setup() {
+        SingleConnectionDataSource testDataSource = (SingleConnectionDataSource) dataSource;
+        String url = testDataSource.getUrl();
+        primary = new DriverManagerDataSource(url, testDataSource.getUsername(), testDataSource.getPassword());
+        replica = new DriverManagerDataSource(url.substring(0, url.lastIndexOf('/') + 1) + "postgres",
+                testDataSource.getUsername(), testDataSource.getPassword());
+        primaryName = new JdbcTemplate(primary).queryForObject("SELECT current_database()", String.class);
+    }
+
+    @After
+    public void signOut() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void only_read_only_transactions_go_to_the_replica() {
+        DataSource sut = ReadWriteRoutingDataSource.wrap(primary, replica, new ReadYourWritesPins(60_000));
+
+        Assert.assertEquals(primaryName, new JdbcTemplate(sut).queryForObject("SELECT current_database()", String.class));
+        Assert.assertEquals(primaryName, currentDatabase(sut, false));
+        Assert.assertEquals("postgres", currentDatabase(sut, true));
+    }
+
+    @Test
+    public void pinned_users_read_from_the_primary_until_the_window_passes() throws InterruptedException {
+        ReadYourWritesPins pins = new ReadYourWritesPins(60_000);
+        DataSource sut = ReadWriteRoutingDataSource.wrap(primary, replica, pins);
+        pins.pin("user1");
+
+        signIn("user1");
+        Assert.assertEquals(primaryName, currentDatabase(sut, true));
+        signIn("user2");
+        Assert.assertEquals("postgres", currentDatabase(sut, true));
+
+        ReadYourWritesPins shortPins = new ReadYourWritesPins(1);
+        DataSource shortSut = ReadWriteRoutingDataSource.wrap(primary, replica, shortPins);
+        shortPins.pin("user2");
+        Thread.sleep(10);
+        Assert.assertEquals("postgres", currentDatabase(shortSut, true));
+        Assert.assertEquals(0, shortPins.size());
+    }
+
+    @Test
+    public void a_write_request_pins_its_user_before_the_response_is_written() {
+        ReadYourWritesPins pins = new ReadYourWritesPins(60_000);
+        DataSource sut = ReadWriteRoutingDataSource.wrap(primary, replica, pins);
+        ReadYourWritesInterceptor interceptor = new ReadYourWritesInterceptor(pins);
+        signIn("user1");
+
+        interceptor.preHandle(new MockHttpServletRequest("GET", "/account/balance"), new MockHttpServletResponse(), null);
+        Assert.assertEquals("postgres", currentDatabase(sut, true));
+
+        // The POST's handler has returned and its body may already be with the client; afterCompletion has not run
+        interceptor.preHandle(new MockHttpServletRequest("POST", "/transfer/send"), new MockHttpServletResponse(), null);
+        Assert.assertEquals(primaryName, currentDatabase(sut, true));
+    }
+
+    private static String currentDatabase(DataSource dataSource, boolean readOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate.execute(status ->
+                new JdbcTemplate(dataSource).queryForObject("SELECT current_database()", String.class));
+    }
+
+    private static void signIn(String username) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(username, null));
+    }
+}
@@ -0,0 +1,41 @@
+package com.techelevator.journal;
+
+import com.techelevator.dao.BaseBenchmarkTests;
+import com.techelevator.tenmo.dao.JdbcTransferDao;
+import com.techelevator.tenmo.journal.MappedTransferJournal;
+import com.techelevator.tenmo.model.Money;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+
+/**
+ * Prints appends/sec for the group-commit journal writing 64 MB segments, including the force on close.
+ */
+public class MappedTransferJournalBenchmarkTests extends BaseBenchmarkTests {
+    private static final int RECORDS = 200_000;
+    private static final int SEGMENT_BYTES = 64 << 20;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void group_commit_append_throughput() throws IOException {
+        JdbcTransferDao transferDao = new JdbcTransferDao(new JdbcTemplate(dataSource));
+        MappedTransferJournal journal = new MappedTransferJournal(transferDao, folder.getRoot().toPath(), SEGMENT_BYTES, 2, 65536, 4, false);
+        long start = System.nanoTime();
+        for (int i = 1; i <= RECORDS; i++) {
+            journal.transferCreated(i, 2, 1, 2001, 2002, Money.ofCents(100));
+        }
+        journal.close();
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("MappedTransferJournal: %.0f appends/sec including the final force%n", RECORDS / (elapsed / 1e9));
+
+        journal = new MappedTransferJournal(transferDao, folder.getRoot().toPath(), SEGMENT_BYTES, 2, 65536, 4, false);
+        Assert.assertEquals(RECORDS, journal.getLastSequence());
+        journal.close();
+    }
+}
@@ -0,0 +1,157 @@
+package com.techelevator.journal;
+
+import com.techelevator.dao.BaseDaoTests;
+import com.techelevator.tenmo.dao.JdbcTransferDao;
+import com.techelevator.tenmo.journal.JournalRecord;
+import com.techelevator.tenmo.journal.MappedTransferJournal;
+import com.techelevator.tenmo.model.Money;
+import com.techelevator.tenmo.model.TransferDto;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class MappedTransferJournalTests extends BaseDaoTests {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private JdbcTemplate jdbcTemplate;
+    private JdbcTransferDao transferDao;
+    private Path directory;
+
+    @Before
+    public void setup() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transferDao = new JdbcTransferDao(jdbcTemplate) {
+            // The test connection never autocommits, so one failed insert would abort every statement after it.
+            // A savepoint around each call leaves the connection as usable as autocommit would.
+            @Override
+            public void addTransfersWithIds(List<TransferDto> transfers) {
+                Savepoint savepoint = jdbcTemplate.execute((ConnectionCallback<Savepoint>) Connection::setSavepoint);
+                try {
+                    super.addTransfersWithIds(transfers);
+                } catch (RuntimeException e) {
+                    jdbcTemplate.execute((ConnectionCallback<Object>) connection -> {
+                        connection.rollback(savepoint);
+                        return null;
+                    });
+                    throw e;
+                }
+            }
+        };
+        directory = folder.getRoot().toPath();
+    }
+
+    @Test
+    public void records_survive_reopen_and_torn_tail_is_dropped() throws IOException {
+        MappedTransferJournal journal = open(1 << 20, 4, false);
+        for (int i = 1; i <= 10; i++) {
+            journal.transferCreated(i, 2, 1, 2001, 2002, Money.ofCents(i * 100));
+        }
+        journal.close();
+
+        // Flip a byte inside the last record, as if the crash happened halfway through writing it
+        Path segment = segments().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xff}), 9L * JournalRecord.RECORD_BYTES + 20);
+        }
+
+        journal = open(1 << 20, 4, false);
+        Assert.assertEquals(9, journal.getLastSequence());
+        journal.statusChanged(5, 2);
+        List<JournalRecord> records = new ArrayList<>();
+        journal.forEachRecord(records::add);
+        journal.close();
+
+        Assert.assertEquals(10, records.size());
+        Assert.assertEquals(900, records.get(8).getAmountCents());
+        Assert.assertEquals(JournalRecord.STATUS_CHANGED, records.get(9).getType());
+        Assert.assertEquals(10, records.get(9).getSequence());
+    }
+
+    @Test
+    public void full_segments_roll_and_old_ones_are_compacted() throws Exception {
+        MappedTransferJournal journal = open(JournalRecord.RECORD_BYTES * 10, 2, false);
+        for (int i = 1; i <= 100; i++) {
+            journal.transferCreated(i, 2, 1, 2001, 2002, Money.ofCents(100));
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (journal.getSegmentCount() > 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        List<JournalRecord> records = new ArrayList<>();
+        journal.forEachRecord(records::add);
+        journal.close();
+
+        Assert.assertEquals(2, segments().size());
+        Assert.assertEquals(100, records.get(records.size() - 1).getSequence());
+        for (int i = 1; i < records.size(); i++) {
+            Assert.assertEquals(records.get(i - 1).getSequence() + 1, records.get(i).getSequence());
+        }
+    }
+
+    @Test
+    public void journal_first_transfers_reach_postgres_and_are_replayed_after_restart() throws IOException {
+        MappedTransferJournal journal = open(1 << 20, 4, true);
+        Integer transferId = journal.createTransfer(2, 1, 2001, 2002, Money.parse("12.34"));
+        journal.awaitApplied();
+        journal.close();
+
+        TransferDto applied = transferDao.getTransferById(transferId);
+        Assert.assertNotNull(applied);
+        Assert.assertEquals(Money.parse("12.34"), applied.getAmount());
+
+        // Lose both the row and the checkpoint; the next start has to insert it again from the segment
+        jdbcTemplate.update("DELETE FROM transfer WHERE transfer_id = ?", transferId);
+        Files.delete(directory.resolve("checkpoint"));
+        journal = open(1 << 20, 4, true);
+        journal.awaitApplied();
+        journal.close();
+
+        Assert.assertEquals(Money.parse("12.34"), transferDao.getTransferById(transferId).getAmount());
+    }
+
+    @Test
+    public void rejected_journal_first_transfers_are_quarantined_instead_of_blocking_the_applier() throws IOException {
+        MappedTransferJournal journal = open(1 << 20, 4, true);
+        // No account 9999, so the foreign key rejects this one every time it is tried
+        Integer rejected = journal.createTransfer(2, 1, 2001, 9999, Money.ofCents(100));
+        Integer accepted = journal.createTransfer(2, 1, 2001, 2002, Money.ofCents(200));
+        journal.awaitApplied();
+        long quarantined = journal.getQuarantinedCount();
+        journal.close();
+
+        Assert.assertEquals(1, quarantined);
+        Assert.assertNull(transferDao.getTransferById(rejected));
+        Assert.assertEquals(Money.ofCents(200), transferDao.getTransferById(accepted).getAmount());
+        List<String> lines = Files.readAllLines(directory.resolve("quarantine"));
+        Assert.assertEquals(1, lines.size());
+        Assert.assertTrue(lines.get(0).contains("," + rejected + ",2,1,2001,9999,100"));
+    }
+
+    private MappedTransferJournal open(int segmentBytes, int retainedSegments, boolean journalFirst) throws IOException {
+        return new MappedTransferJournal(transferDao, directory, segmentBytes, 2, 65536, retainedSegments, journalFirst);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".seg")).sorted().collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.techelevator.metrics;
+
+import com.techelevator.dao.BaseDaoTests;
+import com.techelevator.tenmo.dao.JdbcAccountDao;
+import com.techelevator.tenmo.metrics.DaoMetricsAspect;
+import com.techelevator.tenmo.model.Money;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+public class DaoMetricsAspectTests extends BaseDaoTests {
+
+    private SimpleMeterRegistry registry;
+    private JdbcAccountDao sut;
+
+    @Before
+    public void setup() {
+        registry = new SimpleMeterRegistry();
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new JdbcAccountDao(new JdbcTemplate(dataSource)));
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(new DaoMetricsAspect(registry));
+        sut = proxyFactory.getProxy();
+    }
+
+    @Test
+    public void each_call_is_timed_per_method() {
+        sut.findByAccountId(2001);
+        sut.findByAccountId(2002);
+        sut.lockAccounts(Collections.singletonList(2001));
+
+        Assert.assertEquals(2, timer("findByAccountId", "none").count());
+        Assert.assertEquals(1, timer("lockAccounts", "none").count());
+        Assert.assertTrue(timer("findByAccountId", "none").totalTime(TimeUnit.NANOSECONDS) > 0);
+    }
+
+    @Test
+    public void failures_are_tagged_with_the_exception() {
+        String thrown = null;
+        try {
+            // More than decimal(13, 2) can hold
+            sut.addToBalances(Collections.singletonMap(2001, Money.ofCents(1_000_000_000_000_000L)));
+        } catch (RuntimeException e) {
+            thrown = e.getClass().getSimpleName();
+        }
+
+        Assert.assertNotNull(thrown);
+        Assert.assertEquals(1, timer("addToBalances", thrown).count());
+        Assert.assertNull(registry.find("tenmo.dao").tag("method", "addToBalances").tag("exception", "none").timer());
+    }
+
+    private Timer timer(String method, String exception) {
+        return registry.get("tenmo.dao")
+                .tag("dao", "JdbcAccountDao")
+                .tag("method", method)
+                .tag("exception", exception)
+                .timer();
+    }
+}
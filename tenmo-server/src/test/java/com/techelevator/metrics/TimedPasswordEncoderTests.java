@@ -0,0 +1,25 @@
+package com.techelevator.metrics;
+
+import com.techelevator.tenmo.metrics.TimedPasswordEncoder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+public class TimedPasswordEncoderTests {
+
+    @Test
+    public void hashing_and_verification_are_timed_by_outcome() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TimedPasswordEncoder sut = new TimedPasswordEncoder(new BCryptPasswordEncoder(4), registry);
+
+        String hash = sut.encode("secret");
+        Assert.assertTrue(sut.matches("secret", hash));
+        Assert.assertFalse(sut.matches("wrong", hash));
+        Assert.assertFalse(sut.matches("wrong", hash));
+
+        Assert.assertEquals(1, registry.get("tenmo.password").tag("operation", "hash").timer().count());
+        Assert.assertEquals(1, registry.get("tenmo.password").tag("result", "match").timer().count());
+        Assert.assertEquals(2, registry.get("tenmo.password").tag("result", "mismatch").timer().count());
+    }
+}
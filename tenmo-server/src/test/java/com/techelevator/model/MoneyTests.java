@@ -0,0 +1,58 @@
+package com.techelevator.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.techelevator.tenmo.model.BucksDto;
+import com.techelevator.tenmo.model.Money;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+public class MoneyTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void toString_always_has_two_decimals() {
+        Assert.assertEquals("12.50", Money.ofCents(1250).toString());
+        Assert.assertEquals("0.05", Money.ofCents(5).toString());
+        Assert.assertEquals("-3.07", Money.ofCents(-307).toString());
+        Assert.assertEquals("0.00", Money.ZERO.toString());
+    }
+
+    @Test
+    public void arithmetic_does_not_round() {
+        Money tenCents = Money.parse("0.10");
+        Money twentyCents = Money.parse("0.20");
+
+        Assert.assertEquals(Money.parse("0.30"), tenCents.plus(twentyCents));
+        Assert.assertEquals(Money.parse("-0.10"), tenCents.minus(twentyCents));
+        Assert.assertTrue(tenCents.isLessThan(twentyCents));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void parse_rejects_fractions_of_a_cent() {
+        Money.parse("1.005");
+    }
+
+    @Test
+    public void of_big_decimal_round_trips() {
+        Assert.assertEquals(new BigDecimal("1000.00"), Money.of(new BigDecimal("1000")).toBigDecimal());
+    }
+
+    @Test
+    public void json_is_a_plain_number() throws Exception {
+        Assert.assertEquals("12.50", objectMapper.writeValueAsString(Money.ofCents(1250)));
+
+        BucksDto bucksDto = objectMapper.readValue("{\"fromUserId\":1,\"toUserId\":2,\"amount\":12.5}", BucksDto.class);
+        Assert.assertEquals(Money.ofCents(1250), bucksDto.getAmount());
+        bucksDto = objectMapper.readValue("{\"fromUserId\":1,\"toUserId\":2,\"amount\":7}", BucksDto.class);
+        Assert.assertEquals(Money.ofCents(700), bucksDto.getAmount());
+    }
+
+    @Test(expected = InvalidFormatException.class)
+    public void json_rejects_fractions_of_a_cent() throws Exception {
+        objectMapper.readValue("{\"amount\":0.001}", BucksDto.class);
+    }
+}
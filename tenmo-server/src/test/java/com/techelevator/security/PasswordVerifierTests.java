@@ -0,0 +1,132 @@
+package com.techelevator.security;
+
+import com.techelevator.tenmo.security.PasswordVerifier;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class PasswordVerifierTests {
+
+    private PasswordVerifier sut;
+
+    @After
+    public void shutDown() {
+        sut.destroy();
+    }
+
+    @Test
+    public void passwords_are_checked_off_the_calling_thread() throws Exception {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(4);
+        List<String> threads = new ArrayList<>();
+        PasswordEncoder encoder = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return bcrypt.encode(rawPassword);
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                threads.add(Thread.currentThread().getName());
+                return bcrypt.matches(rawPassword, encodedPassword);
+            }
+        };
+        sut = new PasswordVerifier(encoder, new SimpleMeterRegistry(), 1, 10);
+        String hash = bcrypt.encode("secret");
+
+        Assert.assertTrue(sut.matches("secret", hash).get(10, TimeUnit.SECONDS));
+        Assert.assertFalse(sut.matches("wrong", hash).get(10, TimeUnit.SECONDS));
+        // An unknown user still costs a full check
+        Assert.assertFalse(sut.matches("secret", null).get(10, TimeUnit.SECONDS));
+        Assert.assertEquals(3, threads.size());
+        for (String thread : threads) {
+            Assert.assertTrue(thread.startsWith("password-verifier-"));
+        }
+    }
+
+    @Test
+    public void encodeAll_hashes_on_the_pool_in_order() {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(4);
+        List<String> threads = new ArrayList<>();
+        PasswordEncoder encoder = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                synchronized (threads) {
+                    threads.add(Thread.currentThread().getName());
+                }
+                return bcrypt.encode(rawPassword);
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return bcrypt.matches(rawPassword, encodedPassword);
+            }
+        };
+        sut = new PasswordVerifier(encoder, new SimpleMeterRegistry(), 2, 2);
+
+        // Ten hashes through a queue of two: only a thread's worth are handed to the pool at a time
+        List<String> passwords = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            passwords.add("password" + i);
+        }
+        String[] hashes = sut.encodeAll(passwords);
+
+        Assert.assertEquals(10, hashes.length);
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(bcrypt.matches("password" + i, hashes[i]));
+        }
+        for (String thread : threads) {
+            Assert.assertTrue(thread.startsWith("password-verifier-"));
+        }
+    }
+
+    @Test
+    public void checks_beyond_the_queue_capacity_are_rejected() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder blocking = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return rawPassword.toString();
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return rawPassword.toString().equals(encodedPassword);
+            }
+        };
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        sut = new PasswordVerifier(blocking, registry, 1, 2);
+
+        // One running and two queued
+        List<CompletableFuture<Boolean>> accepted = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            accepted.add(sut.matches("secret", "secret"));
+        }
+        try {
+            sut.matches("secret", "secret");
+            Assert.fail("Expected the fourth check to be rejected");
+        } catch (RejectedExecutionException e) {
+            Assert.assertEquals(1, registry.get("tenmo.login.rejected").counter().count(), 0);
+        }
+        Assert.assertEquals(2, sut.getQueued());
+
+        release.countDown();
+        for (CompletableFuture<Boolean> result : accepted) {
+            Assert.assertTrue(result.get(10, TimeUnit.SECONDS));
+        }
+    }
+}
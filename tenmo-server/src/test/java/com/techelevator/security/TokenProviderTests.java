@@ -0,0 +1,95 @@
+package com.techelevator.security;
+
+import com.techelevator.tenmo.security.jwt.TokenProvider;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Collections;
+
+public class TokenProviderTests {
+
+    private String secret;
+    private TokenProvider sut;
+
+    @Before
+    public void setup() {
+        byte[] key = new byte[64];
+        new SecureRandom().nextBytes(key);
+        secret = Base64.getEncoder().encodeToString(key);
+        sut = tokenProvider(86400, 100);
+    }
+
+    @Test
+    public void a_token_is_verified_once_and_then_served_from_the_cache() {
+        String token = sut.createToken(user("user1"), false);
+
+        Authentication first = sut.authenticate(token);
+        Authentication second = sut.authenticate(token);
+
+        Assert.assertEquals("user1", first.getName());
+        Assert.assertEquals(Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")),
+                second.getAuthorities());
+        Assert.assertSame(first.getPrincipal(), second.getPrincipal());
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals(1, sut.getVerifiedTokens().getMisses());
+        Assert.assertEquals(1, sut.getVerifiedTokens().getHits());
+    }
+
+    @Test
+    public void invalid_tokens_are_rejected_and_never_cached() {
+        String token = sut.createToken(user("user1"), false);
+        TokenProvider otherKey = new TokenProvider(Base64.getEncoder().encodeToString(new byte[64]), 86400, 86400);
+        otherKey.afterPropertiesSet();
+        String otherKeyToken = otherKey.createToken(user("user1"), false);
+
+        Assert.assertNull(sut.authenticate(token.substring(0, token.length() - 4) + "AAAA"));
+        Assert.assertNull(sut.authenticate(otherKeyToken));
+        Assert.assertNull(sut.authenticate("not a token"));
+        Assert.assertEquals(0, sut.getVerifiedTokens().getSize());
+        Assert.assertNotNull(sut.authenticate(token));
+    }
+
+    @Test
+    public void cached_tokens_stop_working_when_they_expire() throws InterruptedException {
+        TokenProvider shortLived = tokenProvider(1, 100);
+        String token = shortLived.createToken(user("user1"), false);
+        Assert.assertNotNull(shortLived.authenticate(token));
+
+        // exp has one-second resolution
+        Thread.sleep(2100);
+
+        Assert.assertNull(shortLived.authenticate(token));
+        Assert.assertEquals(0, shortLived.getVerifiedTokens().getSize());
+        Assert.assertFalse(shortLived.validateToken(token));
+    }
+
+    @Test
+    public void the_cache_keeps_the_newest_tokens() {
+        TokenProvider small = tokenProvider(86400, 2);
+        String oldest = small.createToken(user("user1"), false);
+        small.authenticate(oldest);
+        small.authenticate(small.createToken(user("user2"), false));
+        small.authenticate(small.createToken(user("user3"), false));
+
+        Assert.assertEquals(2, small.getVerifiedTokens().getSize());
+        Assert.assertEquals(1, small.getVerifiedTokens().getEvictions());
+        Assert.assertEquals("user1", small.authenticate(oldest).getName());
+    }
+
+    private TokenProvider tokenProvider(long validitySeconds, int cacheMaxEntries) {
+        TokenProvider tokenProvider = new TokenProvider(secret, validitySeconds, validitySeconds, cacheMaxEntries);
+        tokenProvider.afterPropertiesSet();
+        return tokenProvider;
+    }
+
+    private static Authentication user(String username) {
+        return new UsernamePasswordAuthenticationToken(username, null,
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")));
+    }
+}
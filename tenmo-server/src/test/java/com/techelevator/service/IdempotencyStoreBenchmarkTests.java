@@ -0,0 +1,30 @@
+package com.techelevator.service;
+
+import com.techelevator.dao.BaseBenchmarkTests;
+import com.techelevator.tenmo.dao.JdbcIdempotencyKeyDao;
+import com.techelevator.tenmo.service.IdempotencyStore;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Prints how many new keys per second the in-memory IdempotencyStore takes once it is full and evicting.
+ */
+public class IdempotencyStoreBenchmarkTests extends BaseBenchmarkTests {
+    private static final int KEYS = 200_000;
+
+    @Test
+    public void new_keys_per_second_at_the_size_bound() {
+        IdempotencyStore sut = new IdempotencyStore(new JdbcIdempotencyKeyDao(new JdbcTemplate(dataSource)), false, 1000, 60, 1000);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < KEYS; i++) {
+            int transferId = i + 1;
+            sut.execute("key-" + i, () -> transferId);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("IdempotencyStore: %.0f new keys/sec%n", KEYS / (elapsed / 1e9));
+        Assert.assertEquals(KEYS - sut.getSize(), sut.getEvictions());
+    }
+}
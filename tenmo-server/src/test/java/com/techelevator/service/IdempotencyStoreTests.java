@@ -0,0 +1,194 @@
+package com.techelevator.service;
+
+import com.techelevator.dao.BaseDaoTests;
+import com.techelevator.tenmo.dao.JdbcIdempotencyKeyDao;
+import com.techelevator.tenmo.service.IdempotencyStore;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class IdempotencyStoreTests extends BaseDaoTests {
+
+    private JdbcIdempotencyKeyDao idempotencyKeyDao;
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Before
+    public void setup() {
+        idempotencyKeyDao = new JdbcIdempotencyKeyDao(new JdbcTemplate(dataSource));
+    }
+
+    @Test
+    public void replay_returns_original_id_without_running_action() {
+        IdempotencyStore sut = new IdempotencyStore(idempotencyKeyDao, false, 100, 60, 1000);
+
+        Integer first = sut.execute("key", calls::incrementAndGet);
+        Integer second = sut.execute("key", calls::incrementAndGet);
+
+        Assert.assertEquals(first, second);
+        Assert.assertEquals(1, calls.get());
+        Assert.assertEquals(1, sut.getHits());
+        Assert.assertEquals(1, sut.getMisses());
+    }
+
+    @Test
+    public void failed_action_is_not_recorded() {
+        IdempotencyStore sut = new IdempotencyStore(idempotencyKeyDao, false, 100, 60, 1000);
+
+        try {
+            sut.execute("key", () -> {
+                throw new IllegalArgumentException("boom");
+            });
+            Assert.fail();
+        } catch (IllegalArgumentException expected) {
+        }
+
+        Assert.assertEquals(Integer.valueOf(1), sut.execute("key", calls::incrementAndGet));
+    }
+
+    @Test
+    public void refused_transfer_is_not_recorded() {
+        IdempotencyStore memory = new IdempotencyStore(idempotencyKeyDao, false, 100, 60, 1000);
+        IdempotencyStore jdbc = new IdempotencyStore(idempotencyKeyDao, true, 100, 60, 1000);
+
+        Assert.assertEquals(Integer.valueOf(-1), memory.execute("key", () -> -1));
+        Assert.assertEquals(0, memory.getSize());
+        Assert.assertEquals(Integer.valueOf(1), memory.execute("key", calls::incrementAndGet));
+
+        Assert.assertEquals(Integer.valueOf(-1), jdbc.execute("durable", () -> -1));
+        Assert.assertNull(idempotencyKeyDao.findTransferId("durable"));
+        Assert.assertEquals(Integer.valueOf(2), jdbc.execute("durable", calls::incrementAndGet));
+    }
+
+    @Test
+    public void overflow_does_not_evict_a_key_still_running() throws Exception {
+        IdempotencyStore sut = new IdempotencyStore(idempotencyKeyDao, false, 1, 60, 5000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<Integer> first = executor.submit(() -> sut.execute("slow", () -> {
+            started.countDown();
+            await(release);
+            return calls.incrementAndGet();
+        }));
+        started.await();
+
+        for (int i = 0; i < 10; i++) {
+            sut.execute("fast-" + i, () -> 100);
+        }
+        Future<Integer> retry = executor.submit(() -> sut.execute("slow", calls::incrementAndGet));
+        release.countDown();
+
+        Assert.assertEquals(Integer.valueOf(1), first.get());
+        Assert.assertEquals(Integer.valueOf(1), retry.get());
+        Assert.assertEquals(1, calls.get());
+        executor.shutdown();
+    }
+
+    @Test
+    public void failed_keys_count_toward_the_queue_bound() {
+        IdempotencyStore sut = new IdempotencyStore(idempotencyKeyDao, false, 100, 60, 1000);
+        sut.execute("kept", calls::incrementAndGet);
+
+        // Each failure leaves a dead node in the queue; they must push the queue past its bound, not pile up
+        for (int i = 0; i < 1000; i++) {
+            try {
+                sut.execute("failing-" + i, () -> {
+                    throw new IllegalArgumentException("boom");
+                });
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+
+        Assert.assertEquals(0, sut.getSize());
+        Assert.assertEquals(1, sut.getEvictions());
+    }
+
+    @Test
+    public void size_stays_bounded_and_oldest_keys_are_evicted() {
+        IdempotencyStore sut = new IdempotencyStore(idempotencyKeyDao, false, 1000, 60, 1000);
+        int keys = 20_000;
+
+        for (int i = 0; i < keys; i++) {
+            sut.execute("key-" + i, calls::incrementAndGet);
+        }
+
+        Assert.assertTrue(sut.getSize() <= 1000);
+        Assert.assertEquals(keys - sut.getSize(), sut.getEvictions());
+        sut.execute("key-0", calls::incrementAndGet);
+        Assert.assertEquals(keys + 1, calls.get());
+    }
+
+    @Test
+    public void expired_keys_run_again() throws InterruptedException {
+        IdempotencyStore sut = new IdempotencyStore(idempotencyKeyDao, false, 100, 0, 1000);
+
+        sut.execute("key", calls::incrementAndGet);
+        TimeUnit.MILLISECONDS.sleep(5);
+        sut.execute("key", calls::incrementAndGet);
+
+        Assert.assertEquals(2, calls.get());
+        Assert.assertEquals(1, sut.getEvictions());
+    }
+
+    @Test
+    public void concurrent_requests_with_same_key_run_once() throws Exception {
+        IdempotencyStore sut = new IdempotencyStore(idempotencyKeyDao, false, 100, 60, 5000);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return sut.execute("key", () -> {
+                    sleep();
+                    return calls.incrementAndGet();
+                });
+            }));
+        }
+        start.countDown();
+        for (Future<Integer> future : futures) {
+            Assert.assertEquals(Integer.valueOf(1), future.get());
+        }
+        executor.shutdown();
+        Assert.assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void jdbc_tier_replays_across_stores() {
+        IdempotencyStore node1 = new IdempotencyStore(idempotencyKeyDao, true, 100, 60, 1000);
+        IdempotencyStore node2 = new IdempotencyStore(idempotencyKeyDao, true, 100, 60, 1000);
+
+        Integer first = node1.execute("key", () -> 3001);
+        Integer second = node2.execute("key", calls::incrementAndGet);
+
+        Assert.assertEquals(first, second);
+        Assert.assertEquals(0, calls.get());
+        Assert.assertEquals(1, node2.getHits());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(50);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
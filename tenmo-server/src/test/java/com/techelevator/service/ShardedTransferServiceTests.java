@@ -0,0 +1,64 @@
+package com.techelevator.service;
+
+import com.techelevator.dao.BaseDaoTests;
+import com.techelevator.tenmo.dao.AccountIdResolver;
+import com.techelevator.tenmo.dao.JdbcAccountDao;
+import com.techelevator.tenmo.dao.JdbcTransferDao;
+import com.techelevator.tenmo.enums.TransferStatusEnum;
+import com.techelevator.tenmo.enums.TransferTypeEnum;
+import com.techelevator.tenmo.journal.TransferJournal;
+import com.techelevator.tenmo.model.BucksDto;
+import com.techelevator.tenmo.model.Money;
+import com.techelevator.tenmo.service.ShardedTransferService;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class ShardedTransferServiceTests extends BaseDaoTests {
+
+    private ShardedTransferService sut;
+    private JdbcTransferDao transferDao;
+    private JdbcAccountDao accountDao;
+
+    @Before
+    public void setup() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        transferDao = new JdbcTransferDao(jdbcTemplate);
+        accountDao = new JdbcAccountDao(jdbcTemplate);
+        AccountIdResolver resolver = new AccountIdResolver(jdbcTemplate);
+        resolver.load();
+        sut = new ShardedTransferService(transferDao, accountDao, TransferJournal.DISABLED, resolver, 2, 16, 1000, 100);
+    }
+
+    @After
+    public void shutdown() {
+        sut.shutdown();
+    }
+
+    @Test
+    public void approves_transfers_it_created() {
+        Integer transferId = sut.addTransfer(new BucksDto(1001, 1002, Money.ofCents(5_00)), TransferTypeEnum.REQUEST.getTypeId());
+
+        sut.approveTransfer(transferId);
+
+        Assert.assertEquals(TransferStatusEnum.APPROVED.getStatusId(), transferDao.getTransferById(transferId).getTransferStatusId());
+        Assert.assertEquals(Money.ofCents(1005_00), accountDao.findByAccountId(2001).getBalance());
+        Assert.assertEquals(Money.ofCents(995_00), accountDao.findByAccountId(2002).getBalance());
+    }
+
+    @Test
+    public void looks_up_transfers_created_elsewhere() {
+        Integer transferId = transferDao.addTransfer(1, 1, 2001, 2002, Money.ofCents(5_00));
+
+        sut.rejectTransfer(transferId);
+
+        Assert.assertEquals(TransferStatusEnum.REJECTED.getStatusId(), transferDao.getTransferById(transferId).getTransferStatusId());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknown_transfer_is_rejected() {
+        sut.approveTransfer(-1);
+    }
+}
@@ -0,0 +1,170 @@
+package com.techelevator.service;
+
+import com.techelevator.dao.BaseDaoTests;
+import com.techelevator.tenmo.dao.JdbcAccountDao;
+import com.techelevator.tenmo.dao.JdbcTransferDao;
+import com.techelevator.tenmo.enums.TransferStatusEnum;
+import com.techelevator.tenmo.enums.TransferTypeEnum;
+import com.techelevator.tenmo.journal.MappedTransferJournal;
+import com.techelevator.tenmo.journal.TransferJournal;
+import com.techelevator.tenmo.model.BatchTransferDto;
+import com.techelevator.tenmo.model.BucksDto;
+import com.techelevator.tenmo.model.Money;
+import com.techelevator.tenmo.service.TransferServiceImpl;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class TransferServiceImplTests extends BaseDaoTests {
+
+    private static final Integer SEND = TransferTypeEnum.SEND.getTypeId();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TransferServiceImpl sut;
+    private JdbcTransferDao transferDao;
+    private JdbcAccountDao accountDao;
+
+    @Before
+    public void setup() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        transferDao = new JdbcTransferDao(jdbcTemplate);
+        accountDao = new JdbcAccountDao(jdbcTemplate);
+        sut = new TransferServiceImpl(transferDao, accountDao);
+    }
+
+    @Test
+    public void journal_first_addTransfer_rejects_what_the_constraints_would() throws IOException {
+        MappedTransferJournal journal = new MappedTransferJournal(transferDao, folder.getRoot().toPath(), 1 << 20, 2, 65536, 4, true);
+        TransferServiceImpl journalFirst = new TransferServiceImpl(transferDao, accountDao, journal);
+        try {
+            Assert.assertEquals(Integer.valueOf(-1), journalFirst.addTransfer(new BucksDto(1001, 1001, Money.ofCents(100)), SEND));
+            Assert.assertEquals(Integer.valueOf(-1), journalFirst.addTransfer(new BucksDto(1001, 1002, Money.ZERO), SEND));
+            Assert.assertEquals(Integer.valueOf(-1), journalFirst.addTransfer(new BucksDto(1001, 1002, Money.ofCents(-100)), SEND));
+            Assert.assertEquals(0, journal.getLastSequence());
+        } finally {
+            journal.close();
+        }
+    }
+
+    @Test
+    public void approveTransfers_approves_what_the_payer_can_cover() {
+        List<BatchTransferDto> results = sut.approveTransfers(Arrays.asList(3003, 3001, 3002, -1));
+
+        Assert.assertEquals(4, results.size());
+        Assert.assertNotNull(results.get(0).getError());
+        Assert.assertNull(results.get(1).getError());
+        Assert.assertNotNull(results.get(2).getError());
+        Assert.assertNotNull(results.get(3).getError());
+        Assert.assertEquals(TransferStatusEnum.APPROVED.getStatusId(), transferDao.getTransferById(3001).getTransferStatusId());
+        Assert.assertEquals(TransferStatusEnum.PENDING.getStatusId(), transferDao.getTransferById(3003).getTransferStatusId());
+        Assert.assertEquals(Money.ofCents(1100_00), accountDao.findByAccountId(2001).getBalance());
+        Assert.assertEquals(Money.ofCents(900_00), accountDao.findByAccountId(2002).getBalance());
+        Assert.assertEquals(Money.ofCents(1000_00), accountDao.findByAccountId(2003).getBalance());
+    }
+
+    @Test
+    public void approveTransfers_journals_status_changes_after_commit() {
+        RecordingJournal journal = new RecordingJournal();
+        TransferServiceImpl journaling = new TransferServiceImpl(transferDao, accountDao, journal);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            journaling.approveTransfers(Arrays.asList(3001));
+            Assert.assertTrue(journal.statusChanged.isEmpty());
+            TransactionSynchronizationUtils.triggerAfterCommit();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        Assert.assertEquals(Arrays.asList(3001), journal.statusChanged);
+    }
+
+    @Test
+    public void addTransfers_skips_what_addTransfer_refuses_and_journals_the_rest() {
+        RecordingJournal journal = new RecordingJournal();
+        TransferServiceImpl journaling = new TransferServiceImpl(transferDao, accountDao, journal);
+
+        List<BatchTransferDto> results = journaling.addTransfers(Arrays.asList(
+                new BucksDto(1001, 1002, Money.ofCents(10_00)),
+                new BucksDto(1001, 1001, Money.ofCents(10_00)),
+                new BucksDto(1001, 9999, Money.ofCents(10_00)),
+                new BucksDto(1002, 1003, Money.ZERO),
+                new BucksDto(1003, 1001, Money.ofCents(5_00))), SEND);
+
+        Assert.assertEquals(5, results.size());
+        Assert.assertNull(results.get(0).getError());
+        Assert.assertEquals("could not transfer to yourself", results.get(1).getError());
+        Assert.assertEquals("Account not found", results.get(2).getError());
+        Assert.assertEquals("Amount must be greater than zero", results.get(3).getError());
+        Assert.assertNull(results.get(4).getError());
+        Assert.assertEquals(Arrays.asList(results.get(0).getTransferId(), results.get(4).getTransferId()), journal.created);
+        Assert.assertEquals(Integer.valueOf(2001), transferDao.getTransferById(results.get(0).getTransferId()).getAccountFrom());
+    }
+
+    @Test
+    public void approveTransfers_applies_aggregated_deltas() {
+        Integer first = transferDao.addTransfer(1, 1, 2001, 2002, Money.ofCents(30_00));
+        Integer second = transferDao.addTransfer(1, 1, 2003, 2002, Money.ofCents(20_00));
+        Integer third = transferDao.addTransfer(1, 1, 2002, 2001, Money.ofCents(5_00));
+
+        List<BatchTransferDto> results = sut.approveTransfers(Arrays.asList(first, second, third, 3001));
+
+        for (BatchTransferDto result : results) {
+            Assert.assertNull(result.getError());
+        }
+        Assert.assertEquals(Money.ofCents(1125_00), accountDao.findByAccountId(2001).getBalance());
+        Assert.assertEquals(Money.ofCents(855_00), accountDao.findByAccountId(2002).getBalance());
+        Assert.assertEquals(Money.ofCents(1020_00), accountDao.findByAccountId(2003).getBalance());
+    }
+
+    @Test
+    public void rejectTransfers_rejects_only_pending() {
+        List<BatchTransferDto> results = sut.rejectTransfers(Arrays.asList(3001, 3002, 3003));
+
+        Assert.assertNull(results.get(0).getError());
+        Assert.assertNotNull(results.get(1).getError());
+        Assert.assertNull(results.get(2).getError());
+        Assert.assertEquals(TransferStatusEnum.REJECTED.getStatusId(), transferDao.getTransferById(3003).getTransferStatusId());
+        Assert.assertEquals(TransferStatusEnum.APPROVED.getStatusId(), transferDao.getTransferById(3002).getTransferStatusId());
+    }
+
+    private static class RecordingJournal implements TransferJournal {
+        private final List<Integer> created = new ArrayList<>();
+        private final List<Integer> statusChanged = new ArrayList<>();
+
+        @Override
+        public void transferCreated(Integer transferId, Integer transferTypeId, Integer transferStatusId, Integer accountFrom, Integer accountTo, Money amount) {
+            created.add(transferId);
+        }
+
+        @Override
+        public void statusChanged(Integer transferId, Integer transferStatusId) {
+            this.statusChanged.add(transferId);
+        }
+
+        @Override
+        public boolean isJournalFirst() {
+            return false;
+        }
+
+        @Override
+        public Integer createTransfer(Integer transferTypeId, Integer transferStatusId, Integer accountFrom, Integer accountTo, Money amount) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void awaitApplied() {
+        }
+    }
+}
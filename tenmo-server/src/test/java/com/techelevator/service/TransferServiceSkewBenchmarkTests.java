@@ -0,0 +1,167 @@
+package com.techelevator.service;
+
+import com.techelevator.dao.BaseBenchmarkTests;
+import com.techelevator.tenmo.dao.AccountIdResolver;
+import com.techelevator.tenmo.dao.JdbcAccountDao;
+import com.techelevator.tenmo.dao.JdbcTransferDao;
+import com.techelevator.tenmo.enums.TransferTypeEnum;
+import com.techelevator.tenmo.journal.TransferJournal;
+import com.techelevator.tenmo.model.BucksDto;
+import com.techelevator.tenmo.model.Money;
+import com.techelevator.tenmo.service.ShardedTransferService;
+import com.techelevator.tenmo.service.TransferService;
+import com.techelevator.tenmo.service.TransferServiceImpl;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Approves the same Zipf-skewed workload through TransferServiceImpl and ShardedTransferService and prints
+ * throughput and p99 latency for each, after a warm-up round of both. Both runs must approve everything and
+ * conserve the total balance. Commits its own users, accounts and transfers and deletes them afterwards.
+ */
+public class TransferServiceSkewBenchmarkTests extends BaseBenchmarkTests {
+    private static final int ACCOUNTS = 32;
+    private static final int TRANSFERS = 1000;
+    private static final int CLIENTS = 16;
+    private static final double ZIPF_EXPONENT = 1.2;
+    private static final int STARTING_BALANCE = 1_000_000;
+
+    private HikariDataSource pool;
+    private JdbcTemplate jdbcTemplate;
+    private int[] userIds;
+    private int[] accountIds;
+
+    @Before
+    public void setup() {
+        SingleConnectionDataSource testDataSource = (SingleConnectionDataSource) dataSource;
+        pool = new HikariDataSource();
+        pool.setJdbcUrl(testDataSource.getUrl());
+        pool.setUsername(testDataSource.getUsername());
+        pool.setPassword(testDataSource.getPassword());
+        pool.setMaximumPoolSize(CLIENTS);
+        jdbcTemplate = new JdbcTemplate(pool);
+
+        userIds = new int[ACCOUNTS];
+        accountIds = new int[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            userIds[i] = jdbcTemplate.queryForObject("INSERT INTO tenmo_user (username, password_hash, role) " +
+                    "VALUES (?, 'x', 'ROLE_USER') RETURNING user_id", Integer.class, "skew" + i);
+            accountIds[i] = jdbcTemplate.queryForObject(
+                    "INSERT INTO account (user_id, balance) VALUES (?, ?) RETURNING account_id", Integer.class, userIds[i], STARTING_BALANCE);
+        }
+    }
+
+    @After
+    public void cleanup() {
+        Integer[] ids = Arrays.stream(accountIds).boxed().toArray(Integer[]::new);
+        String in = String.join(",", Collections.nCopies(ids.length, "?"));
+        jdbcTemplate.update("DELETE FROM ledger_entry WHERE account_id IN (" + in + ")", (Object[]) ids);
+        jdbcTemplate.update("DELETE FROM transfer WHERE account_from IN (" + in + ")", (Object[]) ids);
+        jdbcTemplate.update("DELETE FROM account WHERE account_id IN (" + in + ")", (Object[]) ids);
+        jdbcTemplate.update("DELETE FROM tenmo_user WHERE username LIKE 'skew%'");
+        pool.close();
+    }
+
+    @Test
+    public void sharded_and_direct_services_agree_under_skew() throws Exception {
+        JdbcTransferDao transferDao = new JdbcTransferDao(jdbcTemplate);
+        JdbcAccountDao accountDao = new JdbcAccountDao(jdbcTemplate);
+
+        AccountIdResolver resolver = new AccountIdResolver(jdbcTemplate);
+        resolver.load();
+
+        TransferServiceImpl direct = new TransferServiceImpl(transferDao, accountDao);
+        ShardedTransferService sharded = new ShardedTransferService(transferDao, accountDao, TransferJournal.DISABLED,
+                resolver, 0, 1024, 5000, 100_000);
+        try {
+            run(null, direct);
+            run(null, sharded);
+            run("TransferServiceImpl", direct);
+            run("ShardedTransferService", sharded);
+        } finally {
+            sharded.shutdown();
+        }
+
+        Integer total = jdbcTemplate.queryForObject("SELECT sum(balance) FROM account WHERE account_id BETWEEN ? AND ?",
+                Integer.class, accountIds[0], accountIds[ACCOUNTS - 1]);
+        Assert.assertEquals(ACCOUNTS * STARTING_BALANCE, total.intValue());
+    }
+
+    private void run(String name, TransferService service) throws Exception {
+        List<Integer> transferIds = createSkewedTransfers(service);
+        AtomicInteger next = new AtomicInteger();
+        long[] latencies = new long[transferIds.size()];
+
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        List<Future<?>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int c = 0; c < CLIENTS; c++) {
+            futures.add(clients.submit(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < transferIds.size()) {
+                    long callStart = System.nanoTime();
+                    service.approveTransfer(transferIds.get(i));
+                    latencies[i] = System.nanoTime() - callStart;
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        clients.shutdown();
+        clients.awaitTermination(10, TimeUnit.SECONDS);
+
+        String in = String.join(",", Collections.nCopies(transferIds.size(), "?"));
+        Integer approved = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM transfer WHERE transfer_status_id = 2 AND transfer_id IN (" + in + ")",
+                Integer.class, transferIds.toArray());
+        Assert.assertEquals(transferIds.size(), approved.intValue());
+
+        // The warm-up round is not reported
+        if (name != null) {
+            Arrays.sort(latencies);
+            System.out.printf("%s: %.0f approvals/sec, p50 %.2f ms, p99 %.2f ms%n", name,
+                    transferIds.size() / (elapsed / 1e9),
+                    latencies[latencies.length / 2] / 1e6,
+                    latencies[(int) (latencies.length * 0.99)] / 1e6);
+        }
+    }
+
+    // Created through the service, so the sharded one learns each transfer's debited account as a caller would
+    private List<Integer> createSkewedTransfers(TransferService service) {
+        double[] cumulative = new double[ACCOUNTS];
+        double sum = 0;
+        for (int i = 0; i < ACCOUNTS; i++) {
+            sum += 1 / Math.pow(i + 1, ZIPF_EXPONENT);
+            cumulative[i] = sum;
+        }
+        Random random = new Random(42);
+        List<Integer> transferIds = new ArrayList<>();
+        for (int i = 0; i < TRANSFERS; i++) {
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            int payer = rank >= 0 ? rank : -rank - 1;
+            int payee = (payer + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+            transferIds.add(service.addTransfer(new BucksDto(userIds[payee], userIds[payer], Money.ofCents(100)),
+                    TransferTypeEnum.REQUEST.getTypeId()));
+        }
+        return transferIds;
+    }
+}
@@ -0,0 +1,86 @@
+package com.techelevator.service;
+
+import com.techelevator.tenmo.service.UserDirectoryCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+public class UserDirectoryCacheTests {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    public void pages_are_loaded_once_until_invalidated() {
+        UserDirectoryCache sut = new UserDirectoryCache(10);
+
+        byte[] first = sut.get(null, 50, page(1050));
+        Assert.assertSame(first, sut.get(null, 50, page(1050)));
+        Assert.assertEquals(1, loads.get());
+
+        sut.invalidate();
+        Assert.assertEquals(0, sut.size());
+        Assert.assertNotSame(first, sut.get(null, 50, page(1050)));
+        Assert.assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void a_registration_drops_only_the_pages_reaching_the_new_user() {
+        UserDirectoryCache sut = new UserDirectoryCache(10);
+        sut.get(null, 50, page(1050));
+        sut.get(1050, 50, page(1100));
+        sut.get(1100, 50, page(null));
+
+        sut.invalidateFrom(1125);
+        Assert.assertEquals(2, sut.size());
+
+        // An id committed out of order lands on an earlier page, and everything after it goes too
+        sut.invalidateFrom(1049);
+        Assert.assertEquals(0, sut.size());
+    }
+
+    @Test
+    public void only_cursors_the_server_issued_are_kept() {
+        UserDirectoryCache sut = new UserDirectoryCache(10);
+
+        sut.get(1234, 50, page(1284));
+        Assert.assertEquals(0, sut.size());
+
+        sut.get(null, 50, page(1050));
+        sut.get(1050, 50, page(null));
+        Assert.assertEquals(2, sut.size());
+        // The same cursor with a page size it was not issued for
+        sut.get(1050, 20, page(null));
+        Assert.assertEquals(2, sut.size());
+    }
+
+    @Test
+    public void a_page_loaded_across_an_invalidation_is_not_kept() {
+        UserDirectoryCache sut = new UserDirectoryCache(10);
+
+        sut.get(null, 50, () -> {
+            sut.invalidate();
+            return page(1050).get();
+        });
+
+        Assert.assertEquals(0, sut.size());
+        Assert.assertEquals(0, sut.issuedSize());
+    }
+
+    @Test
+    public void pages_beyond_max_entries_are_served_but_not_kept() {
+        UserDirectoryCache sut = new UserDirectoryCache(1);
+
+        sut.get(null, 50, page(1050));
+        sut.get(1050, 50, page(null));
+        sut.get(1050, 50, page(null));
+
+        Assert.assertEquals(1, sut.size());
+        Assert.assertEquals(3, loads.get());
+    }
+
+    private Supplier<UserDirectoryCache.Page> page(Integer nextAfterUserId) {
+        return () -> new UserDirectoryCache.Page(("{\"page\":" + loads.incrementAndGet() + "}").getBytes(), nextAfterUserId);
+    }
+}